@@ -47,6 +47,9 @@ dependencies {
 
 	// Addons de Hibernate
 	implementation("org.hibernate.validator:hibernate-validator:8.0.1.Final")
+	implementation("org.hibernate.orm:hibernate-jcache")
+	implementation("com.github.ben-manes.caffeine:jcache")
+	implementation("com.github.ben-manes.caffeine:caffeine")
 
 	// Jackson JSON Processor
 	implementation("com.fasterxml.jackson.core:jackson-core:2.17.0")
@@ -72,6 +75,8 @@ dependencies {
 	// Test
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.security:spring-security-test")
+	testRuntimeOnly("com.h2database:h2")
+	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.withType<Test> {
@@ -0,0 +1,70 @@
+package es.iesmm.proyecto.drivehub.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/*
+ * Configuración de la caché de segundo nivel de Hibernate.
+ *
+ * Las regiones se crean aquí con un tamaño máximo y una caducidad, como missing_cache_strategy es "fail" Hibernate no
+ * puede crear regiones sin límite por su cuenta. La caché es local de cada réplica, los cambios hechos desde otra
+ * réplica se invalidan con ReferenceCacheService.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String FLEET_REGION = "fleet";
+    public static final String RENT_CAR_REGION = "rentCar";
+    public static final String DRIVER_CONTRACT_REGION = "driverContract";
+
+    public static final List<String> ENTITY_REGIONS = List.of(FLEET_REGION, RENT_CAR_REGION, DRIVER_CONTRACT_REGION);
+    public static final String QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${cache.reference.max-entries:10000}") long maximumEntries,
+            @Value("${cache.reference.ttl:10m}") Duration timeToLive,
+            @Value("${cache.query.max-entries:1000}") long maximumQueries
+    ) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+
+        for (String region : ENTITY_REGIONS) {
+            cacheManager.createCache(region, boundedConfiguration(maximumEntries, timeToLive));
+        }
+        cacheManager.createCache(QUERY_REGION, boundedConfiguration(maximumQueries, timeToLive));
+
+        // La región de marcas de tiempo no puede caducar antes que las consultas que dependen de ella
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(TIMESTAMPS_REGION, timestamps);
+
+        return cacheManager;
+    }
+
+    // Hibernate usa el mismo CacheManager en vez de crear el suyo
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> boundedConfiguration(long maximumEntries, Duration timeToLive) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
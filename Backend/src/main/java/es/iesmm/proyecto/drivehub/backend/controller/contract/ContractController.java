@@ -1,8 +1,8 @@
 package es.iesmm.proyecto.drivehub.backend.controller.contract;
 
 import es.iesmm.proyecto.drivehub.backend.model.http.request.contract.ContractCreationRequest;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import es.iesmm.proyecto.drivehub.backend.service.contract.ContractService;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -29,7 +29,7 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<DriverContract> createContract(@RequestBody ContractCreationRequest request, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         Long fleetId = request.fleetId();
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "CREATE_GENERAL_CONTRACT")) {
@@ -50,8 +50,8 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_FLEET') or hasRole('DRIVER_CHAUFFEUR')")
     public ResponseEntity<DriverContract> getOwnContract(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
-        return contractService.getActualContract(user)
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return contractService.getActualContract(user.getId())
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -60,8 +60,8 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_FLEET') or hasRole('DRIVER_CHAUFFEUR')")
     public List<DriverContract> getOwnContracts(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
-        return contractService.findByDriver(user);
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return contractService.findByDriver(user.getId());
     }
 
     /*
@@ -116,7 +116,7 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<DriverContract>> getAllFleetContracts(@PathVariable Long fleetId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return ResponseEntity.ok(contractService.findAllByFleet(fleetId));
@@ -129,7 +129,7 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<DriverContract> getFleetContract(@PathVariable Long fleetId, @PathVariable Long contractId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return contractService.findContractByIdFleet(contractId, fleetId)
@@ -144,7 +144,7 @@ public class ContractController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Object> finalizeFleetContract(@PathVariable Long fleetId, @PathVariable Long contractId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return contractService.findContractByIdFleet(contractId, fleetId)
@@ -3,6 +3,7 @@ package es.iesmm.proyecto.drivehub.backend.controller.fleet;
 import es.iesmm.proyecto.drivehub.backend.model.fleet.Fleet;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.fleet.FleetCreationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
 import es.iesmm.proyecto.drivehub.backend.service.fleet.FleetService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
@@ -41,7 +42,7 @@ public class FleetController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Fleet> getFleetById(@PathVariable Long fleetId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return fleetService.findById(fleetId)
@@ -56,7 +57,7 @@ public class FleetController {
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_FLEET')")
     public ResponseEntity<Fleet> getFleetsThatHasAccess(@AuthenticationPrincipal UserDetails userDetails) {
-        return fleetService.findByDriver((UserModel) userDetails)
+        return fleetService.findByDriver(userService.findAuthenticated(userDetails))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -65,7 +66,7 @@ public class FleetController {
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public List<Fleet> getFleetsThatHasAccessAsAdmin(@AuthenticationPrincipal UserDetails userDetails) {
-        return fleetService.findByAdmin((UserModel) userDetails);
+        return fleetService.findByAdmin(userService.findAuthenticated(userDetails));
     }
 
     @PostMapping("/create")
@@ -73,7 +74,7 @@ public class FleetController {
     @PreAuthorize("hasRole('ADMIN') and hasAuthority('CREATE_FLEET')")
     public ResponseEntity<Fleet> createFleet(@RequestBody FleetCreationRequest request, @AuthenticationPrincipal UserDetails userDetails) {
         try {
-            return ResponseEntity.ok(fleetService.createFleet((UserModel) userDetails, request));
+            return ResponseEntity.ok(fleetService.createFleet(userService.findAuthenticated(userDetails), request));
         } catch (IllegalArgumentException | NullPointerException e) {
             return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
         } catch (IllegalStateException e) {
@@ -89,7 +90,7 @@ public class FleetController {
     @PreAuthorize("hasRole('ADMIN') and hasAuthority('UPDATE_FLEET')")
     public ResponseEntity<Fleet> updateFleet(@PathVariable Long fleetId, @RequestBody Fleet request, @AuthenticationPrincipal UserDetails userDetails) {
         // Check if the user has the FLEET_fleetId role
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return fleetService.findById(fleetId)
@@ -118,7 +119,7 @@ public class FleetController {
     @GetMapping("/{fleetId}/drivers")
     @PreAuthorize("hasRole('ADMIN')")
     public List<UserModel> listDrivers(@PathVariable Long fleetId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return userService.findDriversByFleet(fleetId);
@@ -126,4 +127,17 @@ public class FleetController {
             throw new AccessDeniedException("User does not have the required role");
         }
     }
+
+    @ResponseBody
+    @GetMapping("/{fleetId}/admins")
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<UserModel> listAdmins(@PathVariable Long fleetId, @AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+
+        if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
+            return userService.findAdminsByFleet(fleetId);
+        } else {
+            throw new AccessDeniedException("User does not have the required role");
+        }
+    }
 }
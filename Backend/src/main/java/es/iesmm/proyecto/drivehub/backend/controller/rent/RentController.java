@@ -1,8 +1,14 @@
 package es.iesmm.proyecto.drivehub.backend.controller.rent;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.request.rent.CatalogSort;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleCatalogResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleReservationResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogQuery;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.PriceBand;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
 import es.iesmm.proyecto.drivehub.backend.service.rent.RentService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
 import es.iesmm.proyecto.drivehub.backend.service.vehicle.VehicleService;
@@ -15,6 +21,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
 import java.util.List;
 
 @RestController
@@ -32,10 +39,33 @@ public class RentController {
         return vehicleService.findAvailableVehicles();
     }
 
+    // Búsqueda en el catálogo con filtros, orden, facetas y paginado por número de página
+    @GetMapping("/catalog")
+    @ResponseBody
+    public ResponseEntity<VehicleCatalogResponse> searchCatalog(@RequestParam(required = false) String brand,
+                                                                @RequestParam(required = false) String model,
+                                                                @RequestParam(required = false) String color,
+                                                                @RequestParam(required = false) Double minPrice,
+                                                                @RequestParam(required = false) Double maxPrice,
+                                                                @RequestParam(required = false) PriceBand priceBand,
+                                                                @RequestParam(required = false) DriverLicenseType license,
+                                                                @RequestParam(required = false) Boolean available,
+                                                                @RequestParam(required = false, defaultValue = "ID") CatalogSort sort,
+                                                                @RequestParam(required = false, defaultValue = "0") int page,
+                                                                @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(vehicleService.searchCatalog(new CatalogQuery(
+                    brand, model, color, minPrice, maxPrice, priceBand, license, available, sort, page, size
+            )));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
     @GetMapping("/active")
     @ResponseBody
     public ResponseEntity<UserRent> getActiveRent(@AuthenticationPrincipal UserDetails userDetails) {
-        return rentService.findActiveRentBy((UserModel) userDetails)
+        return rentService.findActiveRentBy(userService.findAuthenticated(userDetails))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -44,7 +74,7 @@ public class RentController {
     @GetMapping("/history")
     @ResponseBody
     public List<UserRent> listRentedVehiclesByMe(@AuthenticationPrincipal UserDetails userDetails) {
-        return rentService.findRentedVehiclesBy((UserModel) userDetails);
+        return rentService.findRentedVehiclesBy(userService.findAuthenticated(userDetails));
     }
 
     @GetMapping("/history/{userId}")
@@ -62,7 +92,7 @@ public class RentController {
     public ResponseEntity<RentCar> rentVehicle(@PathVariable Long vehicleId, @AuthenticationPrincipal UserDetails userDetails) {
         try {
             return ResponseEntity.ok(
-                    rentService.rentVehicle(vehicleId, (UserModel) userDetails)
+                    rentService.rentVehicle(vehicleId, userService.findAuthenticated(userDetails))
             );
         } catch (NullPointerException e) {
             return ResponseEntity.notFound().build();
@@ -78,7 +108,7 @@ public class RentController {
     public ResponseEntity<UserRent> returnVehicle(@PathVariable Long vehicleId, @AuthenticationPrincipal UserDetails userDetails) {
         try {
             return ResponseEntity.ok(
-                    rentService.returnVehicle(vehicleId, (UserModel) userDetails)
+                    rentService.returnVehicle(vehicleId, userService.findAuthenticated(userDetails))
             );
         } catch (IllegalArgumentException e) {
             return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
@@ -87,6 +117,60 @@ public class RentController {
         }
     }
 
+    // Vehículos sin reservas entre las dos fechas, se reciben en milisegundos
+    @GetMapping("/free")
+    @ResponseBody
+    public ResponseEntity<List<RentCar>> listFreeVehicles(@RequestParam Long from, @RequestParam Long to) {
+        try {
+            return ResponseEntity.ok(rentService.findFreeVehicles(new Date(from), new Date(to)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
+    @GetMapping("/reservations")
+    @ResponseBody
+    public List<VehicleReservationResponse> listMyReservations(@AuthenticationPrincipal UserDetails userDetails) {
+        return rentService.findPendingReservationsBy(userService.findAuthenticated(userDetails));
+    }
+
+    @PostMapping("/reserve/{vehicleId}")
+    @ResponseBody
+    public ResponseEntity<VehicleReservationResponse> reserveVehicle(@PathVariable Long vehicleId,
+                                                                     @RequestParam Long from,
+                                                                     @RequestParam Long to,
+                                                                     @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            return ResponseEntity.ok(rentService.reserveVehicle(
+                    vehicleId,
+                    userService.findAuthenticated(userDetails),
+                    new Date(from),
+                    new Date(to)
+            ));
+        } catch (NullPointerException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage())).build();
+        }
+    }
+
+    @DeleteMapping("/reserve/{reservationId}")
+    @ResponseBody
+    public ResponseEntity<Void> cancelReservation(@PathVariable Long reservationId, @AuthenticationPrincipal UserDetails userDetails) {
+        try {
+            rentService.cancelReservation(reservationId, userService.findAuthenticated(userDetails));
+            return ResponseEntity.ok().build();
+        } catch (NullPointerException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage())).build();
+        }
+    }
+
     /*
     Metodos que requieren de un rol
      */
@@ -98,5 +182,31 @@ public class RentController {
         return rentService.findAll();
     }
 
+    @GetMapping("/allRents/page")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('LIST_ALL_RENTS')")
+    public ResponseEntity<KeysetPageResponse<UserRent>> listAllRentsPage(@RequestParam(required = false) Long userId,
+                                                                         @RequestParam(required = false) Long vehicleId,
+                                                                         @RequestParam(required = false) Boolean active,
+                                                                         @RequestParam(required = false) Long from,
+                                                                         @RequestParam(required = false) Long to,
+                                                                         @RequestParam(required = false) String cursor,
+                                                                         @RequestParam(required = false, defaultValue = "20") int size) {
+        // Paginado por cursor, las fechas se reciben en milisegundos. Se sirve en /page para no cambiar el formato de /allRents
+        try {
+            return ResponseEntity.ok(rentService.findPage(
+                    userId,
+                    vehicleId,
+                    active,
+                    from != null ? new Date(from) : null,
+                    to != null ? new Date(to) : null,
+                    cursor,
+                    size
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
 
 }
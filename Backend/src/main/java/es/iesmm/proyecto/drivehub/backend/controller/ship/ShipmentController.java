@@ -1,14 +1,33 @@
 package es.iesmm.proyecto.drivehub.backend.controller.ship;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentBulkStatusUpdateRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentCreationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentStatusUpdateRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusUpdateResultResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
 import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import es.iesmm.proyecto.drivehub.backend.service.export.ExportService;
 import es.iesmm.proyecto.drivehub.backend.service.location.LocationService;
+import es.iesmm.proyecto.drivehub.backend.service.ship.ShipmentImportService;
 import es.iesmm.proyecto.drivehub.backend.service.ship.ShipmentService;
+import es.iesmm.proyecto.drivehub.backend.service.ship.tracking.ShipmentTrackingHub;
+import es.iesmm.proyecto.drivehub.backend.util.export.ExportResponses;
+import es.iesmm.proyecto.drivehub.backend.util.export.ExportWriter;
+import es.iesmm.proyecto.drivehub.backend.util.export.NdjsonExportWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -17,7 +36,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Date;
 import java.util.List;
 
 import static es.iesmm.proyecto.drivehub.backend.util.permission.PermissionUtils.hasAdminPermission;
@@ -30,6 +53,11 @@ public class ShipmentController {
 
     private final ShipmentService shipmentService;
     private final LocationService locationService;
+    private final ExportService exportService;
+    private final ExportResponses exportResponses;
+    private final ShipmentImportService shipmentImportService;
+    private final ShipmentTrackingHub shipmentTrackingHub;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
     @ResponseBody
@@ -49,6 +77,31 @@ public class ShipmentController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /*
+     * Seguimiento en tiempo real del envío: primero el estado actual y después la localización del conductor y los
+     * cambios de estado según ocurren, sin tener que consultar /ship/{id} y /ship/{id}/location cada poco.
+     */
+    @GetMapping("/{id}/track")
+    public ResponseEntity<SseEmitter> trackShipment(@PathVariable Long id) {
+        return shipmentTrackingHub.track(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/history")
+    @ResponseBody
+    public ResponseEntity<KeysetPageResponse<ShipmentStatusHistoryResponse>> getShipmentHistory(@PathVariable Long id,
+                                                                                               @RequestParam(required = false) String cursor,
+                                                                                               @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return shipmentService.findStatusHistory(id, cursor, size)
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
     @GetMapping("/all")
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_SHIPMENTS') or hasAuthority('SUPER_ADMIN'))")
@@ -56,18 +109,72 @@ public class ShipmentController {
         return shipmentService.findAll();
     }
 
+    @GetMapping("/all/page")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_SHIPMENTS') or hasAuthority('SUPER_ADMIN'))")
+    public ResponseEntity<KeysetPageResponse<ShipmentTrackingResponse>> listAllShipmentsPage(@RequestParam(required = false) ShipmentStatusType status,
+                                                                                        @RequestParam(required = false) Long driverId,
+                                                                                        @RequestParam(required = false) Long fleetId,
+                                                                                        @RequestParam(required = false) Long from,
+                                                                                        @RequestParam(required = false) Long to,
+                                                                                        @RequestParam(required = false) String cursor,
+                                                                                        @RequestParam(required = false, defaultValue = "20") int size) {
+        // Paginado por cursor, las fechas se reciben en milisegundos. Se sirve en /page para no cambiar el formato de /all
+        try {
+            return ResponseEntity.ok(shipmentService.findTracking(
+                    status,
+                    driverId,
+                    fleetId,
+                    from != null ? new Date(from) : null,
+                    to != null ? new Date(to) : null,
+                    cursor,
+                    size
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
+    /*
+     * Exportación del seguimiento de los envíos para informes, se escribe según se lee de la base de datos así que no
+     * tiene límite de filas. Con gzip se descarga el fichero comprimido.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_SHIPMENTS') or hasAuthority('SUPER_ADMIN'))")
+    public WebAsyncTask<Void> exportShipments(@RequestParam(required = false) ShipmentStatusType status,
+                                              @RequestParam(required = false) Long fleetId,
+                                              @RequestParam(required = false) Long from,
+                                              @RequestParam(required = false) Long to,
+                                              @RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format,
+                                              @RequestParam(required = false, defaultValue = "false") boolean gzip,
+                                              HttpServletResponse response) {
+        Date fromDate = from != null ? new Date(from) : null;
+        Date toDate = to != null ? new Date(to) : null;
+
+        return exportResponses.stream(response, "shipments", format, gzip,
+                out -> exportService.exportShipments(status, fleetId, fromDate, toDate, format, out));
+    }
+
     @GetMapping("/listOwn")
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_FLEET')")
     public ResponseEntity<List<Shipment>> listOwnShipments(@AuthenticationPrincipal UserDetails userDetails) {
-        return ResponseEntity.ok(shipmentService.findByDriver((UserModel) userDetails));
+        return ResponseEntity.ok(shipmentService.findByDriver(((AuthenticatedUser) userDetails).getId()));
+    }
+
+    // Igual que /listOwn pero solo con el seguimiento de cada envío, sin los paquetes ni el historial de estados
+    @GetMapping("/listOwn/tracking")
+    @ResponseBody
+    @PreAuthorize("hasRole('DRIVER_FLEET')")
+    public ResponseEntity<List<ShipmentTrackingResponse>> listOwnShipmentsTracking(@AuthenticationPrincipal UserDetails userDetails) {
+        return ResponseEntity.ok(shipmentService.findTrackingByDriver(((AuthenticatedUser) userDetails).getId()));
     }
 
     @GetMapping("/list/fleet/{fleetId}")
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<Shipment>> listFleetShipments(@PathVariable Long fleetId, @AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         if (hasFleetPermission(user, fleetId) || hasAdminPermission(user, "SUPER_ADMIN")) {
             return ResponseEntity.ok(shipmentService.findByFleet(fleetId));
@@ -91,12 +198,55 @@ public class ShipmentController {
         }
     }
 
+    /*
+     * Importación masiva de envíos, el cuerpo es un NDJSON con un envío por línea (igual que /ship/create) o un CSV con
+     * un paquete por fila. La respuesta es un NDJSON con el resultado de cada envío en el mismo orden, se escribe según
+     * se van guardando los bloques.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('CREATE_SHIPMENT')")
+    public WebAsyncTask<Void> importShipments(@RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format,
+                                              HttpServletRequest request, HttpServletResponse response) {
+        // Igual que las exportaciones puede durar varios minutos, se usa el mismo tiempo límite
+        response.setContentType(ExportFormat.NDJSON.getContentType());
+        return exportResponses.write(response, out -> shipmentImportService.importShipments(format, request.getInputStream(), out));
+    }
+
+    /*
+     * Cambio de estado de varios envíos a la vez (p.e. un conductor que escanea todos los paquetes de una ruta). La
+     * respuesta es un NDJSON con el resultado de cada envío en el orden de la petición.
+     */
+    @PutMapping("/status")
+    @PreAuthorize("(hasRole('ADMIN') and hasAuthority('UPDATE_SHIPMENT')) or hasRole('DRIVER_FLEET')")
+    public ResponseEntity<StreamingResponseBody> updateShipmentStatuses(@RequestBody ShipmentBulkStatusUpdateRequest request, @AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+
+        // Los conductores solo pueden cambiar sus propios envíos
+        Long driverId = user.hasRole(UserRoles.ADMIN) && hasAdminPermission(user, "UPDATE_SHIPMENT") ? null : user.getId();
+
+        try {
+            List<ShipmentStatusUpdateResultResponse> results = shipmentService.updateStatuses(request, driverId);
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(ExportFormat.NDJSON.getContentType()))
+                    .body(out -> {
+                        try (ExportWriter<ShipmentStatusUpdateResultResponse> writer = new NdjsonExportWriter<>(objectMapper, out)) {
+                            for (ShipmentStatusUpdateResultResponse result : results) {
+                                writer.write(result);
+                            }
+                        }
+                    });
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
     @PutMapping("/status/{id}")
     @ResponseBody
     @PreAuthorize("(hasRole('ADMIN') and hasAuthority('UPDATE_SHIPMENT')) or hasRole('DRIVER_FLEET')")
-    public ResponseEntity<Shipment> updateShipmentStatus(@PathVariable Long id, @RequestBody ShipmentStatusUpdateRequest request) {
-        return shipmentService.findById(id)
-                .map(s -> ResponseEntity.ok(shipmentService.updateStatus(s, request)))
+    public ResponseEntity<ShipmentStatusUpdate> updateShipmentStatus(@PathVariable Long id, @RequestBody ShipmentStatusUpdateRequest request) {
+        return shipmentService.updateStatus(id, request)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
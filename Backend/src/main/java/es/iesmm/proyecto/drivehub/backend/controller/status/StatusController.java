@@ -1,18 +1,33 @@
 package es.iesmm.proyecto.drivehub.backend.controller.status;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.cache.CacheRegionStatisticsResponse;
+import es.iesmm.proyecto.drivehub.backend.service.cache.ReferenceCacheService;
 import lombok.AllArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/status")
 @AllArgsConstructor
 public class StatusController {
 
+    private final ReferenceCacheService referenceCacheService;
+
     // Metodo para comprobar si el servidor esta activo
     @RequestMapping("/ping")
     public String ping() {
         return "pong";
     }
 
+    // Aciertos y fallos de cada región de la caché de segundo nivel de esta réplica
+    @GetMapping("/cache")
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('SUPER_ADMIN')")
+    public List<CacheRegionStatisticsResponse> cacheStatistics() {
+        return referenceCacheService.getStatistics();
+    }
+
 }
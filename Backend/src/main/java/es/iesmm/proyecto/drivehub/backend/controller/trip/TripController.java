@@ -1,11 +1,21 @@
 package es.iesmm.proyecto.drivehub.backend.controller.trip;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.trip.TripCoordinatesDraftRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.trip.TripDraftRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripDetailResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
 import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
 import es.iesmm.proyecto.drivehub.backend.model.trip.draft.TripDraftModel;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
+import es.iesmm.proyecto.drivehub.backend.service.export.ExportService;
 import es.iesmm.proyecto.drivehub.backend.service.trip.TripService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
+import es.iesmm.proyecto.drivehub.backend.util.export.ExportResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,7 +27,9 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,13 +41,32 @@ public class TripController {
     private static final Logger log = LoggerFactory.getLogger(TripController.class);
     private final TripService tripService;
     private final UserService userService;
+    private final ExportService exportService;
+    private final ExportResponses exportResponses;
 
     @PostMapping("/draft")
     @ResponseBody
     public ResponseEntity<TripDraftModel> createDraft(@AuthenticationPrincipal UserDetails userDetails, @RequestBody TripDraftRequest request) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         try {
-            return ResponseEntity.ok(tripService.createDraft(user, request.origin(), request.destination()));
+            return ResponseEntity.ok(tripService.createDraft(user.getId(), request.origin(), request.destination()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
+    @PostMapping("/draft/coordinates")
+    @ResponseBody
+    public ResponseEntity<TripDraftModel> createDraftFromCoordinates(@AuthenticationPrincipal UserDetails userDetails, @RequestBody TripCoordinatesDraftRequest request) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        try {
+            return ResponseEntity.ok(tripService.createDraft(
+                    user.getId(),
+                    request.originCoordinates(),
+                    request.destinationCoordinates(),
+                    request.originLabel(),
+                    request.destinationLabel()
+            ));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
         }
@@ -52,7 +83,7 @@ public class TripController {
     @PostMapping("/start/{draftId}")
     @ResponseBody
     public ResponseEntity<TripModel> startTrip(@AuthenticationPrincipal UserDetails userDetails, @PathVariable String draftId, @RequestParam(required = false, defaultValue = "false") boolean sendPackage) {
-        UserModel user = (UserModel) userDetails;
+        UserModel user = userService.findAuthenticated(userDetails);
         try {
             Optional<TripDraftModel> tripDraftModel = tripService.findDraft(draftId);
 
@@ -76,16 +107,29 @@ public class TripController {
     @GetMapping("/active")
     @ResponseBody
     public ResponseEntity<TripModel> getActiveTrip(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         return tripService.findActiveByPassenger(user.getId())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /*
+     * Igual que /active pero solo con los datos del trayecto y los nombres del conductor y el pasajero, sin cargar sus
+     * entidades. Se sirve en otra ruta para no cambiar el formato que ya usa la app.
+     */
+    @GetMapping("/active/detail")
+    @ResponseBody
+    public ResponseEntity<TripDetailResponse> getActiveTripDetail(@AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return tripService.findActiveDetailByPassenger(user.getId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/active/cancel")
     @ResponseBody
     public ResponseEntity<Object> cancelActiveTrip(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         return tripService.findActiveByPassenger(user.getId())
                 .map(tripModel -> {
                     tripService.cancelTrip(tripModel);
@@ -98,17 +142,27 @@ public class TripController {
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
     public ResponseEntity<TripModel> getActiveTripForDriver(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         return tripService.findActiveByDriver(user.getId())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/driver/active/detail")
+    @ResponseBody
+    @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
+    public ResponseEntity<TripDetailResponse> getActiveTripDetailForDriver(@AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return tripService.findActiveDetailByDriver(user.getId())
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/driver/active/finish")
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
     public ResponseEntity<Object> finishActiveTripForDriver(@AuthenticationPrincipal UserDetails userDetails, @RequestParam(required = false, defaultValue = "false") boolean cancel) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         return tripService.findActiveByDriver(user.getId())
                 .map(tripModel -> {
                     if (cancel) { // Cancelled trips are not paid
@@ -125,13 +179,13 @@ public class TripController {
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
     public ResponseEntity<Object> acceptTripForDriver(@AuthenticationPrincipal UserDetails userDetails, @PathVariable Long tripId) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         log.info("Driver {} accepting trip {}", user.getId(), tripId);
         return tripService.findById(tripId)
                 .map(tripModel -> {
                     try {
                         log.info("Driver {} accepted trip {}", user.getId(), tripId);
-                        tripService.assignDriver(user, tripModel);
+                        tripService.assignDriver(userService.findAuthenticated(userDetails), tripModel);
                         log.info("Driver {} assigned to trip {}", user.getId(), tripId);
                         return ResponseEntity.ok().build();
                     } catch (IllegalStateException e) {
@@ -144,24 +198,103 @@ public class TripController {
 
     @GetMapping("/history")
     @ResponseBody
-    public List<TripModel> getTripHistory(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
-        return tripService.findUserHistory(user.getId());
+    public ResponseEntity<List<TripModel>> getTripHistory(@AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return ResponseEntity.ok(tripService.findByPassenger(user.getId()));
     }
 
     @GetMapping("/history/driver")
     @ResponseBody
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
-    public List<TripModel> getTripHistoryForDriver(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
-        return tripService.findDriverHistory(user.getId());
+    public ResponseEntity<List<TripModel>> getTripHistoryForDriver(@AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return ResponseEntity.ok(tripService.findByDriver(user.getId()));
     }
 
     @GetMapping("/all")
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_TRIPS') or hasAuthority('SUPER_ADMIN'))")
-    public List<TripModel> getAllTrips() {
-        return tripService.findAll();
+    public ResponseEntity<List<TripModel>> getAllTrips() {
+        return ResponseEntity.ok(tripService.findAll());
+    }
+
+    /*
+     * Listados de trayectos paginados por cursor, las fechas se reciben en milisegundos y para pedir la siguiente página
+     * se envía el nextCursor de la respuesta con los mismos filtros. Se sirven en /page para no cambiar el formato de
+     * los listados que ya usa la app.
+     */
+    @GetMapping("/history/page")
+    @ResponseBody
+    public ResponseEntity<KeysetPageResponse<TripSummaryResponse>> getTripHistoryPage(@AuthenticationPrincipal UserDetails userDetails,
+                                                                                     @RequestParam(required = false) TripStatus status,
+                                                                                     @RequestParam(required = false) Long from,
+                                                                                     @RequestParam(required = false) Long to,
+                                                                                     @RequestParam(required = false) String cursor,
+                                                                                     @RequestParam(required = false, defaultValue = "20") int size) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return findTrips(status, user.getId(), null, from, to, cursor, size);
+    }
+
+    @GetMapping("/history/driver/page")
+    @ResponseBody
+    @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
+    public ResponseEntity<KeysetPageResponse<TripSummaryResponse>> getTripHistoryPageForDriver(@AuthenticationPrincipal UserDetails userDetails,
+                                                                                              @RequestParam(required = false) TripStatus status,
+                                                                                              @RequestParam(required = false) Long from,
+                                                                                              @RequestParam(required = false) Long to,
+                                                                                              @RequestParam(required = false) String cursor,
+                                                                                              @RequestParam(required = false, defaultValue = "20") int size) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return findTrips(status, null, user.getId(), from, to, cursor, size);
+    }
+
+    @GetMapping("/all/page")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_TRIPS') or hasAuthority('SUPER_ADMIN'))")
+    public ResponseEntity<KeysetPageResponse<TripSummaryResponse>> getAllTripsPage(@RequestParam(required = false) TripStatus status,
+                                                                                  @RequestParam(required = false) Long passengerId,
+                                                                                  @RequestParam(required = false) Long driverId,
+                                                                                  @RequestParam(required = false) Long from,
+                                                                                  @RequestParam(required = false) Long to,
+                                                                                  @RequestParam(required = false) String cursor,
+                                                                                  @RequestParam(required = false, defaultValue = "20") int size) {
+        return findTrips(status, passengerId, driverId, from, to, cursor, size);
+    }
+
+    /*
+     * Exportación de los trayectos para informes, se escribe según se lee de la base de datos así que no tiene límite
+     * de filas. Con gzip se descarga el fichero comprimido.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') and (hasAuthority('LIST_ALL_TRIPS') or hasAuthority('SUPER_ADMIN'))")
+    public WebAsyncTask<Void> exportTrips(@RequestParam(required = false) TripStatus status,
+                                          @RequestParam(required = false) Long from,
+                                          @RequestParam(required = false) Long to,
+                                          @RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format,
+                                          @RequestParam(required = false, defaultValue = "false") boolean gzip,
+                                          HttpServletResponse response) {
+        Date fromDate = from != null ? new Date(from) : null;
+        Date toDate = to != null ? new Date(to) : null;
+
+        return exportResponses.stream(response, "trips", format, gzip,
+                out -> exportService.exportTrips(status, fromDate, toDate, format, out));
+    }
+
+    private ResponseEntity<KeysetPageResponse<TripSummaryResponse>> findTrips(TripStatus status, Long passengerId, Long driverId,
+                                                                             Long from, Long to, String cursor, int size) {
+        try {
+            return ResponseEntity.ok(tripService.findSummaries(
+                    status,
+                    passengerId,
+                    driverId,
+                    from != null ? new Date(from) : null,
+                    to != null ? new Date(to) : null,
+                    cursor,
+                    size
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
     }
 
     /*
@@ -171,7 +304,7 @@ public class TripController {
      */
     @GetMapping("/stream/status")
     public ResponseEntity<SseEmitter> streamTripStatus(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         return tripService.findActiveByPassenger(user.getId())
                 .map(trip -> ResponseEntity.ok(tripService.streamTripStatus(trip)))
@@ -184,7 +317,7 @@ public class TripController {
      */
     @GetMapping("/stream/location")
     public ResponseEntity<SseEmitter> streamLocationTrips(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
 
         return tripService.findActiveByPassenger(user.getId())
                 .map(trip -> ResponseEntity.ok(tripService.streamTripLocation(trip)))
@@ -199,7 +332,7 @@ public class TripController {
     @GetMapping("/stream/duty")
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR')")
     public SseEmitter streamDuty(@AuthenticationPrincipal UserDetails userDetails) {
-        return tripService.streamDuty((UserModel) userDetails);
+        return tripService.streamDuty(((AuthenticatedUser) userDetails).getId());
     }
 
 }
@@ -1,13 +1,21 @@
 package es.iesmm.proyecto.drivehub.backend.controller.user;
 
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.*;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceReconciliationResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceStatementResponse;
 import es.iesmm.proyecto.drivehub.backend.model.http.response.common.CommonResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.user.UserProfileResponse;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.DriverLicense;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
+import es.iesmm.proyecto.drivehub.backend.service.balance.BalanceService;
 import es.iesmm.proyecto.drivehub.backend.service.location.LocationService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
@@ -15,8 +23,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,16 +37,41 @@ public class UserController {
 
     private final UserService userService;
     private final LocationService locationService;
+    private final BalanceService balanceService;
 
     @GetMapping("/me")
     @ResponseBody
-    public UserModel me(@AuthenticationPrincipal UserDetails userDetails) {
-        return (UserModel) userDetails;
+    public UserProfileResponse me(@AuthenticationPrincipal UserDetails userDetails) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+        return userService.findProfileById(user.getId())
+                .map(UserProfileResponse::of)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
+    @GetMapping("/balance/history")
+    @ResponseBody
+    public Page<BalanceChange> balanceHistory(@AuthenticationPrincipal UserDetails userDetails,
+                                              @RequestParam(required = false, defaultValue = "0") int page,
+                                              @RequestParam(required = false, defaultValue = "20") int size) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+
+        // Se limita el tamaño de la página para no cargar todo el historial de golpe
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+        return balanceService.findHistory(user.getId(), pageable);
+    }
+
+    @GetMapping("/balance/statement")
+    @ResponseBody
+    public BalanceStatementResponse balanceStatement(@AuthenticationPrincipal UserDetails userDetails, @RequestParam(required = false) Long date) {
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
+
+        // La fecha se recibe en formato unix (milisegundos), si no viene se usa la fecha actual
+        return balanceService.getStatement(user.getId(), date != null ? new Date(date) : new Date());
     }
 
     @PostMapping("/update/main")
     public ResponseEntity<CommonResponse> updateData(@AuthenticationPrincipal UserDetails userDetails, @RequestBody UserModificationRequest request) {
-        UserModel user = (UserModel) userDetails;
+        UserModel user = userService.findAuthenticated(userDetails);
         try {
             userService.updateUserByRequest(user, request);
             return ResponseEntity.ok(
@@ -64,10 +99,23 @@ public class UserController {
         return userService.findAll();
     }
 
+    // Paginado por cursor, se sirve en /page para no cambiar el formato de /list/all
+    @GetMapping("/list/all/page")
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('GET_ALL_USERS')")
+    public ResponseEntity<KeysetPageResponse<UserModel>> listAllUsersPage(@RequestParam(required = false) Long fleetId,
+                                                                          @RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(userService.findPage(fleetId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
     @GetMapping("/get/{id}")
     @PreAuthorize("hasRole('ADMIN') and hasAuthority('SEE_USER_DETAILS')")
-    public UserModel getUser(@PathVariable Long id) {
-        return userService.findById(id).orElse(null);
+    public UserProfileResponse getUser(@PathVariable Long id) {
+        return userService.findProfileById(id).map(UserProfileResponse::of).orElse(null);
     }
 
     @PostMapping("/update/{id}")
@@ -108,6 +156,22 @@ public class UserController {
         }
     }
 
+    @GetMapping("/balance/statement/{id}")
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('SEE_USER_DETAILS')")
+    public ResponseEntity<BalanceStatementResponse> balanceStatementByUser(@PathVariable Long id, @RequestParam(required = false) Long date) {
+        try {
+            return ResponseEntity.ok(balanceService.getStatement(id, date != null ? new Date(date) : new Date()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage())).build();
+        }
+    }
+
+    @PostMapping("/balance/reconcile")
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('SUPER_ADMIN')")
+    public BalanceReconciliationResponse reconcileBalances() {
+        return balanceService.reconcile();
+    }
+
     @DeleteMapping("/delete/{id}")
     @PreAuthorize("hasRole('ADMIN') and hasAuthority('DELETE_USER')")
     public ResponseEntity<CommonResponse> deleteUser(@PathVariable Long id) {
@@ -154,13 +218,13 @@ public class UserController {
      */
     @GetMapping("/licenses")
     public List<DriverLicense> getDriverLicenses(@AuthenticationPrincipal UserDetails userDetails) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         return userService.findDriverLicensesByDriver(user.getId());
     }
 
     @PostMapping("/licenses/add")
     public ResponseEntity<CommonResponse> addDriverLicense(@AuthenticationPrincipal UserDetails userDetails, @RequestBody DriverLicense license) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         try {
             userService.addDriverLicenseToDriver(user.getId(), license);
             return ResponseEntity.ok(
@@ -180,7 +244,7 @@ public class UserController {
 
     @DeleteMapping("/licenses/remove/{licenseId}")
     public ResponseEntity<CommonResponse> removeDriverLicense(@AuthenticationPrincipal UserDetails userDetails, @PathVariable String licenseId) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         try {
             userService.removeDriverLicenseFromDriver(user.getId(), licenseId);
             return ResponseEntity.ok(
@@ -201,7 +265,7 @@ public class UserController {
     @PostMapping("/update/driver")
     @PreAuthorize("hasRole('DRIVER_CHAUFFEUR') or hasRole('DRIVER_FLEET')")
     public ResponseEntity<CommonResponse> updateDriverChauffeur(@AuthenticationPrincipal UserDetails userDetails, @RequestBody DriverModificationRequest request) {
-        UserModel user = (UserModel) userDetails;
+        UserModel user = userService.findAuthenticated(userDetails);
         try {
             userService.updateDriverByRequest(user, request);
             return ResponseEntity.ok(
@@ -223,10 +287,10 @@ public class UserController {
     @PostMapping("/location")
     @PreAuthorize("hasRole('DRIVER_FLEET') or hasRole('DRIVER_CHAUFFEUR')")
     public ResponseEntity<CommonResponse> updateLocation(@AuthenticationPrincipal UserDetails userDetails, @RequestBody UserLocationUpdateRequest request) {
-        UserModel user = (UserModel) userDetails;
+        AuthenticatedUser user = (AuthenticatedUser) userDetails;
         try {
             System.out.println(request);
-            locationService.save(user, request);
+            locationService.save(user.getId(), request);
             return ResponseEntity.ok(
                     CommonResponse.builder()
                             .success(true)
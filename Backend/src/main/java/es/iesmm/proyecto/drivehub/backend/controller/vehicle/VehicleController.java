@@ -1,5 +1,6 @@
 package es.iesmm.proyecto.drivehub.backend.controller.vehicle;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
 import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
@@ -30,6 +31,20 @@ public class VehicleController {
         return vehicleService.findAll();
     }
 
+    // Paginado por cursor, se sirve en /page para no cambiar el formato de /all
+    @GetMapping("/all/page")
+    @ResponseBody
+    @PreAuthorize("hasRole('ADMIN') and hasAuthority('LIST_ALL_VEHICLES')")
+    public ResponseEntity<KeysetPageResponse<RentCar>> listRentedVehiclesPage(@RequestParam(required = false) Boolean available,
+                                                                              @RequestParam(required = false) String cursor,
+                                                                              @RequestParam(required = false, defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(vehicleService.findPage(available, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        }
+    }
+
     @GetMapping("/{id}")
     @ResponseBody
     @PreAuthorize("hasRole('ADMIN') and hasAuthority('GET_VEHICLE')")
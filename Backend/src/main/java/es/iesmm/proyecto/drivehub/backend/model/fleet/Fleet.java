@@ -1,12 +1,15 @@
 package es.iesmm.proyecto.drivehub.backend.model.fleet;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import es.iesmm.proyecto.drivehub.backend.config.HibernateCacheConfig;
 import es.iesmm.proyecto.drivehub.backend.model.fleet.vehicle.VehicleType;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.fleet.FleetDriverModelData;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.util.List;
@@ -15,6 +18,8 @@ import java.util.List;
         name = "FLOTA_VEHICULOS"
 )
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.FLEET_REGION)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -30,7 +35,7 @@ public class Fleet extends AbstractPersistable<Long> {
     private VehicleType vehicleType;
 
     // One fleet can have multiple drivers
-    @OneToMany(mappedBy = "fleet", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "fleet", fetch = FetchType.LAZY)
     @JsonIgnore
     private List<FleetDriverModelData> drivers;
 
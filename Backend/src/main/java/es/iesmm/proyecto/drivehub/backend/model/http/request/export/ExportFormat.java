@@ -0,0 +1,19 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.request.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Formatos de las exportaciones, NDJSON es un objeto JSON por línea con los mismos campos que los listados y CSV una
+ * fila por elemento con los objetos anidados aplanados. Las importaciones masivas aceptan los mismos formatos.
+ */
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+}
@@ -0,0 +1,13 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.request.rent;
+
+/*
+ * Orden de los resultados de la búsqueda en el catálogo de vehículos de alquiler, a igualdad se ordena por ID.
+ */
+public enum CatalogSort {
+
+    ID,
+    PRICE_ASC,
+    PRICE_DESC,
+    BRAND
+
+}
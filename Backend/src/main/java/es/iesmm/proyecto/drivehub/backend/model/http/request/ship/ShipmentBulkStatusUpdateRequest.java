@@ -0,0 +1,39 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.request.ship;
+
+import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
+
+import java.util.List;
+
+/*
+ * Mismo cambio de estado para varios envíos. Si "atomic" es verdadero o se aplica a todos o a ninguno, si no se aplica
+ * a los que existan y el resto se devuelven como no encontrados.
+ */
+public record ShipmentBulkStatusUpdateRequest(
+        List<Long> shipmentIds,
+        String description,
+        ShipmentStatusType status,
+        boolean atomic
+) {
+
+    // Oracle no admite más de 1000 valores en un IN
+    public static final int MAX_SHIPMENTS = 1000;
+
+    /**
+     * Comprueba los datos del cambio de estado
+     * @throws NullPointerException Si falta el estado o la lista de envíos
+     * @throws IllegalArgumentException Si la lista de envíos está vacía o supera el máximo
+     */
+    public void validate() {
+        Preconditions.checkNotNull(status, "The status cannot be null");
+        Preconditions.checkNotNull(shipmentIds, "SHIPMENTS_CANNOT_BE_NULL");
+        Preconditions.checkArgument(!shipmentIds.isEmpty(), "SHIPMENTS_CANNOT_BE_EMPTY");
+        Preconditions.checkArgument(shipmentIds.size() <= MAX_SHIPMENTS, "TOO_MANY_SHIPMENTS");
+    }
+
+    public ShipmentStatusUpdate toStatusUpdate(Shipment shipment) {
+        return ShipmentStatusUpdate.of(shipment, status, description);
+    }
+}
@@ -1,5 +1,6 @@
 package es.iesmm.proyecto.drivehub.backend.model.http.request.ship;
 
+import com.google.common.base.Preconditions;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
 import es.iesmm.proyecto.drivehub.backend.model.ship.parcel.Parcel;
 
@@ -15,6 +16,21 @@ public record ShipmentCreationRequest(
         Long driverId
 ) {
 
+    /**
+     * Comprueba los datos del envío, el conductor se comprueba aparte al buscarlo
+     * @throws NullPointerException Si falta algún dato obligatorio
+     * @throws IllegalArgumentException Si las fechas o los paquetes no son válidos
+     */
+    public void validate() {
+        Preconditions.checkNotNull(sourceAddress, "The source address cannot be null");
+        Preconditions.checkNotNull(destinationAddress, "The destination address cannot be null");
+        Preconditions.checkNotNull(shipmentDate, "The shipment date cannot be null");
+        Preconditions.checkNotNull(deliveryDate, "The delivery date cannot be null");
+        Preconditions.checkNotNull(parcels, "PARCELS_CANNOT_BE_NULL");
+        Preconditions.checkArgument(shipmentDate.before(deliveryDate), "INVALID_SHIPMENT_DATE");
+        Preconditions.checkArgument(!parcels.isEmpty(), "PARCELS_CANNOT_BE_EMPTY");
+    }
+
     public Shipment toShipment() {
         return Shipment.builder()
                 .sourceAddress(sourceAddress)
@@ -0,0 +1,34 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.request.trip;
+
+import com.google.maps.model.LatLng;
+
+/*
+ * Petición de borrador de trayecto a partir de coordenadas, se usa cuando el cliente ya conoce los puntos en el mapa
+ * y así evitamos volver a geocodificar las direcciones en el servidor. Las etiquetas son opcionales y solo se usan
+ * para mostrar la dirección al usuario.
+ *
+ * Las coordenadas no son primitivas para distinguir una coordenada que falta de un 0, si falta alguna el punto es nulo
+ * y el servicio lo rechaza como coordenadas no válidas.
+ */
+public record TripCoordinatesDraftRequest(
+        Double originLatitude,
+        Double originLongitude,
+        Double destinationLatitude,
+        Double destinationLongitude,
+        String originLabel,
+        String destinationLabel
+) {
+
+    public LatLng originCoordinates() {
+        return coordinates(originLatitude, originLongitude);
+    }
+
+    public LatLng destinationCoordinates() {
+        return coordinates(destinationLatitude, destinationLongitude);
+    }
+
+    private static LatLng coordinates(Double latitude, Double longitude) {
+        return latitude != null && longitude != null ? new LatLng(latitude, longitude) : null;
+    }
+
+}
@@ -0,0 +1,19 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.balance;
+
+import java.util.List;
+
+/*
+ * Resultado de conciliar el saldo de todos los usuarios con su historial, solo se devuelven los primeros descuadres
+ * encontrados para no cargar todos en memoria.
+ */
+public record BalanceReconciliationResponse(
+        long checkedUsers,
+        long mismatchedUsers,
+        long failedBatches,
+        long durationMillis,
+        List<Mismatch> mismatches
+) {
+
+    public record Mismatch(Long userId, double balance, double ledgerBalance) {
+    }
+}
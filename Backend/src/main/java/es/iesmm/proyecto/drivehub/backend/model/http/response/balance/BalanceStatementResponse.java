@@ -0,0 +1,19 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.balance;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
+
+import java.util.Date;
+import java.util.List;
+
+/*
+ * Extracto del saldo de un usuario en una fecha, se calcula desde el punto de control mas cercano (checkpointDate es nulo
+ * si no había ninguno) y los movimientos posteriores a él hasta la fecha.
+ */
+public record BalanceStatementResponse(
+        Long userId,
+        Date date,
+        double balance,
+        Date checkpointDate,
+        List<BalanceChange> entries
+) {
+}
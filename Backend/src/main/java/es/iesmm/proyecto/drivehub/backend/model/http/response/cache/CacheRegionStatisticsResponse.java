@@ -0,0 +1,28 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.cache;
+
+import org.hibernate.stat.CacheRegionStatistics;
+
+public record CacheRegionStatisticsResponse(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        long entries,
+        double hitRatio
+) {
+
+    public static CacheRegionStatisticsResponse of(String region, CacheRegionStatistics statistics) {
+        long hits = statistics.getHitCount();
+        long misses = statistics.getMissCount();
+        long requests = hits + misses;
+
+        return new CacheRegionStatisticsResponse(
+                region,
+                hits,
+                misses,
+                statistics.getPutCount(),
+                statistics.getElementCountInMemory(),
+                requests == 0 ? 0 : (double) hits / requests
+        );
+    }
+}
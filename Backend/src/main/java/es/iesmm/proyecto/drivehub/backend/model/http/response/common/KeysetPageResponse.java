@@ -0,0 +1,13 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.common;
+
+import java.util.List;
+
+/*
+ * Página de un listado paginado por cursor, nextCursor es nulo cuando no hay más elementos. Para pedir la siguiente
+ * página se envía nextCursor en el parámetro "cursor" con los mismos filtros.
+ */
+public record KeysetPageResponse<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
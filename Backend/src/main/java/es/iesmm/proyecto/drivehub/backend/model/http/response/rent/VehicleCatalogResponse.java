@@ -0,0 +1,21 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.rent;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Página de la búsqueda en el catálogo, total es el número de vehículos que cumplen los filtros y las facetas son el
+ * número de esos vehículos por marca, franja de precio y licencia requerida.
+ */
+public record VehicleCatalogResponse(
+        List<RentCar> items,
+        int total,
+        int page,
+        int size,
+        Map<String, Integer> brands,
+        Map<String, Integer> priceBands,
+        Map<String, Integer> licenses
+) {
+}
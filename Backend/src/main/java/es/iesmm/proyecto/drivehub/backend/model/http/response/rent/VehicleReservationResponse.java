@@ -0,0 +1,17 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.rent;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.VehicleReservation;
+
+import java.util.Date;
+
+public record VehicleReservationResponse(Long id, Long vehicleId, Date startTime, Date endTime) {
+
+    public static VehicleReservationResponse of(VehicleReservation reservation) {
+        return new VehicleReservationResponse(
+                reservation.getId(),
+                reservation.getVehicle().getId(),
+                reservation.getStartTime(),
+                reservation.getEndTime()
+        );
+    }
+}
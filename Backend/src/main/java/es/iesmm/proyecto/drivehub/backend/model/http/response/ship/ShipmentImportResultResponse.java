@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.ship;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/*
+ * Resultado de un envío de la importación masiva, "line" es la línea del fichero donde empieza. Si se ha creado lleva
+ * el ID del envío y si no el motivo del rechazo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShipmentImportResultResponse(
+        long line,
+        Long shipmentId,
+        String error
+) {
+
+    public static ShipmentImportResultResponse created(long line, Long shipmentId) {
+        return new ShipmentImportResultResponse(line, shipmentId, null);
+    }
+
+    public static ShipmentImportResultResponse rejected(long line, String error) {
+        return new ShipmentImportResultResponse(line, null, error);
+    }
+}
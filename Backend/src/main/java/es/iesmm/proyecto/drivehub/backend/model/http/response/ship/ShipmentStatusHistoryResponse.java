@@ -0,0 +1,16 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.ship;
+
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+
+import java.util.Date;
+
+/*
+ * Entrada del historial de estados de un envío, mismos campos que ShipmentStatusUpdate pero sin cargar la entidad.
+ */
+public record ShipmentStatusHistoryResponse(
+        Long id,
+        Date updateDate,
+        ShipmentStatusType status,
+        String description
+) {
+}
@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.ship;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/*
+ * Resultado de un envío del cambio de estado masivo. Si se ha aplicado lleva el ID de la entrada del historial y si
+ * no el motivo.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShipmentStatusUpdateResultResponse(
+        Long shipmentId,
+        Long updateId,
+        String error
+) {
+
+    public static ShipmentStatusUpdateResultResponse applied(Long shipmentId, Long updateId) {
+        return new ShipmentStatusUpdateResultResponse(shipmentId, updateId, null);
+    }
+
+    public static ShipmentStatusUpdateResultResponse rejected(Long shipmentId, String error) {
+        return new ShipmentStatusUpdateResultResponse(shipmentId, null, error);
+    }
+}
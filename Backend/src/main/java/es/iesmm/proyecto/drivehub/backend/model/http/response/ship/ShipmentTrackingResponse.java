@@ -0,0 +1,40 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.ship;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.user.UserSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+
+import java.util.Date;
+
+/*
+ * Seguimiento de un envío para los listados, sin el historial de estados ni los paquetes (solo cuántos tiene y la
+ * fecha de la última actualización). Igual que en Shipment, si el envío está oculto el estado es HIDDEN.
+ */
+public record ShipmentTrackingResponse(
+        Long id,
+        String sourceAddress,
+        String destinationAddress,
+        Date shipmentDate,
+        Date deliveryDate,
+        ShipmentStatusType actualStatus,
+        Date lastUpdateDate,
+        long parcelCount,
+        UserSummaryResponse driver
+) {
+
+    public ShipmentTrackingResponse(Long id, String sourceAddress, String destinationAddress, Date shipmentDate,
+                                    Date deliveryDate, boolean hidden, ShipmentStatusType actualStatus,
+                                    Date lastUpdateDate, long parcelCount,
+                                    Long driverId, String driverFirstName, String driverLastName) {
+        this(id, sourceAddress, destinationAddress, shipmentDate, deliveryDate,
+                hidden ? ShipmentStatusType.HIDDEN : actualStatus,
+                hidden ? null : lastUpdateDate,
+                parcelCount,
+                UserSummaryResponse.of(driverId, driverFirstName, driverLastName));
+    }
+
+    // Mismo seguimiento con un nuevo estado, para avisar del cambio sin volver a consultarlo
+    public ShipmentTrackingResponse withStatus(ShipmentStatusType status, Date updateDate) {
+        return new ShipmentTrackingResponse(id, sourceAddress, destinationAddress, shipmentDate, deliveryDate,
+                status, updateDate, parcelCount, driver);
+    }
+}
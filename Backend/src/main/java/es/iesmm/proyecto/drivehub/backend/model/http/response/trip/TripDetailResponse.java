@@ -0,0 +1,43 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.trip;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.user.UserSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+
+import java.util.Date;
+
+/*
+ * Detalle de un trayecto activo, además del resumen incluye las coordenadas, las horas y los datos del vehículo.
+ * Las coordenadas van con el mismo formato que en la base de datos ("latitud;longitud").
+ */
+public record TripDetailResponse(
+        Long id,
+        TripStatus status,
+        Date date,
+        Date startTime,
+        Date endTime,
+        String origin,
+        String destination,
+        String originAddress,
+        String destinationAddress,
+        double price,
+        double distance,
+        boolean sendPackage,
+        String vehicleModel,
+        String vehiclePlate,
+        String vehicleColor,
+        UserSummaryResponse driver,
+        UserSummaryResponse passenger
+) {
+
+    public TripDetailResponse(Long id, TripStatus status, Date date, Date startTime, Date endTime,
+                              String origin, String destination, String originAddress, String destinationAddress,
+                              double price, double distance, boolean sendPackage,
+                              String vehicleModel, String vehiclePlate, String vehicleColor,
+                              Long driverId, String driverFirstName, String driverLastName,
+                              Long passengerId, String passengerFirstName, String passengerLastName) {
+        this(id, status, date, startTime, endTime, origin, destination, originAddress, destinationAddress,
+                price, distance, sendPackage, vehicleModel, vehiclePlate, vehicleColor,
+                UserSummaryResponse.of(driverId, driverFirstName, driverLastName),
+                UserSummaryResponse.of(passengerId, passengerFirstName, passengerLastName));
+    }
+}
@@ -0,0 +1,33 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.trip;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.user.UserSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+
+import java.util.Date;
+
+/*
+ * Resumen de un trayecto para los historiales y listados, se carga directamente con una consulta de TripRepository
+ * (el constructor con los campos planos es el que usa la consulta).
+ */
+public record TripSummaryResponse(
+        Long id,
+        TripStatus status,
+        Date date,
+        String originAddress,
+        String destinationAddress,
+        double price,
+        double distance,
+        boolean sendPackage,
+        UserSummaryResponse driver,
+        UserSummaryResponse passenger
+) {
+
+    public TripSummaryResponse(Long id, TripStatus status, Date date, String originAddress, String destinationAddress,
+                               double price, double distance, boolean sendPackage,
+                               Long driverId, String driverFirstName, String driverLastName,
+                               Long passengerId, String passengerFirstName, String passengerLastName) {
+        this(id, status, date, originAddress, destinationAddress, price, distance, sendPackage,
+                UserSummaryResponse.of(driverId, driverFirstName, driverLastName),
+                UserSummaryResponse.of(passengerId, passengerFirstName, passengerLastName));
+    }
+}
@@ -0,0 +1,50 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.AdminModelData;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.DriverModelData;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.DriverLicense;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+
+import java.util.Date;
+import java.util.Set;
+
+/*
+ * Perfil de un usuario, mismos campos que se devolvían al serializar el UserModel pero sin los métodos de UserDetails
+ * ni ninguna relación que no se haya cargado con UserRepository#findProfileById.
+ */
+public record UserProfileResponse(
+        Long id,
+        String email,
+        String firstName,
+        String lastName,
+        Set<UserRoles> roles,
+        Date birthDate,
+        double balance,
+        String phone,
+        @JsonProperty("dni") String DNI,
+        @JsonInclude(JsonInclude.Include.NON_NULL) AdminModelData adminData,
+        @JsonInclude(JsonInclude.Include.NON_NULL) DriverModelData driverData,
+        @JsonIgnoreProperties("user") Set<DriverLicense> driverLicenses
+) {
+
+    public static UserProfileResponse of(UserModel user) {
+        return new UserProfileResponse(
+                user.getId(),
+                user.getEmail(),
+                user.getFirstName(),
+                user.getLastName(),
+                user.getRoles(),
+                user.getBirthDate(),
+                user.getBalance(),
+                user.getPhone(),
+                user.getDNI(),
+                user.getAdminData(),
+                user.getDriverData(),
+                user.getDriverLicenses()
+        );
+    }
+}
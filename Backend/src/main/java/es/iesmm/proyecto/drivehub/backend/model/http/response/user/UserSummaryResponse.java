@@ -0,0 +1,16 @@
+package es.iesmm.proyecto.drivehub.backend.model.http.response.user;
+
+/*
+ * Datos mínimos de un usuario para mostrarlo dentro de otra respuesta (conductor o pasajero de un trayecto, conductor
+ * de un envío...). Es nulo cuando la relación no está asignada.
+ */
+public record UserSummaryResponse(
+        Long id,
+        String firstName,
+        String lastName
+) {
+
+    public static UserSummaryResponse of(Long id, String firstName, String lastName) {
+        return id == null ? null : new UserSummaryResponse(id, firstName, lastName);
+    }
+}
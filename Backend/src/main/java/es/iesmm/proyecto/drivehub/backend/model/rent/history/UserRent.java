@@ -12,6 +12,14 @@ import lombok.*;
 import java.io.Serializable;
 import java.sql.Timestamp;
 
+@Table(
+        indexes = {
+                // Índices de los listados paginados por (inicio, usuario) y de la búsqueda del alquiler activo
+                @Index(name = "IDX_ALQUILER_START", columnList = "start_time, user_id"),
+                @Index(name = "IDX_ALQUILER_USER_ACTIVE", columnList = "user_id, active"),
+                @Index(name = "IDX_ALQUILER_VEHICLE_ACTIVE", columnList = "vehicle_id, active")
+        }
+)
 @Entity
 @Getter
 @Setter
@@ -0,0 +1,18 @@
+package es.iesmm.proyecto.drivehub.backend.model.rent.reservation;
+
+import java.util.Date;
+
+/*
+ * Intervalo [start, end) de una reserva en milisegundos, es lo único que guarda el índice de reservas en memoria.
+ */
+public record ReservationInterval(Long reservationId, Long vehicleId, Long userId, long start, long end) {
+
+    // Constructor usado por las consultas de ReservationRepository
+    public ReservationInterval(Long reservationId, Long vehicleId, Long userId, Date start, Date end) {
+        this(reservationId, vehicleId, userId, start.getTime(), end.getTime());
+    }
+
+    public boolean overlaps(long from, long to) {
+        return start < to && end > from;
+    }
+}
@@ -0,0 +1,53 @@
+package es.iesmm.proyecto.drivehub.backend.model.rent.reservation;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+import java.util.Date;
+
+@Table(
+        name = "RESERVA_ALQUILER",
+        indexes = {
+                // Índice de la comprobación de solapes por vehículo y de la carga de las reservas pendientes
+                @Index(name = "IDX_RESERVA_VEHICLE_END", columnList = "vehicle_id, end_time"),
+                @Index(name = "IDX_RESERVA_USER_START", columnList = "user_id, start_time")
+        }
+)
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class VehicleReservation extends AbstractPersistable<Long> {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "vehicle_id", nullable = false)
+    @JsonIgnore
+    private RentCar vehicle;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnore
+    private UserModel user;
+
+    // La reserva ocupa el intervalo [startTime, endTime)
+    @Column(name = "start_time", nullable = false)
+    private Date startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private Date endTime;
+
+    private Date creationDate;
+    private boolean cancelled;
+
+    @JsonIgnore
+    @Override
+    public boolean isNew() {
+        return super.isNew();
+    }
+}
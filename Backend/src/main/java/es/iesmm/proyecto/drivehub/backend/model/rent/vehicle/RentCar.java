@@ -3,10 +3,14 @@ package es.iesmm.proyecto.drivehub.backend.model.rent.vehicle;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import es.iesmm.proyecto.drivehub.backend.config.HibernateCacheConfig;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.util.Date;
@@ -18,9 +22,15 @@ import java.util.Set;
         uniqueConstraints = {
                 @UniqueConstraint(name = "UQ_RENT_PLATE", columnNames="plate"),
                 @UniqueConstraint(name = "UQ_RENT_NUM_BASTIDOR", columnNames="numero_bastidor")
+        },
+        indexes = {
+                // Índice del listado de vehículos disponibles
+                @Index(name = "IDX_RENT_RENTED_BY", columnList = "rented_by, id")
         }
 )
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.RENT_CAR_REGION)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -47,12 +57,29 @@ public class RentCar extends AbstractPersistable<Long> {
     @Column(name = "price_per_hour")
     private double precioHora;
 
-    @OneToMany(mappedBy = "vehicle", fetch = FetchType.EAGER, orphanRemoval = true)
+    // Licencia que necesita el usuario para alquilarlo
+    @Enumerated(EnumType.STRING)
+    @Column(name = "required_license")
+    private DriverLicenseType requiredLicense;
+
+    // ID del usuario que tiene alquilado el vehículo ahora mismo, nulo si está disponible
+    // Solo se cambia con VehicleRepository#markRented y #markReturned
+    @Column(name = "rented_by", insertable = false, updatable = false)
+    @JsonIgnore
+    private Long rentedBy;
+
+    // La disponibilidad se calcula con rented_by, esta colección es el historial completo y no se debe recorrer
+    @OneToMany(mappedBy = "vehicle", fetch = FetchType.LAZY, orphanRemoval = true)
     @JsonIgnore
     private Set<UserRent> userRent = new HashSet<>();
 
     public boolean isAvailable() {
-        return userRent.stream().noneMatch(UserRent::isActive);
+        return rentedBy == null;
+    }
+
+    public DriverLicenseType getRequiredLicense() {
+        // Los vehículos anteriores a la columna son turismos de licencia B
+        return requiredLicense != null ? requiredLicense : DriverLicenseType.B;
     }
 
     @JsonIgnore
@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+
+/*
+ * Campos de un vehículo que se usan para filtrar, ordenar y agrupar en el índice del catálogo. Los vehículos anteriores
+ * a la columna de licencia requerida no la tienen, se toman como de licencia B.
+ */
+public record CatalogEntry(
+        Long id,
+        String brand,
+        String model,
+        String color,
+        double pricePerHour,
+        DriverLicenseType requiredLicense
+) {
+
+    public CatalogEntry {
+        if (requiredLicense == null) {
+            requiredLicense = DriverLicenseType.B;
+        }
+    }
+}
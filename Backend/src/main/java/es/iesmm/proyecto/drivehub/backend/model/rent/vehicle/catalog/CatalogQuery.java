@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.rent.CatalogSort;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+
+/*
+ * Filtros de la búsqueda en el catálogo, los nulos no filtran. Marca, modelo y color se comparan sin distinguir
+ * mayúsculas y minúsculas.
+ */
+public record CatalogQuery(
+        String brand,
+        String model,
+        String color,
+        Double minPrice,
+        Double maxPrice,
+        PriceBand priceBand,
+        DriverLicenseType license,
+        Boolean available,
+        CatalogSort sort,
+        int page,
+        int size
+) {
+}
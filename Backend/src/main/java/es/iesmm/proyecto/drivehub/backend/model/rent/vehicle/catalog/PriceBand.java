@@ -0,0 +1,31 @@
+package es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Franjas de precio por hora que se usan como faceta en la búsqueda del catálogo, el mínimo se incluye y el máximo no.
+ */
+@Getter
+@AllArgsConstructor
+public enum PriceBand {
+
+    UNDER_10(0, 10),
+    FROM_10_TO_20(10, 20),
+    FROM_20_TO_50(20, 50),
+    FROM_50_TO_100(50, 100),
+    OVER_100(100, Double.MAX_VALUE);
+
+    private final double minimum;
+    private final double maximum;
+
+    public static PriceBand of(double pricePerHour) {
+        for (PriceBand band : values()) {
+            if (pricePerHour < band.maximum) {
+                return band;
+            }
+        }
+
+        return OVER_100;
+    }
+}
@@ -15,7 +15,15 @@ import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
-@Table(name = "ENVIO")
+@Table(
+        name = "ENVIO",
+        indexes = {
+                // Índices de los listados paginados por (fecha de envío, ID)
+                @Index(name = "IDX_ENVIO_DATE", columnList = "shipmentDate, id"),
+                @Index(name = "IDX_ENVIO_DRIVER_DATE", columnList = "driver_id, shipmentDate, id"),
+                @Index(name = "IDX_ENVIO_STATUS_DATE", columnList = "actualStatus, shipmentDate, id")
+        }
+)
 @Entity
 @Getter
 @Setter
@@ -33,36 +41,30 @@ public class Shipment extends AbstractPersistable<Long> {
     @Enumerated(EnumType.STRING)
     private ShipmentStatusType actualStatus;
 
-    // Save the status history on the database
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "shipment_id")
+    // Solo lectura, los cambios de estado se insertan con ShipmentStatusUpdateRepository sin cargar el historial. Para
+    // listados largos se usa el historial paginado (/ship/{id}/history)
+    @OneToMany(mappedBy = "shipment")
+    @OrderBy("updateDate ASC, id ASC")
     private List<ShipmentStatusUpdate> statusHistory = new LinkedList<>();
 
     // Save the parcels on the database
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
-    @JoinColumn(name = "shipment_id")
+    @JoinColumn(name = "shipment_id", nullable = false)
     private List<Parcel> parcels = new LinkedList<>();
 
     @ManyToOne(optional = true, cascade = CascadeType.ALL)
-    @JsonIgnoreProperties({"email", "password", "roles", "saldo", "phone", "adminData", "driverData"})
+    @JsonIgnoreProperties({"email", "password", "roles", "saldo", "phone", "adminData", "driverData", "driverLicenses"})
     private UserModel driver;
 
     @PrePersist
     public void prePersist() {
-        // Añadir el estado inicial si no se ha especificado
+        // Añadir el estado inicial si no se ha especificado, su entrada del historial la guarda el servicio
         if (actualStatus == null) {
             actualStatus = ShipmentStatusType.PENDING_TO_PICK_UP;
         }
 
-        // Añadir el historial si no hay historial
-        if (statusHistory == null || statusHistory.isEmpty()) {
+        if (statusHistory == null) {
             statusHistory = new LinkedList<>();
-
-            statusHistory.add(ShipmentStatusUpdate.builder()
-                    .updateDate(new Date(System.currentTimeMillis()))
-                    .status(actualStatus)
-                    .description("Su envio ha sido registrado y está pendiente de recogida en la dirección de origen.")
-                    .build());
         }
 
         // Si no hay paquetes, crear el array vacío
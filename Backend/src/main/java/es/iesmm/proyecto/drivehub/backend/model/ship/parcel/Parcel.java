@@ -3,13 +3,17 @@ package es.iesmm.proyecto.drivehub.backend.model.ship.parcel;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.*;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
-@Table(name = "PAQUETE")
+@Table(
+        name = "PAQUETE",
+        indexes = @Index(name = "IDX_PAQUETE_SHIPMENT", columnList = "shipment_id")
+)
 @Entity
 @Getter
 @Setter
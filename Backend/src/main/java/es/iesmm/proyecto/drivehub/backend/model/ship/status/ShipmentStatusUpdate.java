@@ -2,16 +2,20 @@ package es.iesmm.proyecto.drivehub.backend.model.ship.status;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
-import jakarta.persistence.Entity;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.util.Date;
 
-@Table(name = "ESTADO_ENVIO")
+/*
+ * Cambio de estado de un envío. El historial solo crece: cada cambio es un INSERT en esta tabla, nunca se modifica ni
+ * se guarda a través del envío.
+ */
+@Table(
+        name = "ESTADO_ENVIO",
+        indexes = @Index(name = "IDX_ESTADO_ENVIO_SHIPMENT", columnList = "shipment_id, updateDate")
+)
 @Entity
 @Getter
 @Setter
@@ -20,8 +24,9 @@ import java.util.Date;
 @Builder
 public class ShipmentStatusUpdate extends AbstractPersistable<Long> {
 
-    @ManyToOne
-    @JoinColumn(name = "shipment_id", insertable = false, updatable = false)
+    // Esta parte de la relación es la que guarda la columna, basta con la referencia al envío sin cargarlo
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "shipment_id", nullable = false, updatable = false)
     @JsonIgnore
     private Shipment shipment;
 
@@ -29,6 +34,22 @@ public class ShipmentStatusUpdate extends AbstractPersistable<Long> {
     private ShipmentStatusType status;
     private String description;
 
+    private static final String INITIAL_DESCRIPTION = "Su envio ha sido registrado y está pendiente de recogida en la dirección de origen.";
+
+    // Primera entrada del historial de un envío recién creado
+    public static ShipmentStatusUpdate initial(Shipment shipment) {
+        return of(shipment, shipment.getActualStatus(), INITIAL_DESCRIPTION);
+    }
+
+    public static ShipmentStatusUpdate of(Shipment shipment, ShipmentStatusType status, String description) {
+        return ShipmentStatusUpdate.builder()
+                .shipment(shipment)
+                .updateDate(new Date())
+                .status(status)
+                .description(description)
+                .build();
+    }
+
     @Override
     @JsonIgnore
     public boolean isNew() {
@@ -2,6 +2,7 @@ package es.iesmm.proyecto.drivehub.backend.model.trip;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.google.maps.model.LatLng;
 import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import jakarta.persistence.*;
@@ -13,7 +14,14 @@ import java.sql.Time;
 import java.util.Date;
 
 @Table(
-        name = "TRAYECTO"
+        name = "TRAYECTO",
+        indexes = {
+                // Índices de los listados paginados por (fecha, ID), con cada uno de los filtros habituales delante
+                @Index(name = "IDX_TRAYECTO_DATE", columnList = "trip_date, id"),
+                @Index(name = "IDX_TRAYECTO_PASSENGER_DATE", columnList = "passenger_id, trip_date, id"),
+                @Index(name = "IDX_TRAYECTO_DRIVER_DATE", columnList = "driver_id, trip_date, id"),
+                @Index(name = "IDX_TRAYECTO_STATUS_DATE", columnList = "trip_status, trip_date, id")
+        }
 )
 @Entity
 @Getter
@@ -42,10 +50,14 @@ public class TripModel extends AbstractPersistable<Long> {
     @NotEmpty
     private String destination;
 
+    // Las direcciones solo se escriben al crear el trayecto y con TripRepository.updateAddresses (se resuelven en
+    // segundo plano), así guardar otra copia del trayecto no las pisa con las coordenadas
     @NotEmpty
+    @Column(updatable = false)
     private String originAddress;
 
     @NotEmpty
+    @Column(updatable = false)
     private String destinationAddress;
 
     private double price;
@@ -59,15 +71,37 @@ public class TripModel extends AbstractPersistable<Long> {
     private String vehicleColor;
 
     @ManyToOne
-    @JsonIgnoreProperties({"email", "password", "roles", "saldo", "phone", "adminData", "driverData", "balanceHistory"})
+    @JsonIgnoreProperties({"email", "password", "roles", "saldo", "phone", "adminData", "driverData", "driverLicenses", "balanceHistory"})
     @JoinColumn(name = "driver_id")
     private UserModel driver;
 
     @ManyToOne(optional = false)
     @JoinColumn(name = "passenger_id", nullable = false)
-    @JsonIgnoreProperties({"balanceHistory"})
+    @JsonIgnoreProperties({"driverLicenses", "balanceHistory"})
     private UserModel passenger;
 
+    /*
+     * Las coordenadas se guardan en la base de datos con el formato "latitud;longitud"
+     */
+    @JsonIgnore
+    public LatLng getOriginCoordinates() {
+        return parseCoordinates(origin);
+    }
+
+    @JsonIgnore
+    public LatLng getDestinationCoordinates() {
+        return parseCoordinates(destination);
+    }
+
+    private static LatLng parseCoordinates(String coordinates) {
+        if (coordinates == null) {
+            return null;
+        }
+
+        String[] parts = coordinates.split(";");
+        return new LatLng(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+    }
+
     @JsonIgnore
     public boolean isActive() {
         return status == TripStatus.ACCEPTED || status == TripStatus.PENDING;
@@ -0,0 +1,8 @@
+package es.iesmm.proyecto.drivehub.backend.model.trip.active;
+
+/*
+ * Trayecto activo (PENDING o ACCEPTED) con su pasajero y su conductor, el conductor es nulo mientras no se asigna.
+ * Se usa para reconstruir el registro de trayectos activos desde la base de datos.
+ */
+public record ActiveTripEntry(Long tripId, Long passengerId, Long driverId) {
+}
@@ -3,18 +3,19 @@ package es.iesmm.proyecto.drivehub.backend.model.user;
 import com.fasterxml.jackson.annotation.*;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
 import es.iesmm.proyecto.drivehub.backend.model.user.admin.AdminModelData;
-import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
-import es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.DriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.chauffeur.ChauffeurDriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.fleet.FleetDriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.DriverLicense;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.UserAuthorities;
 import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
-import es.iesmm.proyecto.drivehub.backend.util.converter.RoleListConverter;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserCacheListener;
+import es.iesmm.proyecto.drivehub.backend.util.converter.RoleBitmaskConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
@@ -24,7 +25,6 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Table(
 		name = "USUARIOS",
@@ -34,6 +34,7 @@ import java.util.stream.Collectors;
 		}
 )
 @Entity
+@EntityListeners(AuthenticatedUserCacheListener.class)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -55,11 +56,14 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 	@NotEmpty
 	private String lastName;
 
-	@Convert(converter = RoleListConverter.class)
-	@Column(name = "roles", nullable = false, length = 1500)
-	private List<UserRoles> roles;
+	// Máscara de bits con un bit por rol, la columna de texto anterior se migra con LegacyPermissionMigration
+	@Convert(converter = RoleBitmaskConverter.class)
+	@Column(name = "roles_mask", nullable = false)
+	@ColumnDefault("0")
+	private Set<UserRoles> roles;
 
-	@OneToMany(mappedBy = "user", fetch = FetchType.EAGER, orphanRemoval = true)
+	// Los alquileres se consultan con RentRepository, no se cargan con el usuario
+	@OneToMany(mappedBy = "user", fetch = FetchType.LAZY, orphanRemoval = true)
 	@JsonIgnore
 	private List<UserRent> userRent;
 
@@ -68,7 +72,8 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 	 */
 	private Date birthDate;
 
-	@Column(name = "saldo")
+	// El saldo solo se modifica con las consultas atómicas de UserRepository, nunca al guardar la entidad
+	@Column(name = "saldo", updatable = false)
 	@ColumnDefault("0")
 	private double balance;
 	private String phone;
@@ -80,6 +85,11 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 	/*
 	 * RELACIONES CON LA INFORMACIÓN DE LOS USUARIOS EN CASO DE TENERLA
 	 */
+	/*
+	 * Los datos de administrador y conductor se siguen cargando con el usuario, son una sola fila cada uno y el de
+	 * conductor es polimórfico (con un proxy no funcionarían los instanceof de ChauffeurDriverModelData y
+	 * FleetDriverModelData).
+	 */
 	@JsonInclude(JsonInclude.Include.NON_NULL)
 	@OneToOne(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
 	@JoinColumn(name = "admin_data_id", referencedColumnName = "id")
@@ -90,13 +100,17 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 	@JoinColumn(name = "driver_data_id", referencedColumnName = "id")
 	private DriverModelData driverData;
 
-	@OneToMany(mappedBy = "user", fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
+	// Solo se cargan junto al usuario en los endpoints que las devuelven (UserRepository#findProfileById)
+	@OneToMany(mappedBy = "user", fetch = FetchType.LAZY, cascade = CascadeType.ALL, orphanRemoval = true)
 	@JsonIgnoreProperties("user")
 	private Set<DriverLicense> driverLicenses = new HashSet<>();
 
-	@OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-	@JoinColumn(name = "user_id")
-	private List<BalanceChange> balanceHistory = new LinkedList<>();
+	// Permisos compilados de la versión actual del usuario, se recalculan al cargar o guardar el usuario
+	@Transient
+	@JsonIgnore
+	@Setter(AccessLevel.NONE)
+	@Getter(AccessLevel.NONE)
+	private UserAuthorities compiledAuthorities;
 	
 	public UserModel(String email, String password, String firstName, String lastName) {
 		this.email = email;
@@ -104,11 +118,24 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 		this.firstName = firstName;
 		this.lastName = lastName;
 		this.phone = "";
-		this.roles = List.of(UserRoles.USER);
+		this.roles = EnumSet.of(UserRoles.USER);
 	}
 
 	public UserModel() {}
 
+	public void setRoles(Collection<UserRoles> roles) {
+		this.roles = EnumSet.noneOf(UserRoles.class);
+		if (roles != null) {
+			this.roles.addAll(roles);
+		}
+		this.compiledAuthorities = null;
+	}
+
+	public void setAdminData(AdminModelData adminData) {
+		this.adminData = adminData;
+		this.compiledAuthorities = null;
+	}
+
 	public void setEmail(String email) {
 		this.email = email.toLowerCase(); // Se guarda el email en minúsculas para evitar problemas de mayúsculas y minúsculas
 	}
@@ -125,28 +152,6 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 		return balance >= amount;
 	}
 
-	public void deposit(double amount) {
-		balance += amount;
-
-		balanceHistory.add(BalanceChange.builder()
-				.user(this)
-				.amount(amount)
-				.type(BalanceChangeType.DEPOSIT)
-				.registerDate(new Date())
-				.build());
-	}
-
-	public void withdraw(double amount) {
-		balance -= amount;
-
-		balanceHistory.add(BalanceChange.builder()
-				.user(this)
-				.amount(amount)
-				.type(BalanceChangeType.WITHDRAW)
-				.registerDate(new Date())
-				.build());
-	}
-
 	/*
 	 * Metodo de control de los roles de los usuarios y sus datos asociados.
 	 */
@@ -176,6 +181,31 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 		} else {
 			driverData = null;
 		}
+
+		// Los roles pueden haber cambiado, se vuelven a compilar los permisos la próxima vez que se pidan. No se
+		// compilan aquí porque al cargar el usuario las flotas del administrador pueden no estar cargadas todavía
+		compiledAuthorities = null;
+	}
+
+	/*
+	 * Compila los permisos del usuario una sola vez por versión (la primera vez que se piden después de cargarlo o
+	 * guardarlo desde checkRoles), los cambios en los permisos de administrador se aplican al guardar el usuario.
+	 */
+	public void compileAuthorities() {
+		compiledAuthorities = UserAuthorities.of(
+				roles,
+				adminData != null ? adminData.getGeneralPermissions() : null,
+				adminData != null ? adminData.getFleetPermissions() : null
+		);
+	}
+
+	@JsonIgnore
+	public UserAuthorities getUserAuthorities() {
+		if (compiledAuthorities == null) {
+			compileAuthorities();
+		}
+
+		return compiledAuthorities;
 	}
 
 	/*
@@ -184,20 +214,15 @@ public class UserModel extends AbstractPersistable<Long> implements UserDetails
 	 * @see org.springframework.security.core.userdetails.UserDetails
 	 * @see org.springframework.security.core.GrantedAuthority
 	 * @see es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles
-	 * @see es.iesmm.proyecto.drivehub.backend.util.converter.RoleListConverter
+	 * @see es.iesmm.proyecto.drivehub.backend.util.converter.RoleBitmaskConverter
 	 *
 	 * IMPORTANTE: Estos métodos deben tener la anotación @JsonIgnore para que no se serialicen en las respuestas JSON hacia el cliente.
 	 */
 	@Override
 	@JsonIgnore
 	public Collection<? extends GrantedAuthority> getAuthorities() {
-		Collection<GrantedAuthority> grantedAuthorities = roles.stream().map(UserRoles::getGrantedAuthority).collect(Collectors.toList());
-
-		// Si el usuario es administrador, añadimos los permisos de administrador a sus permisos para poder controlarlos
-		if (adminData != null) {
-			grantedAuthorities.addAll(adminData.getAuthorities());
-		}
-		return grantedAuthorities;
+		// Si el usuario es administrador, los permisos de administrador y de flotas ya vienen incluidos
+		return getUserAuthorities().getGrantedAuthorities();
 	}
 
 	@Override
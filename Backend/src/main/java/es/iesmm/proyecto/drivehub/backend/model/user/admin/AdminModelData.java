@@ -4,36 +4,31 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import es.iesmm.proyecto.drivehub.backend.model.fleet.Fleet;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
-import es.iesmm.proyecto.drivehub.backend.util.converter.AdminPermissionListConverter;
-import es.iesmm.proyecto.drivehub.backend.util.converter.LongListConverter;
-import es.iesmm.proyecto.drivehub.backend.util.converter.RoleListConverter;
-import es.iesmm.proyecto.drivehub.backend.util.converter.StringListConverter;
-import jakarta.annotation.PostConstruct;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserCacheListener;
+import es.iesmm.proyecto.drivehub.backend.util.converter.AdminPermissionBitmaskConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.ColumnDefault;
-import org.springframework.security.core.GrantedAuthority;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.stream.Stream;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 
 @Table(name = "ADMINISTRADOR")
 @Entity
+@EntityListeners(AuthenticatedUserCacheListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class AdminModelData {
 
-    private final static String FLEET_PREFIX = "FLEET_";
-
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -44,15 +39,22 @@ public class AdminModelData {
     @JsonIgnore
     private UserModel userModel;
 
-    @Column(name = "flotas_con_acceso")
-    @Convert(converter = LongListConverter.class)
-    @ColumnDefault("''")
-    private List<Long> fleetPermissions = new LinkedList<>();
-
-    @Column(name = "general_permissions", length = 1500)
-    @Convert(converter = AdminPermissionListConverter.class)
-    @ColumnDefault("''")
-    private List<AdminPermission> generalPermissions = new LinkedList<>();
+    // Una fila por flota, el índice de fleet_id permite buscar los administradores de una flota
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(
+            name = "ADMINISTRADOR_FLOTA",
+            joinColumns = @JoinColumn(name = "admin_id"),
+            indexes = @Index(name = "IDX_ADMIN_FLOTA_FLEET", columnList = "fleet_id")
+    )
+    @Column(name = "fleet_id", nullable = false)
+    @BatchSize(size = 50)
+    private Set<Long> fleetPermissions = new HashSet<>();
+
+    // Máscara de bits con un bit por permiso
+    @Column(name = "general_permissions_mask", nullable = false)
+    @Convert(converter = AdminPermissionBitmaskConverter.class)
+    @ColumnDefault("0")
+    private Set<AdminPermission> generalPermissions = EnumSet.noneOf(AdminPermission.class);
 
     @NotEmpty
     @Column(name = "horario")
@@ -66,11 +68,18 @@ public class AdminModelData {
         }
 
         if (this.fleetPermissions == null) {
-            this.fleetPermissions = new LinkedList<>();
+            this.fleetPermissions = new HashSet<>();
         }
 
         if (this.generalPermissions == null) {
-            this.generalPermissions = new LinkedList<>();
+            this.generalPermissions = EnumSet.noneOf(AdminPermission.class);
+        }
+    }
+
+    public void setGeneralPermissions(Collection<AdminPermission> permissions) {
+        this.generalPermissions = EnumSet.noneOf(AdminPermission.class);
+        if (permissions != null) {
+            this.generalPermissions.addAll(permissions);
         }
     }
 
@@ -98,19 +107,7 @@ public class AdminModelData {
         this.generalPermissions.remove(permission);
     }
 
-    @JsonIgnore
-    public List<GrantedAuthority> getAuthorities() {
-        return Stream.concat(
-                this.generalPermissions.stream().map(AdminPermission::getGrantedAuthority),
-                this.fleetPermissions.stream().map(String::valueOf).map(this::getGrantedAuthorityForFleetAccess)
-        ).toList();
-    }
-
-    private GrantedAuthority getGrantedAuthorityForFleetAccess(String fleetId) {
-        return () -> FLEET_PREFIX + fleetId;
-    }
-
     public void giveAllPermissions() {
-        this.generalPermissions = Arrays.asList(AdminPermission.values());
+        this.generalPermissions = EnumSet.allOf(AdminPermission.class);
     }
 }
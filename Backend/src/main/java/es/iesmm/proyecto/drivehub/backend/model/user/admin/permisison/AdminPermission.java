@@ -4,6 +4,7 @@ import org.springframework.security.core.GrantedAuthority;
 
 public enum AdminPermission {
 
+    // Se guardan como máscara de bits por su ordinal (AdminPermissionBitmaskConverter), los permisos nuevos se añaden al final
     SUPER_ADMIN,
     GET_ALL_USERS,
     SEE_USER_DETAILS,
@@ -4,16 +4,16 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType;
-import jakarta.persistence.Entity;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.util.Date;
 
-@Table(name = "HISTORIAL_SALDO")
+@Table(
+        name = "HISTORIAL_SALDO",
+        indexes = @Index(name = "IDX_HISTORIAL_SALDO_USER_DATE", columnList = "user_id, registerDate")
+)
 @Entity
 @Getter
 @Setter
@@ -22,8 +22,9 @@ import java.util.Date;
 @Builder
 public class BalanceChange extends AbstractPersistable<Long> {
 
-    @ManyToOne
-    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    // El movimiento es el dueño de la relación, se inserta directamente sin pasar por el usuario
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false, updatable = false)
     @JsonIgnore
     private UserModel user;
 
@@ -0,0 +1,61 @@
+package es.iesmm.proyecto.drivehub.backend.model.user.balance.checkpoint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+import java.util.Date;
+
+/*
+ * Punto de control del historial de saldo de un usuario, guarda el saldo acumulado de todos los movimientos anteriores
+ * a una fecha para no tener que recorrer todo el historial al calcular el saldo en una fecha o al conciliar el saldo de
+ * los usuarios.
+ *
+ * El corte es por fecha y no por ID: los IDs se reservan por bloques en cada réplica (pooled-lo), así que un movimiento
+ * con un ID menor puede confirmarse después de otro con un ID mayor. La fecha de corte siempre queda un margen por
+ * detrás del momento en el que se crea el punto de control, cuando ya no puede aparecer ningún movimiento anterior.
+ */
+@Table(
+        name = "HISTORIAL_SALDO_CHECKPOINT",
+        indexes = @Index(name = "IDX_SALDO_CHECKPOINT_USER_DATE", columnList = "user_id, checkpointDate")
+)
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceCheckpoint extends AbstractPersistable<Long> {
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false, updatable = false)
+    @JsonIgnore
+    private UserModel user;
+
+    // ID del usuario sin tener que cargar la relación
+    @Column(name = "user_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Long userId;
+
+    // Fecha de corte, incluye todos los movimientos anteriores (sin incluir los de esta misma fecha)
+    @Column(nullable = false)
+    private Date checkpointDate;
+
+    // Saldo acumulado de todos los movimientos anteriores a la fecha de corte
+    private double balance;
+
+    // Número total de movimientos incluidos desde el primer movimiento del usuario
+    private long entryCount;
+
+    // Mayor ID de los movimientos incluidos, solo informativo: no sirve para saber qué movimientos faltan por recorrer
+    @Column(nullable = false)
+    private Long lastEntryId;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return super.isNew();
+    }
+}
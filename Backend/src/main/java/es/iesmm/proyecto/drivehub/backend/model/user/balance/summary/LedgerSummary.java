@@ -0,0 +1,9 @@
+package es.iesmm.proyecto.drivehub.backend.model.user.balance.summary;
+
+import java.util.Date;
+
+/*
+ * Resumen de los movimientos de saldo de un usuario que no incluye su último punto de control
+ */
+public record LedgerSummary(Long userId, Long entries, Double amount, Long lastEntryId, Date firstEntryDate, Date lastEntryDate) {
+}
@@ -0,0 +1,7 @@
+package es.iesmm.proyecto.drivehub.backend.model.user.balance.summary;
+
+/*
+ * Saldo actual de un usuario, se usa para conciliar sin cargar el usuario completo
+ */
+public record UserBalance(Long userId, double balance) {
+}
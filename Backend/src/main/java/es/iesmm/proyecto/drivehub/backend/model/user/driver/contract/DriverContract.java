@@ -1,20 +1,31 @@
 package es.iesmm.proyecto.drivehub.backend.model.user.driver.contract;
 
 import com.fasterxml.jackson.annotation.*;
+import es.iesmm.proyecto.drivehub.backend.config.HibernateCacheConfig;
 import es.iesmm.proyecto.drivehub.backend.model.fleet.Fleet;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.DriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.jpa.domain.AbstractPersistable;
 
 import java.util.Date;
 
 @Table(
-        name = "CONTRATO"
+        name = "CONTRATO",
+        indexes = {
+                // Índice del contrato actual de un conductor y del cierre de los contratos vencidos
+                @Index(name = "IDX_CONTRATO_DRIVER_CURRENT", columnList = "driver_id, closed, endDate"),
+                @Index(name = "IDX_CONTRATO_OPEN_END", columnList = "closed, endDate")
+        }
 )
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.DRIVER_CONTRACT_REGION)
 @Getter
 @Setter
 @AllArgsConstructor
@@ -26,14 +37,18 @@ public class DriverContract extends AbstractPersistable<Long> {
     private Date endDate;
     private double salary;
 
-    // Next contract (renewal)
-    @OneToOne(fetch = FetchType.EAGER)
+    // Se marca al finalizar el contrato o cuando lo cierra la tarea de contratos vencidos
+    @ColumnDefault("0")
+    private boolean closed;
+
+    // Next contract (renewal), only the id is serialized so there is no need to load the whole chain
+    @OneToOne(fetch = FetchType.LAZY)
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     @JsonIdentityReference(alwaysAsId = true)
     private DriverContract nextContract;
 
     // Previous contract
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     @JsonIdentityReference(alwaysAsId = true)
     private DriverContract previousContract;
@@ -44,7 +59,7 @@ public class DriverContract extends AbstractPersistable<Long> {
     @JsonIgnoreProperties("drivers")
     private Fleet fleet;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id")
     @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
     @JsonIdentityReference(alwaysAsId = true)
@@ -14,7 +14,13 @@ import lombok.Setter;
 import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "CONDUCTORES_FLOTA")
+@Table(
+        name = "CONDUCTORES_FLOTA",
+        indexes = {
+                // Búsqueda de los conductores de una flota (Oracle no crea índices para las claves ajenas)
+                @Index(name = "IDX_CONDUCTORES_FLOTA_FLEET", columnList = "fleet_id")
+        }
+)
 @DiscriminatorValue("FLOTA")
 @Getter
 @Setter
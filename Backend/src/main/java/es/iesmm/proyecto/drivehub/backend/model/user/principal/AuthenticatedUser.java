@@ -0,0 +1,119 @@
+package es.iesmm.proyecto.drivehub.backend.model.user.principal;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * Usuario autenticado que se guarda en el contexto de seguridad en cada petición.
+ *
+ * Solamente contiene lo necesario para comprobar permisos (ID, email y permisos compilados), así no hace falta cargar
+ * el UserModel completo con todas sus relaciones en cada petición. Es inmutable para poder compartirlo entre peticiones
+ * desde la caché de usuarios autenticados.
+ *
+ * Si un endpoint necesita el usuario completo se debe cargar con UserService#findAuthenticated.
+ */
+@Getter
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final UserAuthorities userAuthorities;
+
+    /*
+     * Constructor usado por la consulta de UserRepository#findAuthenticatedById, los permisos son nulos cuando el
+     * usuario no es administrador. Las flotas están en su propia tabla y se añaden después con withFleetIds.
+     */
+    public AuthenticatedUser(Long id, String email, Set<UserRoles> roles, Set<AdminPermission> permissions) {
+        this(id, email, UserAuthorities.of(roles, permissions, null));
+    }
+
+    private AuthenticatedUser(Long id, String email, UserAuthorities userAuthorities) {
+        this.id = id;
+        this.email = email;
+        this.userAuthorities = userAuthorities;
+    }
+
+    /**
+     * Copia del usuario autenticado con acceso a las flotas indicadas
+     * @param fleetIds IDs de las flotas del administrador
+     * @return Usuario autenticado con las flotas
+     */
+    public AuthenticatedUser withFleetIds(Collection<Long> fleetIds) {
+        return new AuthenticatedUser(id, email, UserAuthorities.of(userAuthorities.getRoles(), userAuthorities.getPermissions(), fleetIds));
+    }
+
+    public boolean hasRole(UserRoles role) {
+        return userAuthorities.hasRole(role);
+    }
+
+    public boolean hasPermission(AdminPermission permission) {
+        return userAuthorities.hasPermission(permission);
+    }
+
+    public boolean hasFleetAccess(Long fleetId) {
+        return userAuthorities.hasFleetAccess(fleetId);
+    }
+
+    /*
+     * Métodos necesarios de la clase UserDetails.
+     *
+     * @see org.springframework.security.core.userdetails.UserDetails
+     */
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userAuthorities.getGrantedAuthorities();
+    }
+
+    @Override
+    public String getPassword() {
+        // La contraseña nunca se guarda en el usuario autenticado, la autenticación se hace con el token
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthenticatedUser other && Objects.equals(id, other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser{id=" + id + ", email=" + email + "}";
+    }
+}
@@ -0,0 +1,93 @@
+package es.iesmm.proyecto.drivehub.backend.model.user.principal;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.*;
+
+/*
+ * Permisos de un usuario ya compilados, se calculan una sola vez por cada versión del usuario.
+ *
+ * Los roles y permisos se guardan en EnumSet (internamente es un bitset) y las flotas en un array ordenado de long,
+ * así las comprobaciones de PermissionUtils no crean objetos ni recorren listas de strings.
+ */
+public final class UserAuthorities {
+
+    private static final String FLEET_PREFIX = "FLEET_";
+
+    public static final UserAuthorities EMPTY = new UserAuthorities(null, null, null);
+
+    private final EnumSet<UserRoles> roles;
+    private final EnumSet<AdminPermission> permissions;
+    private final long[] fleetIds;
+    private final List<GrantedAuthority> grantedAuthorities;
+
+    private UserAuthorities(Collection<UserRoles> roles, Collection<AdminPermission> permissions, Collection<Long> fleetIds) {
+        this.roles = toEnumSet(UserRoles.class, roles);
+        this.permissions = toEnumSet(AdminPermission.class, permissions);
+        this.fleetIds = fleetIds == null ? new long[0] : fleetIds.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        // Mismo formato que se usaba en UserModel#getAuthorities: ROLE_X, permisos de administrador y FLEET_X
+        List<GrantedAuthority> authorities = new ArrayList<>(this.roles.size() + this.permissions.size() + this.fleetIds.length);
+        this.roles.forEach(role -> authorities.add(role.getGrantedAuthority()));
+        this.permissions.forEach(permission -> authorities.add(permission.getGrantedAuthority()));
+        for (long fleetId : this.fleetIds) {
+            String authority = FLEET_PREFIX + fleetId;
+            authorities.add(() -> authority);
+        }
+        this.grantedAuthorities = Collections.unmodifiableList(authorities);
+    }
+
+    public static UserAuthorities of(Collection<UserRoles> roles, Collection<AdminPermission> permissions, Collection<Long> fleetIds) {
+        return new UserAuthorities(roles, permissions, fleetIds);
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> toEnumSet(Class<E> type, Collection<E> values) {
+        // Los conjuntos que vienen de los conversores de máscaras ya son EnumSet, se copian sin recorrerlos
+        if (values instanceof EnumSet<E> enumSet) {
+            return EnumSet.copyOf(enumSet);
+        }
+
+        EnumSet<E> result = EnumSet.noneOf(type);
+
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(result::add);
+        }
+
+        return result;
+    }
+
+    public boolean hasRole(UserRoles role) {
+        return roles.contains(role);
+    }
+
+    public boolean hasPermission(AdminPermission permission) {
+        return permissions.contains(permission);
+    }
+
+    public boolean hasFleetAccess(Long fleetId) {
+        return fleetId != null && Arrays.binarySearch(fleetIds, fleetId) >= 0;
+    }
+
+    public Set<UserRoles> getRoles() {
+        return Collections.unmodifiableSet(roles);
+    }
+
+    public Set<AdminPermission> getPermissions() {
+        return Collections.unmodifiableSet(permissions);
+    }
+
+    public long[] getFleetIds() {
+        return fleetIds.clone();
+    }
+
+    public List<GrantedAuthority> getGrantedAuthorities() {
+        return grantedAuthorities;
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.security.core.GrantedAuthority;
 
 public enum UserRoles {
 
+    // Se guardan como máscara de bits por su ordinal (RoleBitmaskConverter), los roles nuevos se añaden al final
     USER,
     ADMIN,
     DRIVER_FLEET,
@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.repository;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.checkpoint.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    Optional<BalanceCheckpoint> findFirstByUserIdOrderByCheckpointDateDesc(Long userId);
+
+    Optional<BalanceCheckpoint> findFirstByUserIdAndCheckpointDateLessThanEqualOrderByCheckpointDateDesc(Long userId, Date date);
+
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.user.id IN :userIds " +
+            "AND c.checkpointDate = (SELECT MAX(c2.checkpointDate) FROM BalanceCheckpoint c2 WHERE c2.user.id = c.user.id)")
+    List<BalanceCheckpoint> findLatestByUserIds(Collection<Long> userIds);
+}
@@ -0,0 +1,44 @@
+package es.iesmm.proyecto.drivehub.backend.repository;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.LedgerSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface BalanceRepository extends JpaRepository<BalanceChange, Long> {
+
+    /*
+     * Resumen de los movimientos que no incluye el último punto de control de cada usuario, es decir, los que no son
+     * anteriores a la fecha de corte de ningún punto de control (usa el índice (user_id, checkpointDate)).
+     */
+    String LEDGER_SUMMARY = "SELECT new es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.LedgerSummary(" +
+            "CAST(b.user.id AS Long), COUNT(b), " +
+            "SUM(CASE WHEN b.type = es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType.DEPOSIT THEN b.amount ELSE -b.amount END), " +
+            "CAST(MAX(b.id) AS Long), MIN(b.registerDate), MAX(b.registerDate)) " +
+            "FROM BalanceChange b " +
+            "WHERE NOT EXISTS (SELECT c FROM BalanceCheckpoint c WHERE c.user.id = b.user.id AND c.checkpointDate > b.registerDate) ";
+
+    @Query(value = "SELECT b FROM BalanceChange b WHERE b.user.id = :userId ORDER BY b.registerDate DESC, b.id DESC",
+            countQuery = "SELECT COUNT(b) FROM BalanceChange b WHERE b.user.id = :userId")
+    Page<BalanceChange> findByUserId(Long userId, Pageable pageable);
+
+    // Movimientos desde la fecha de corte de un punto de control (incluida) hasta la fecha indicada
+    @Query("SELECT b FROM BalanceChange b WHERE b.user.id = :userId AND b.registerDate >= :fromDate AND b.registerDate <= :date " +
+            "ORDER BY b.registerDate, b.id")
+    List<BalanceChange> findTail(Long userId, Date fromDate, Date date);
+
+    // Solo los movimientos anteriores a "horizon", se pagina por el ID del usuario y la página siempre es la primera
+    @Query(LEDGER_SUMMARY + "AND b.registerDate < :horizon AND b.user.id > :afterUserId GROUP BY b.user.id ORDER BY b.user.id")
+    List<LedgerSummary> findPendingSummaries(Date horizon, Long afterUserId, Pageable pageable);
+
+    @Query(LEDGER_SUMMARY + "AND b.user.id IN :userIds GROUP BY b.user.id")
+    List<LedgerSummary> findPendingSummariesByUserIds(Collection<Long> userIds);
+}
@@ -3,22 +3,58 @@ package es.iesmm.proyecto.drivehub.backend.repository;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.DriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ContractRepository extends JpaRepository<DriverContract, Long> {
 
+    // La flota se devuelve con cada contrato, se carga con un join en vez de una consulta por flota
+    // Se guarda en la caché de consultas, el conductor consulta sus contratos a menudo
+    @EntityGraph(attributePaths = "fleet")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT c FROM DriverContract c WHERE c.driver.id = :id")
     List<DriverContract> findByDriver(Long id);
 
+    // Contrato actual del conductor (el abierto que termina más tarde), una sola fila por el índice del conductor
+    // No se guarda en la caché de consultas, la fecha actual cambia en cada llamada
+    @EntityGraph(attributePaths = "fleet")
+    Optional<DriverContract> findFirstByDriverIdAndClosedFalseAndEndDateAfterOrderByEndDateDesc(Long driverId, Date now);
+
+    // Contratos abiertos que ya han vencido, por lotes de ID
+    @Query("SELECT c.id FROM DriverContract c WHERE c.closed = false AND c.endDate <= :now AND c.id > :afterId ORDER BY c.id")
+    List<Long> findExpiredOpenIds(Date now, Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE DriverContract c SET c.closed = true WHERE c.id IN :ids AND c.closed = false")
+    int closeByIds(Collection<Long> ids);
+
+    @Query("SELECT DISTINCT c.driver.id FROM DriverContract c WHERE c.id IN :ids")
+    List<Long> findDriverIdsByIds(Collection<Long> ids);
+
+    // Conductores que siguen teniendo un contrato en vigor, usa el índice del contrato actual del conductor
+    @Query("SELECT DISTINCT c.driver.id FROM DriverContract c WHERE c.driver.id IN :driverIds AND c.closed = false AND c.endDate > :now")
+    Set<Long> findDriverIdsWithCurrentContract(Collection<Long> driverIds, Date now);
+
     @Query("SELECT c FROM DriverContract c WHERE c.fleet IS null")
     List<DriverContract> findAllGeneral();
 
+    @EntityGraph(attributePaths = "fleet")
     @Query("SELECT c FROM DriverContract c WHERE c.fleet.id = :fleetId")
     List<DriverContract> findAllByFleet(Long fleetId);
 
@@ -1,9 +1,14 @@
 package es.iesmm.proyecto.drivehub.backend.repository;
 
 import es.iesmm.proyecto.drivehub.backend.model.fleet.Fleet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -12,4 +17,11 @@ public interface FleetRepository extends JpaRepository<Fleet, Long> {
 
     @Query("SELECT f FROM Fleet f WHERE f.CIF = ?1")
     Optional<Fleet> findByCIF(String cif);
+
+    // Los permisos de flota no tienen clave ajena a la flota, se quitan a mano al borrarla
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "ADMINISTRADOR_FLOTA"))
+    @Query(value = "DELETE FROM ADMINISTRADOR_FLOTA WHERE fleet_id = :fleetId", nativeQuery = true)
+    int deleteAdminPermissions(Long fleetId);
 }
@@ -3,18 +3,37 @@ package es.iesmm.proyecto.drivehub.backend.repository;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.RentRepositoryCustom;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface RentRepository extends JpaRepository<UserRent, Long> {
+public interface RentRepository extends JpaRepository<UserRent, Long>, RentRepositoryCustom {
 
     @Query("SELECT r FROM UserRent r WHERE r.user = :user")
     List<UserRent> findByUser(UserModel user);
 
     @Query("SELECT r FROM UserRent r WHERE r.vehicle = :vehicle")
     List<UserRent> findByVehicle(RentCar vehicle);
+
+    // Historial de alquileres de un usuario junto con sus vehículos
+    @EntityGraph(attributePaths = {"user", "vehicle"})
+    @Query("SELECT r FROM UserRent r WHERE r.user.id = :userId")
+    List<UserRent> findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = {"user", "vehicle"})
+    @Query("SELECT r FROM UserRent r WHERE r.user.id = :userId AND r.active = true")
+    Optional<UserRent> findActiveByUserId(Long userId);
+
+    @Query("SELECT COUNT(r) > 0 FROM UserRent r WHERE r.user.id = :userId AND r.active = true")
+    boolean existsActiveByUserId(Long userId);
+
+    @Override
+    @EntityGraph(attributePaths = {"user", "vehicle"})
+    List<UserRent> findAll();
 }
@@ -0,0 +1,41 @@
+package es.iesmm.proyecto.drivehub.backend.repository;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleReservationResponse;
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.ReservationInterval;
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.VehicleReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservationRepository extends JpaRepository<VehicleReservation, Long> {
+
+    String RESERVATION_INTERVAL = "SELECT new es.iesmm.proyecto.drivehub.backend.model.rent.reservation.ReservationInterval(" +
+            "CAST(r.id AS Long), CAST(r.vehicle.id AS Long), CAST(r.user.id AS Long), r.startTime, r.endTime) FROM VehicleReservation r ";
+
+    // Solo las reservas que no han terminado, las pasadas ya no pueden chocar con ninguna reserva nueva
+    @Query(RESERVATION_INTERVAL + "WHERE r.cancelled = false AND r.endTime > :now")
+    List<ReservationInterval> findPendingIntervals(Date now);
+
+    @Query(RESERVATION_INTERVAL + "WHERE r.id = :reservationId AND r.cancelled = false")
+    Optional<ReservationInterval> findIntervalById(Long reservationId);
+
+    // Comprobación definitiva del solape, se hace con el vehículo bloqueado
+    @Query("SELECT COUNT(r) > 0 FROM VehicleReservation r WHERE r.vehicle.id = :vehicleId AND r.cancelled = false " +
+            "AND r.startTime < :to AND r.endTime > :from")
+    boolean existsOverlap(Long vehicleId, Date from, Date to);
+
+    // Igual que existsOverlap sin contar las reservas del usuario, para alquilar un vehículo que él mismo ha reservado
+    @Query("SELECT COUNT(r) > 0 FROM VehicleReservation r WHERE r.vehicle.id = :vehicleId AND r.user.id <> :userId " +
+            "AND r.cancelled = false AND r.startTime < :to AND r.endTime > :from")
+    boolean existsOverlapByOtherUser(Long vehicleId, Long userId, Date from, Date to);
+
+    @Query("SELECT new es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleReservationResponse(" +
+            "CAST(r.id AS Long), CAST(r.vehicle.id AS Long), r.startTime, r.endTime) FROM VehicleReservation r " +
+            "WHERE r.user.id = :userId AND r.cancelled = false AND r.endTime > :now ORDER BY r.startTime")
+    List<VehicleReservationResponse> findPendingByUserId(Long userId, Date now);
+}
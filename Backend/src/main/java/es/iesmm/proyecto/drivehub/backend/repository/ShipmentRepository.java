@@ -1,16 +1,81 @@
 package es.iesmm.proyecto.drivehub.backend.repository;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.ShipmentRepositoryCustom;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
+public interface ShipmentRepository extends JpaRepository<Shipment, Long>, ShipmentRepositoryCustom {
     @Query("select s from Shipment s where s.driver.id = ?1")
     List<Shipment> findByDriverId(Long id);
 
+    @Query("select s.id from Shipment s where s.id in ?1")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select s.id from Shipment s where s.id in ?1 and s.driver.id = ?2")
+    Set<Long> findExistingIdsByDriverId(Collection<Long> ids, Long driverId);
+
+    @Query("select s.hidden from Shipment s where s.id = ?1")
+    Optional<Boolean> findHiddenById(Long id);
+
+    // Solo se actualiza la columna del estado, el UPDATE bloquea la fila así que los cambios de un envío van en orden
+    @Transactional
+    @Modifying
+    @Query("update Shipment s set s.actualStatus = ?2 where s.id = ?1")
+    int updateActualStatus(Long id, ShipmentStatusType status);
+
+    // Igual que updateActualStatus pero para varios envíos en un solo UPDATE
+    @Transactional
+    @Modifying
+    @Query("update Shipment s set s.actualStatus = ?2 where s.id in ?1")
+    int updateActualStatusByIds(Collection<Long> ids, ShipmentStatusType status);
+
+    // Igual que updateActualStatusByIds pero solo cambia los envíos del conductor
+    @Transactional
+    @Modifying
+    @Query("update Shipment s set s.actualStatus = ?2 where s.id in ?1 and s.driver.id = ?3")
+    int updateActualStatusByIdsAndDriverId(Collection<Long> ids, ShipmentStatusType status, Long driverId);
+
+    // Envíos pendientes de todos los conductores de una flota en una sola consulta
+    @EntityGraph(attributePaths = "driver")
+    @Query("select s from Shipment s join s.driver u join FleetDriverModelData f on f.id = u.driverData.id " +
+            "where f.fleet.id = ?1 and s.actualStatus not in (" +
+            "es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType.DELIVERED, " +
+            "es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType.RETURNED) " +
+            "order by s.shipmentDate desc, s.id desc")
+    List<Shipment> findPendingByFleetId(Long fleetId);
+
+    /*
+     * Seguimiento de los envíos para los listados, el número de paquetes y la última actualización se calculan en la
+     * consulta para no cargar las colecciones de cada envío.
+     */
+    String SHIPMENT_TRACKING = "select new es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse(" +
+            "cast(s.id as Long), s.sourceAddress, s.destinationAddress, s.shipmentDate, s.deliveryDate, s.hidden, s.actualStatus, " +
+            "(select max(u.updateDate) from ShipmentStatusUpdate u where u.shipment = s), " +
+            "(select count(p) from Parcel p where p.shipment = s), " +
+            "cast(d.id as Long), d.firstName, d.lastName) " +
+            "from Shipment s left join s.driver d";
+
+    @Query(SHIPMENT_TRACKING + " where s.id = ?1")
+    Optional<ShipmentTrackingResponse> findTrackingById(Long id);
+
+    @Query(SHIPMENT_TRACKING + " where d.id = ?1 and s.actualStatus not in (" +
+            "es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType.DELIVERED, " +
+            "es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType.RETURNED) " +
+            "order by s.shipmentDate desc")
+    List<ShipmentTrackingResponse> findPendingTrackingByDriverId(Long driverId);
+
 }
@@ -0,0 +1,18 @@
+package es.iesmm.proyecto.drivehub.backend.repository;
+
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.ShipmentStatusUpdateRepositoryCustom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ShipmentStatusUpdateRepository extends JpaRepository<ShipmentStatusUpdate, Long>, ShipmentStatusUpdateRepositoryCustom {
+
+    @Transactional
+    @Modifying
+    @Query("delete from ShipmentStatusUpdate u where u.shipment.id = ?1")
+    int deleteByShipmentId(Long shipmentId);
+}
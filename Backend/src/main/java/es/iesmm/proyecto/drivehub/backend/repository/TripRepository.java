@@ -1,15 +1,42 @@
 package es.iesmm.proyecto.drivehub.backend.repository;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripDetailResponse;
 import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
+import es.iesmm.proyecto.drivehub.backend.model.trip.active.ActiveTripEntry;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.TripRepositoryCustom;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TripRepository extends JpaRepository<TripModel, Long> {
+public interface TripRepository extends JpaRepository<TripModel, Long>, TripRepositoryCustom {
+
+    /*
+     * Consultas de los endpoints que devuelven trayectos, solo se seleccionan las columnas de la respuesta y nunca se
+     * cargan las entidades de los usuarios. Los IDs se convierten a Long porque el ID de AbstractPersistable es genérico
+     * y Hibernate lo toma como Serializable, sin el CAST no encuentra el constructor del record.
+     */
+    String TRIP_SUMMARY = "SELECT new es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse(" +
+            "CAST(t.id AS Long), t.status, t.date, t.originAddress, t.destinationAddress, t.price, t.distance, t.sendPackage, " +
+            "CAST(d.id AS Long), d.firstName, d.lastName, CAST(p.id AS Long), p.firstName, p.lastName) " +
+            "FROM TripModel t LEFT JOIN t.driver d JOIN t.passenger p";
+
+    String TRIP_DETAIL = "SELECT new es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripDetailResponse(" +
+            "CAST(t.id AS Long), t.status, t.date, t.startTime, t.endTime, t.origin, t.destination, t.originAddress, t.destinationAddress, " +
+            "t.price, t.distance, t.sendPackage, t.vehicleModel, t.vehiclePlate, t.vehicleColor, " +
+            "CAST(d.id AS Long), d.firstName, d.lastName, CAST(p.id AS Long), p.firstName, p.lastName) " +
+            "FROM TripModel t LEFT JOIN t.driver d JOIN t.passenger p ";
+
+    @Query(TRIP_DETAIL + " WHERE (t.status = 'PENDING' OR t.status = 'ACCEPTED') AND t.id = :tripId")
+    Optional<TripDetailResponse> findActiveDetailById(Long tripId);
 
     @Query("SELECT t FROM TripModel t WHERE status = :status")
     List<TripModel> findByStatus(String status);
@@ -22,9 +49,12 @@ public interface TripRepository extends JpaRepository<TripModel, Long> {
     @Query("SELECT t FROM TripModel t WHERE passenger.id = :passenger_id")
     List<TripModel> findByPassenger(Long passenger_id);
 
+    // Historial de trayectos, el conductor y el pasajero se cargan en la misma consulta
+    @EntityGraph(attributePaths = {"driver", "passenger"})
     @Query("SELECT t FROM TripModel t WHERE driver.id = :driverId")
     List<TripModel> findByDriverId(Long driverId);
 
+    @EntityGraph(attributePaths = {"driver", "passenger"})
     @Query("SELECT t FROM TripModel t WHERE passenger.id = :passengerId")
     List<TripModel> findByPassengerId(Long passengerId);
 
@@ -36,4 +66,23 @@ public interface TripRepository extends JpaRepository<TripModel, Long> {
 
     @Query("SELECT t FROM TripModel t WHERE (status = 'PENDING' OR status = 'ACCEPTED')")
     List<TripModel> findActiveTrips();
+
+    // Solo los IDs de los trayectos activos, para reconstruir el registro de trayectos activos al arrancar
+    @Query("SELECT new es.iesmm.proyecto.drivehub.backend.model.trip.active.ActiveTripEntry(CAST(t.id AS Long), CAST(t.passenger.id AS Long), CAST(d.id AS Long)) " +
+            "FROM TripModel t LEFT JOIN t.driver d WHERE (t.status = 'PENDING' OR t.status = 'ACCEPTED')")
+    List<ActiveTripEntry> findActiveTripEntries();
+
+    // Actualiza solo las direcciones, para no pisar otros cambios del trayecto (p.e. el conductor asignado)
+    @Transactional
+    @Modifying
+    @Query("UPDATE TripModel t SET t.originAddress = :originAddress, t.destinationAddress = :destinationAddress WHERE t.id = :tripId")
+    int updateAddresses(Long tripId, String originAddress, String destinationAddress);
+
+    // Cancela el trayecto solo si sigue en alguno de los estados indicados, devuelve 0 si ya ha cambiado (p.e. otra
+    // cancelación que ya ha devuelto el saldo)
+    @Transactional
+    @Modifying
+    @Query("UPDATE TripModel t SET t.status = es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus.CANCELLED " +
+            "WHERE t.id = :tripId AND t.status IN :statuses")
+    int cancelIfStatusIn(Long tripId, Collection<TripStatus> statuses);
 }
@@ -1,19 +1,101 @@
 package es.iesmm.proyecto.drivehub.backend.repository;
 
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.UserBalance;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.UserRepositoryCustom;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserModel, Long> {
+public interface UserRepository extends JpaRepository<UserModel, Long>, UserRepositoryCustom {
 	
 	@Query("SELECT u FROM UserModel u WHERE email = LOWER(:email)")
 	UserModel findByEmail(String email);
 
 	@Query("SELECT u FROM UserModel u WHERE DNI = :dni")
 	UserModel findByDNI(String dni);
+
+	// Perfil completo del usuario con sus licencias en una sola consulta, para los endpoints que devuelven el usuario
+	@EntityGraph(attributePaths = "driverLicenses")
+	@Query("SELECT u FROM UserModel u WHERE u.id = :id")
+	Optional<UserModel> findProfileById(Long id);
+
+	// El listado de usuarios devuelve también las licencias, se cargan con un join en vez de una consulta por usuario
+	@Override
+	@EntityGraph(attributePaths = "driverLicenses")
+	List<UserModel> findAll();
+
+	// Usuarios de una página del listado (ver findIdPage) con sus licencias
+	@EntityGraph(attributePaths = "driverLicenses")
+	@Query("SELECT u FROM UserModel u WHERE u.id IN :ids ORDER BY u.id")
+	List<UserModel> findAllWithLicensesByIdIn(Collection<Long> ids);
+
+	// Conductores de una flota, se busca por el índice de fleet_id de CONDUCTORES_FLOTA
+	@EntityGraph(attributePaths = "driverLicenses")
+	@Query("SELECT u FROM UserModel u JOIN TREAT(u.driverData AS FleetDriverModelData) f WHERE f.fleet.id = :fleetId ORDER BY u.id")
+	List<UserModel> findDriversByFleetId(Long fleetId);
+
+	// Comprueba de una vez qué usuarios son conductores de flota, p.e. los conductores de un bloque de la importación
+	// de envíos (un usuario sin datos de conductor de flota no puede llevar envíos)
+	@Query("SELECT CAST(u.id AS Long) FROM UserModel u WHERE u.id IN :ids " +
+			"AND EXISTS (SELECT f FROM FleetDriverModelData f WHERE f.userModel.id = u.id)")
+	Set<Long> findFleetDriverIds(Collection<Long> ids);
+
+	// Administradores con acceso a una flota, se busca por el índice de fleet_id de ADMINISTRADOR_FLOTA
+	@Query("SELECT u FROM UserModel u JOIN u.adminData a JOIN a.fleetPermissions f WHERE f = :fleetId ORDER BY u.id")
+	List<UserModel> findAdminsByFleetId(Long fleetId);
+
+	// Solo se cargan las columnas necesarias para autenticar, sin ninguna de las relaciones del usuario
+	@Query("SELECT new es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser(CAST(u.id AS Long), u.email, u.roles, a.generalPermissions) " +
+			"FROM UserModel u LEFT JOIN u.adminData a WHERE u.id = :id")
+	Optional<AuthenticatedUser> findAuthenticatedById(Long id);
+
+	@Query("SELECT f FROM UserModel u JOIN u.adminData a JOIN a.fleetPermissions f WHERE u.id = :id")
+	List<Long> findFleetPermissionsById(Long id);
+
+	/*
+	 * Cambios de saldo atómicos, el saldo nunca se guarda desde la entidad (la columna no es actualizable) para que dos
+	 * cobros a la vez no se pisen.
+	 *
+	 * Se indica la tabla afectada, si no Hibernate vacía todas las regiones de la caché de segundo nivel en cada cambio.
+	 */
+	@Transactional
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "USUARIOS"))
+	@Query(value = "UPDATE USUARIOS SET saldo = saldo + :amount WHERE id = :userId", nativeQuery = true)
+	int deposit(Long userId, double amount);
+
+	@Transactional
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "USUARIOS"))
+	@Query(value = "UPDATE USUARIOS SET saldo = saldo - :amount WHERE id = :userId AND saldo >= :amount", nativeQuery = true)
+	int withdraw(Long userId, double amount);
+
+	@Transactional
+	@Modifying
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "USUARIOS"))
+	@Query(value = "UPDATE USUARIOS SET saldo = saldo - :amount WHERE id = :userId", nativeQuery = true)
+	int forceWithdraw(Long userId, double amount);
+
+	@Query("SELECT u.balance FROM UserModel u WHERE u.id = :userId")
+	Optional<Double> findBalanceById(Long userId);
+
+	// Se pagina por el ID del usuario, la página siempre es la primera
+	@Query("SELECT new es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.UserBalance(CAST(u.id AS Long), u.balance) " +
+			"FROM UserModel u WHERE u.id > :afterUserId ORDER BY u.id")
+	List<UserBalance> findBalancesAfter(Long afterUserId, Pageable pageable);
 }
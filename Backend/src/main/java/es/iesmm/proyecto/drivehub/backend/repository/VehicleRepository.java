@@ -1,13 +1,19 @@
 package es.iesmm.proyecto.drivehub.backend.repository;
 
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogEntry;
+import es.iesmm.proyecto.drivehub.backend.repository.custom.VehicleRepositoryCustom;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface VehicleRepository extends JpaRepository<RentCar, Long> {
+public interface VehicleRepository extends JpaRepository<RentCar, Long>, VehicleRepositoryCustom {
 
     @Query("SELECT v FROM RentCar v WHERE v.plate = :plate")
     Optional<RentCar> findByPlate(String plate);
@@ -15,4 +21,43 @@ public interface VehicleRepository extends JpaRepository<RentCar, Long> {
     @Query("SELECT v FROM RentCar v WHERE v.numBastidor = :numBastidor")
     Optional<RentCar> findByNumBastidor(String numBastidor);
 
+    // Vehículos sin alquiler activo, se filtra por la columna rented_by (indexada) sin tocar el historial de alquileres
+    @Query("SELECT v FROM RentCar v WHERE v.rentedBy IS NULL ORDER BY v.id")
+    List<RentCar> findAvailable();
+
+    @Query("SELECT v.id FROM RentCar v WHERE v.rentedBy IS NULL")
+    List<Long> findAvailableIds();
+
+    @Query("SELECT v.id FROM RentCar v")
+    List<Long> findAllIds();
+
+    // Campos del índice del catálogo, sin cargar las entidades
+    @Query("SELECT new es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogEntry(" +
+            "CAST(v.id AS Long), v.brand, v.model, v.color, v.precioHora, v.requiredLicense) FROM RentCar v ORDER BY v.id")
+    List<CatalogEntry> findCatalogEntries();
+
+    // Bloquea la fila del vehículo hasta el final de la transacción, así dos reservas del mismo vehículo van en orden
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM RentCar v WHERE v.id = :vehicleId")
+    Optional<RentCar> findLockedById(Long vehicleId);
+
+    /*
+     * Reserva y liberación atómicas del vehículo, solo se actualiza si nadie lo tiene alquilado (o si lo tiene alquilado
+     * el mismo usuario al devolverlo), así dos alquileres a la vez del mismo vehículo no pueden salir bien los dos.
+     */
+    @Modifying
+    @Query("UPDATE RentCar v SET v.rentedBy = :userId WHERE v.id = :vehicleId AND v.rentedBy IS NULL")
+    int markRented(Long vehicleId, Long userId);
+
+    @Modifying
+    @Query("UPDATE RentCar v SET v.rentedBy = NULL WHERE v.id = :vehicleId AND v.rentedBy = :userId")
+    int markReturned(Long vehicleId, Long userId);
+
+    // Rellena rented_by con los alquileres activos anteriores a la columna
+    @Transactional
+    @Modifying
+    @Query("UPDATE RentCar v SET v.rentedBy = (SELECT MAX(r.user.id) FROM UserRent r WHERE r.vehicle = v AND r.active = true) " +
+            "WHERE v.rentedBy IS NULL AND EXISTS (SELECT r FROM UserRent r WHERE r.vehicle = v AND r.active = true)")
+    int backfillRentedBy();
+
 }
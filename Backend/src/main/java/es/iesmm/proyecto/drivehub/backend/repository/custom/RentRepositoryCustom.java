@@ -0,0 +1,14 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+public interface RentRepositoryCustom {
+
+    // Listado paginado por cursor (inicio del alquiler, ID del usuario), un usuario no puede empezar dos alquileres a la vez
+    List<UserRent> findPage(Long userId, Long vehicleId, Boolean active, Date from, Date to,
+                            Date cursorDate, Long cursorId, Pageable pageable);
+}
@@ -0,0 +1,31 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class RentRepositoryCustomImpl implements RentRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<UserRent> findPage(Long userId, Long vehicleId, Boolean active, Date from, Date to,
+                                   Date cursorDate, Long cursorId, Pageable pageable) {
+        // El usuario y el vehículo se cargan en la misma consulta
+        return KeysetQuery.select("SELECT r FROM UserRent r JOIN FETCH r.user u LEFT JOIN FETCH r.vehicle v")
+                .where("u.id = :userId", "userId", userId)
+                .where("v.id = :vehicleId", "vehicleId", vehicleId)
+                .where("r.active = :active", "active", active)
+                .where("r.startTime >= :from", "from", from)
+                .where("r.startTime < :to", "to", to)
+                .before("r.startTime", "u.id", cursorDate, cursorId)
+                .orderBy("r.startTime DESC, u.id DESC")
+                .list(entityManager, UserRent.class, pageable);
+    }
+}
@@ -0,0 +1,22 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ShipmentRepositoryCustom {
+
+    /*
+     * Listado paginado por cursor (fecha de envío, ID) de más reciente a más antiguo, los filtros nulos no se aplican.
+     * La flota se filtra por los conductores que pertenecen a ella.
+     */
+    List<ShipmentTrackingResponse> findTracking(ShipmentStatusType status, Long driverId, Long fleetId, Date from, Date to,
+                                                Date cursorDate, Long cursorId, Pageable pageable);
+
+    // Exportación, se recorre con un cursor de la base de datos leyendo las filas por bloques (solo dentro de una transacción)
+    Stream<ShipmentTrackingResponse> streamTracking(ShipmentStatusType status, Long fleetId, Date from, Date to);
+}
@@ -0,0 +1,44 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.repository.ShipmentRepository;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class ShipmentRepositoryCustomImpl implements ShipmentRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ShipmentTrackingResponse> findTracking(ShipmentStatusType status, Long driverId, Long fleetId, Date from, Date to,
+                                                       Date cursorDate, Long cursorId, Pageable pageable) {
+        return filter(status, fleetId, from, to)
+                .where("d.id = :driverId", "driverId", driverId)
+                .before("s.shipmentDate", "s.id", cursorDate, cursorId)
+                .orderBy("s.shipmentDate DESC, s.id DESC")
+                .list(entityManager, ShipmentTrackingResponse.class, pageable);
+    }
+
+    @Override
+    public Stream<ShipmentTrackingResponse> streamTracking(ShipmentStatusType status, Long fleetId, Date from, Date to) {
+        return filter(status, fleetId, from, to)
+                .orderBy("s.shipmentDate DESC, s.id DESC")
+                .stream(entityManager, ShipmentTrackingResponse.class, 500);
+    }
+
+    private static KeysetQuery filter(ShipmentStatusType status, Long fleetId, Date from, Date to) {
+        return KeysetQuery.select(ShipmentRepository.SHIPMENT_TRACKING)
+                .where("s.actualStatus = :status", "status", status)
+                .where("EXISTS (SELECT f FROM FleetDriverModelData f WHERE f.userModel.id = d.id AND f.fleet.id = :fleetId)", "fleetId", fleetId)
+                .where("s.shipmentDate >= :from", "from", from)
+                .where("s.shipmentDate < :to", "to", to);
+    }
+}
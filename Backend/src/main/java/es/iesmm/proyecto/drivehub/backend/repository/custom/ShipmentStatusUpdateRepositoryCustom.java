@@ -0,0 +1,16 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+public interface ShipmentStatusUpdateRepositoryCustom {
+
+    /*
+     * Historial de un envío paginado por cursor (fecha, ID) de más reciente a más antiguo, usa el índice
+     * (shipment_id, updateDate) de ESTADO_ENVIO.
+     */
+    List<ShipmentStatusHistoryResponse> findHistory(Long shipmentId, Date cursorDate, Long cursorId, Pageable pageable);
+}
@@ -0,0 +1,26 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ShipmentStatusUpdateRepositoryCustomImpl implements ShipmentStatusUpdateRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<ShipmentStatusHistoryResponse> findHistory(Long shipmentId, Date cursorDate, Long cursorId, Pageable pageable) {
+        return KeysetQuery.select("SELECT new es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse(" +
+                        "CAST(u.id AS Long), u.updateDate, u.status, u.description) FROM ShipmentStatusUpdate u")
+                .where("u.shipment.id = :shipmentId", "shipmentId", shipmentId)
+                .before("u.updateDate", "u.id", cursorDate, cursorId)
+                .orderBy("u.updateDate DESC, u.id DESC")
+                .list(entityManager, ShipmentStatusHistoryResponse.class, pageable);
+    }
+}
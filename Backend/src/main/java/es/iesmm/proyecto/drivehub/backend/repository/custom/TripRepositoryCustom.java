@@ -0,0 +1,22 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface TripRepositoryCustom {
+
+    /*
+     * Listado paginado por cursor (fecha, ID) de más reciente a más antiguo, los filtros nulos no se aplican.
+     * La página siempre es la primera, la posición la marca el cursor.
+     */
+    List<TripSummaryResponse> findSummaries(TripStatus status, Long passengerId, Long driverId, Date from, Date to,
+                                            Date cursorDate, Long cursorId, Pageable pageable);
+
+    // Exportación, se recorre con un cursor de la base de datos leyendo las filas por bloques (solo dentro de una transacción)
+    Stream<TripSummaryResponse> streamSummaries(TripStatus status, Date from, Date to);
+}
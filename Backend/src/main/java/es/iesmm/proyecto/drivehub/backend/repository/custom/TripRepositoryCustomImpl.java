@@ -0,0 +1,44 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+import es.iesmm.proyecto.drivehub.backend.repository.TripRepository;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class TripRepositoryCustomImpl implements TripRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<TripSummaryResponse> findSummaries(TripStatus status, Long passengerId, Long driverId, Date from, Date to,
+                                                   Date cursorDate, Long cursorId, Pageable pageable) {
+        return filter(status, from, to)
+                .where("p.id = :passengerId", "passengerId", passengerId)
+                .where("d.id = :driverId", "driverId", driverId)
+                .before("t.date", "t.id", cursorDate, cursorId)
+                .orderBy("t.date DESC, t.id DESC")
+                .list(entityManager, TripSummaryResponse.class, pageable);
+    }
+
+    @Override
+    public Stream<TripSummaryResponse> streamSummaries(TripStatus status, Date from, Date to) {
+        return filter(status, from, to)
+                .orderBy("t.date DESC, t.id DESC")
+                .stream(entityManager, TripSummaryResponse.class, 500);
+    }
+
+    private static KeysetQuery filter(TripStatus status, Date from, Date to) {
+        return KeysetQuery.select(TripRepository.TRIP_SUMMARY)
+                .where("t.status = :status", "status", status)
+                .where("t.date >= :from", "from", from)
+                .where("t.date < :to", "to", to);
+    }
+}
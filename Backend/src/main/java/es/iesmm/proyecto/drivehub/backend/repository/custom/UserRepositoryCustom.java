@@ -0,0 +1,14 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /*
+     * Listado paginado por ID en dos pasos: primero se buscan los IDs de la página y después los usuarios con sus
+     * licencias, así el límite se aplica en la base de datos y no en memoria por el join de la colección.
+     */
+    List<Long> findIdPage(Long fleetId, Long afterId, Pageable pageable);
+}
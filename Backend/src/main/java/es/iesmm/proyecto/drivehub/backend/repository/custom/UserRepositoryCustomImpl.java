@@ -0,0 +1,23 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<Long> findIdPage(Long fleetId, Long afterId, Pageable pageable) {
+        return KeysetQuery.select("SELECT CAST(u.id AS Long) FROM UserModel u")
+                .after("u.id", afterId)
+                .where("EXISTS (SELECT f FROM FleetDriverModelData f WHERE f.userModel.id = u.id AND f.fleet.id = :fleetId)", "fleetId", fleetId)
+                .orderBy("u.id")
+                .list(entityManager, Long.class, pageable);
+    }
+}
@@ -0,0 +1,12 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface VehicleRepositoryCustom {
+
+    // Listado paginado por ID, con available se filtran los vehículos con o sin alquiler activo
+    List<RentCar> findPage(Boolean available, Long afterId, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package es.iesmm.proyecto.drivehub.backend.repository.custom;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetQuery;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<RentCar> findPage(Boolean available, Long afterId, Pageable pageable) {
+        KeysetQuery query = KeysetQuery.select("SELECT v FROM RentCar v").after("v.id", afterId);
+        if (available != null) {
+            query.where(available ? "v.rentedBy IS NULL" : "v.rentedBy IS NOT NULL");
+        }
+
+        return query.orderBy("v.id").list(entityManager, RentCar.class, pageable);
+    }
+}
@@ -0,0 +1,70 @@
+package es.iesmm.proyecto.drivehub.backend.service.balance;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceReconciliationResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceStatementResponse;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Date;
+import java.util.Optional;
+
+public interface BalanceService {
+
+    /**
+     * Añade saldo al usuario y lo registra en el historial
+     * @param userId ID del usuario
+     * @param amount Cantidad a añadir
+     */
+    void deposit(Long userId, double amount);
+
+    /**
+     * Retira saldo al usuario solo si tiene saldo suficiente, la comprobación y la retirada se hacen en una sola consulta
+     * @param userId ID del usuario
+     * @param amount Cantidad a retirar
+     * @return Si se ha podido retirar el saldo
+     */
+    boolean withdraw(Long userId, double amount);
+
+    /**
+     * Retira saldo al usuario aunque el saldo quede en negativo (por ejemplo, al devolver un vehículo alquilado)
+     * @param userId ID del usuario
+     * @param amount Cantidad a retirar
+     */
+    void forceWithdraw(Long userId, double amount);
+
+    /**
+     * Obtiene el saldo actual del usuario directamente de la base de datos
+     * @param userId ID del usuario
+     * @return Saldo del usuario si existe
+     */
+    Optional<Double> findBalance(Long userId);
+
+    /**
+     * Obtiene el historial de saldo del usuario paginado, los cambios mas recientes primero
+     * @param userId ID del usuario
+     * @param pageable Página a obtener
+     * @return Página del historial
+     */
+    Page<BalanceChange> findHistory(Long userId, Pageable pageable);
+
+    /**
+     * Calcula el saldo del usuario en una fecha partiendo del punto de control mas cercano
+     * @param userId ID del usuario
+     * @param date Fecha del extracto
+     * @return Extracto con el saldo y los movimientos desde el punto de control
+     */
+    BalanceStatementResponse getStatement(Long userId, Date date);
+
+    /**
+     * Crea los puntos de control de los usuarios que tienen suficientes movimientos nuevos o movimientos de meses anteriores
+     * @return Número de puntos de control creados
+     */
+    int createCheckpoints();
+
+    /**
+     * Comprueba que el saldo de todos los usuarios coincide con su historial
+     * @return Resultado de la conciliación
+     */
+    BalanceReconciliationResponse reconcile();
+}
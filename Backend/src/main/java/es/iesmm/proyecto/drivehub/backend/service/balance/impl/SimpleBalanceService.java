@@ -0,0 +1,308 @@
+package es.iesmm.proyecto.drivehub.backend.service.balance.impl;
+
+import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceReconciliationResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.balance.BalanceStatementResponse;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.BalanceChange;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.checkpoint.BalanceCheckpoint;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.LedgerSummary;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.summary.UserBalance;
+import es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType;
+import es.iesmm.proyecto.drivehub.backend.repository.BalanceCheckpointRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.BalanceRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.balance.BalanceService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class SimpleBalanceService implements BalanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleBalanceService.class);
+
+    // Diferencia máxima permitida entre el saldo y el historial por el redondeo de los decimales
+    private static final double RECONCILIATION_TOLERANCE = 0.005;
+    private static final int MAX_REPORTED_MISMATCHES = 1000;
+
+    private final UserRepository userRepository;
+    private final BalanceRepository balanceRepository;
+    private final BalanceCheckpointRepository checkpointRepository;
+
+    private final int checkpointEntries;
+    private final Duration checkpointSettleTime;
+    private final int batchSize;
+    private final int reconciliationThreads;
+
+    public SimpleBalanceService(
+            UserRepository userRepository,
+            BalanceRepository balanceRepository,
+            BalanceCheckpointRepository checkpointRepository,
+            @Value("${balance.checkpoint.entries:100}") int checkpointEntries,
+            @Value("${balance.checkpoint.settle-time:1h}") Duration checkpointSettleTime,
+            @Value("${balance.batch-size:500}") int batchSize,
+            @Value("${balance.reconciliation.threads:4}") int reconciliationThreads
+    ) {
+        this.userRepository = userRepository;
+        this.balanceRepository = balanceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.checkpointEntries = checkpointEntries;
+        this.checkpointSettleTime = checkpointSettleTime;
+        this.batchSize = batchSize;
+        this.reconciliationThreads = reconciliationThreads;
+    }
+
+    @Override
+    @Transactional
+    public void deposit(Long userId, double amount) {
+        Preconditions.checkArgument(amount > 0, "INVALID_AMOUNT");
+        Preconditions.checkArgument(userRepository.deposit(userId, amount) == 1, "USER_NOT_FOUND");
+
+        register(userId, amount, BalanceChangeType.DEPOSIT);
+    }
+
+    @Override
+    @Transactional
+    public boolean withdraw(Long userId, double amount) {
+        Preconditions.checkArgument(amount > 0, "INVALID_AMOUNT");
+
+        // Si no se actualiza ninguna fila es que el usuario no tiene saldo suficiente (o no existe)
+        if (userRepository.withdraw(userId, amount) == 0) {
+            return false;
+        }
+
+        register(userId, amount, BalanceChangeType.WITHDRAW);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void forceWithdraw(Long userId, double amount) {
+        Preconditions.checkArgument(amount >= 0, "INVALID_AMOUNT");
+        Preconditions.checkArgument(userRepository.forceWithdraw(userId, amount) == 1, "USER_NOT_FOUND");
+
+        register(userId, amount, BalanceChangeType.WITHDRAW);
+    }
+
+    @Override
+    public Optional<Double> findBalance(Long userId) {
+        return userRepository.findBalanceById(userId);
+    }
+
+    @Override
+    public Page<BalanceChange> findHistory(Long userId, Pageable pageable) {
+        return balanceRepository.findByUserId(userId, pageable);
+    }
+
+    private void register(Long userId, double amount, BalanceChangeType type) {
+        // Solo se inserta el movimiento, no hace falta cargar el usuario ni su historial
+        balanceRepository.save(BalanceChange.builder()
+                .user(userRepository.getReferenceById(userId))
+                .amount(amount)
+                .type(type)
+                .registerDate(new Date())
+                .build());
+    }
+
+    @Override
+    public BalanceStatementResponse getStatement(Long userId, Date date) {
+        Preconditions.checkArgument(userRepository.existsById(userId), "USER_NOT_FOUND");
+        Preconditions.checkNotNull(date, "Date cannot be null");
+
+        // Se parte del punto de control mas cercano anterior a la fecha y solo se recorren los movimientos posteriores
+        Optional<BalanceCheckpoint> checkpoint = checkpointRepository
+                .findFirstByUserIdAndCheckpointDateLessThanEqualOrderByCheckpointDateDesc(userId, date);
+
+        double balance = checkpoint.map(BalanceCheckpoint::getBalance).orElse(0.0);
+        Date fromDate = checkpoint.map(BalanceCheckpoint::getCheckpointDate).orElse(new Date(0));
+
+        List<BalanceChange> entries = balanceRepository.findTail(userId, fromDate, date);
+        for (BalanceChange entry : entries) {
+            balance += signedAmount(entry);
+        }
+
+        return new BalanceStatementResponse(
+                userId,
+                date,
+                balance,
+                checkpoint.map(BalanceCheckpoint::getCheckpointDate).orElse(null),
+                entries
+        );
+    }
+
+    /*
+     * Cada noche se crean los puntos de control de los usuarios que han tenido movimientos, se crea uno nuevo si hay
+     * suficientes movimientos desde el último o si hay movimientos de un mes anterior al actual.
+     *
+     * Los puntos de control solo incluyen los movimientos anteriores a "ahora - balance.checkpoint.settle-time". Un
+     * movimiento guarda la fecha antes de confirmarse, así que mientras ninguna transacción dure más que ese margen no
+     * puede aparecer después un movimiento anterior al corte que ningún punto de control ni extracto tendría en cuenta.
+     */
+    @Override
+    @Scheduled(cron = "${balance.checkpoint.cron:0 0 3 * * *}")
+    public int createCheckpoints() {
+        Date monthStart = Date.from(LocalDate.now().withDayOfMonth(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date horizon = new Date(System.currentTimeMillis() - checkpointSettleTime.toMillis());
+        Pageable firstPage = PageRequest.of(0, batchSize);
+
+        int created = 0;
+        Long afterUserId = 0L;
+        List<LedgerSummary> summaries;
+
+        // Se recorren los usuarios por lotes para no tener todos los resúmenes en memoria
+        do {
+            summaries = balanceRepository.findPendingSummaries(horizon, afterUserId, firstPage);
+            if (summaries.isEmpty()) {
+                break;
+            }
+            afterUserId = summaries.get(summaries.size() - 1).userId();
+
+            List<LedgerSummary> pending = summaries.stream()
+                    .filter(summary -> summary.entries() >= checkpointEntries || summary.firstEntryDate().before(monthStart))
+                    .toList();
+
+            if (!pending.isEmpty()) {
+                Map<Long, BalanceCheckpoint> latest = findLatestCheckpoints(pending.stream().map(LedgerSummary::userId).toList());
+
+                List<BalanceCheckpoint> checkpoints = pending.stream()
+                        .map(summary -> nextCheckpoint(latest.get(summary.userId()), summary, horizon))
+                        .toList();
+
+                checkpointRepository.saveAll(checkpoints);
+                created += checkpoints.size();
+            }
+        } while (summaries.size() == batchSize);
+
+        if (created > 0) {
+            log.info("Created {} balance checkpoints", created);
+        }
+
+        return created;
+    }
+
+    private BalanceCheckpoint nextCheckpoint(BalanceCheckpoint previous, LedgerSummary summary, Date horizon) {
+        double previousBalance = previous != null ? previous.getBalance() : 0;
+        long previousEntries = previous != null ? previous.getEntryCount() : 0;
+
+        return BalanceCheckpoint.builder()
+                .user(userRepository.getReferenceById(summary.userId()))
+                .checkpointDate(horizon)
+                .balance(previousBalance + summary.amount())
+                .entryCount(previousEntries + summary.entries())
+                .lastEntryId(summary.lastEntryId())
+                .build();
+    }
+
+    private Map<Long, BalanceCheckpoint> findLatestCheckpoints(Collection<Long> userIds) {
+        return checkpointRepository.findLatestByUserIds(userIds).stream()
+                .collect(Collectors.toMap(BalanceCheckpoint::getUserId, Function.identity(), (a, b) -> a));
+    }
+
+    /*
+     * La conciliación recorre los usuarios por lotes de ID, cada lote se comprueba en paralelo con un número limitado
+     * de lotes en memoria a la vez. Solo se guardan los primeros descuadres para devolverlos.
+     */
+    @Override
+    public BalanceReconciliationResponse reconcile() {
+        long start = System.currentTimeMillis();
+
+        AtomicLong checkedUsers = new AtomicLong();
+        AtomicLong mismatchedUsers = new AtomicLong();
+        AtomicLong failedBatches = new AtomicLong();
+        Queue<BalanceReconciliationResponse.Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(reconciliationThreads);
+        Semaphore inFlight = new Semaphore(reconciliationThreads * 2);
+        Pageable firstPage = PageRequest.of(0, batchSize);
+
+        try {
+            Long afterUserId = 0L;
+            List<UserBalance> batch;
+
+            do {
+                batch = userRepository.findBalancesAfter(afterUserId, firstPage);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterUserId = batch.get(batch.size() - 1).userId();
+
+                // Si ya hay demasiados lotes pendientes se espera a que termine alguno
+                inFlight.acquire();
+
+                List<UserBalance> currentBatch = batch;
+                executor.execute(() -> {
+                    try {
+                        reconcileBatch(currentBatch, checkedUsers, mismatchedUsers, mismatches);
+                    } catch (Exception e) {
+                        failedBatches.incrementAndGet();
+                        log.error("Error reconciling balance batch", e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } while (batch.size() == batchSize);
+
+            // Esperar a que terminen todos los lotes
+            inFlight.acquire(reconciliationThreads * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("RECONCILIATION_INTERRUPTED", e);
+        } finally {
+            executor.shutdown();
+        }
+
+        return new BalanceReconciliationResponse(
+                checkedUsers.get(),
+                mismatchedUsers.get(),
+                failedBatches.get(),
+                System.currentTimeMillis() - start,
+                List.copyOf(mismatches)
+        );
+    }
+
+    private void reconcileBatch(List<UserBalance> batch, AtomicLong checkedUsers, AtomicLong mismatchedUsers,
+                                Queue<BalanceReconciliationResponse.Mismatch> mismatches) {
+        List<Long> userIds = batch.stream().map(UserBalance::userId).toList();
+
+        // Saldo del historial = último punto de control + movimientos posteriores
+        Map<Long, BalanceCheckpoint> checkpoints = findLatestCheckpoints(userIds);
+        Map<Long, LedgerSummary> summaries = balanceRepository.findPendingSummariesByUserIds(userIds).stream()
+                .collect(Collectors.toMap(LedgerSummary::userId, Function.identity()));
+
+        for (UserBalance user : batch) {
+            BalanceCheckpoint checkpoint = checkpoints.get(user.userId());
+            LedgerSummary summary = summaries.get(user.userId());
+
+            double ledgerBalance = (checkpoint != null ? checkpoint.getBalance() : 0)
+                    + (summary != null ? summary.amount() : 0);
+
+            if (Math.abs(user.balance() - ledgerBalance) > RECONCILIATION_TOLERANCE) {
+                // Solo se guardan los primeros descuadres para no llenar la memoria
+                if (mismatchedUsers.incrementAndGet() <= MAX_REPORTED_MISMATCHES) {
+                    mismatches.add(new BalanceReconciliationResponse.Mismatch(user.userId(), user.balance(), ledgerBalance));
+                }
+            }
+        }
+
+        checkedUsers.addAndGet(batch.size());
+    }
+
+    private double signedAmount(BalanceChange change) {
+        return change.getType() == BalanceChangeType.DEPOSIT ? change.getAmount() : -change.getAmount();
+    }
+}
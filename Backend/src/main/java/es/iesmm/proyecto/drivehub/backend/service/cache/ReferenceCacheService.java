@@ -0,0 +1,163 @@
+package es.iesmm.proyecto.drivehub.backend.service.cache;
+
+import es.iesmm.proyecto.drivehub.backend.config.HibernateCacheConfig;
+import es.iesmm.proyecto.drivehub.backend.model.fleet.Fleet;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.cache.CacheRegionStatisticsResponse;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Invalidación y estadísticas de la caché de segundo nivel de las entidades de referencia (flotas, vehículos de
+ * alquiler y contratos).
+ *
+ * Los cambios hechos con los repositorios ya actualizan la caché de esta réplica, pero cada réplica tiene su propia
+ * caché, así que los servicios de administración avisan por un canal de Redis y cada réplica elimina la entidad (y los
+ * resultados de consultas) de su caché.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReferenceCacheService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceCacheService.class);
+
+    private static final ChannelTopic EVICTIONS_TOPIC = new ChannelTopic("cache:reference:evictions");
+    private static final String ALL_ENTRIES = "*";
+
+    // Solo se aceptan las entidades cacheadas, el mensaje lleva el nombre simple de la clase
+    private static final Map<String, Class<?>> CACHED_ENTITIES = Map.of(
+            Fleet.class.getSimpleName(), Fleet.class,
+            RentCar.class.getSimpleName(), RentCar.class,
+            DriverContract.class.getSimpleName(), DriverContract.class
+    );
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, EVICTIONS_TOPIC);
+    }
+
+    /**
+     * Elimina una entidad de la caché de todas las réplicas, dentro de una transacción se hace al confirmarla
+     * @param entityClass Clase de la entidad cacheada
+     * @param id ID de la entidad
+     */
+    public void evict(Class<?> entityClass, Long id) {
+        if (id != null) {
+            publish(entityClass, id.toString());
+        }
+    }
+
+    /**
+     * Elimina todas las entidades de un tipo de la caché de todas las réplicas, dentro de una transacción se hace al
+     * confirmarla
+     * @param entityClass Clase de la entidad cacheada
+     */
+    public void evictAll(Class<?> entityClass) {
+        publish(entityClass, ALL_ENTRIES);
+    }
+
+    /**
+     * Estadísticas de aciertos de cada región de la caché de segundo nivel desde que arrancó esta réplica
+     * @return Estadísticas de las regiones de entidades, de consultas y de marcas de tiempo
+     */
+    public List<CacheRegionStatisticsResponse> getStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, CacheRegionStatistics> regions = new LinkedHashMap<>();
+        for (String region : HibernateCacheConfig.ENTITY_REGIONS) {
+            regions.put(region, statistics.getDomainDataRegionStatistics(region));
+        }
+        regions.put(HibernateCacheConfig.QUERY_REGION, statistics.getQueryRegionStatistics(HibernateCacheConfig.QUERY_REGION));
+        regions.put(HibernateCacheConfig.TIMESTAMPS_REGION, statistics.getCacheRegionStatistics(HibernateCacheConfig.TIMESTAMPS_REGION));
+
+        // Las regiones que Hibernate todavía no ha usado no tienen estadísticas
+        List<CacheRegionStatisticsResponse> response = new ArrayList<>();
+        regions.forEach((region, regionStatistics) -> {
+            if (regionStatistics != null) {
+                response.add(CacheRegionStatisticsResponse.of(region, regionStatistics));
+            }
+        });
+
+        return response;
+    }
+
+    private void publish(Class<?> entityClass, String id) {
+        String entityName = entityClass.getSimpleName();
+        if (!CACHED_ENTITIES.containsKey(entityName)) {
+            throw new IllegalArgumentException("Entity is not cached: " + entityName);
+        }
+
+        // Se avisa al confirmar la transacción, si se hiciera antes otra petición podría volver a cachear la entidad sin
+        // el cambio antes de que se guarde
+        TransactionCallbacks.afterCommit(() -> {
+            // Primero se elimina en esta réplica, si Redis no está disponible al menos esta réplica no queda desactualizada
+            evictLocal(entityName, id);
+
+            try {
+                redisTemplate.convertAndSend(EVICTIONS_TOPIC.getTopic(), entityName + ":" + id);
+            } catch (Exception e) {
+                log.warn("Could not publish cache eviction of {} {}", entityName, id, e);
+            }
+        });
+    }
+
+    /*
+     * Aviso de eliminación de otra réplica (o de esta misma), el mensaje tiene el formato "<entidad>:<id o *>".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+
+        try {
+            evictLocal(body.substring(0, separator), body.substring(separator + 1));
+        } catch (Exception e) {
+            log.warn("Could not apply cache eviction {}", body, e);
+        }
+    }
+
+    private void evictLocal(String entityName, String id) {
+        Class<?> entityClass = CACHED_ENTITIES.get(entityName);
+        if (entityClass == null) {
+            return;
+        }
+
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        if (ALL_ENTRIES.equals(id)) {
+            cache.evictEntityData(entityClass);
+        } else {
+            cache.evictEntityData(entityClass, Long.parseLong(id));
+        }
+
+        // Los resultados de consultas pueden incluir la entidad, las marcas de tiempo de las otras réplicas no cambian
+        cache.evictDefaultQueryRegion();
+    }
+}
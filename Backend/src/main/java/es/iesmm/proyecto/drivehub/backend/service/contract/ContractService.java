@@ -1,7 +1,6 @@
 package es.iesmm.proyecto.drivehub.backend.service.contract;
 
 import es.iesmm.proyecto.drivehub.backend.model.http.request.contract.ContractCreationRequest;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
 
 import java.util.List;
@@ -11,9 +10,9 @@ public interface ContractService {
 
     DriverContract createContract(ContractCreationRequest request);
 
-    Optional<DriverContract> getActualContract(UserModel user);
+    Optional<DriverContract> getActualContract(Long driverId);
 
-    List<DriverContract> findByDriver(UserModel user);
+    List<DriverContract> findByDriver(Long driverId);
 
     List<DriverContract> findAll();
 
@@ -0,0 +1,167 @@
+package es.iesmm.proyecto.drivehub.backend.service.contract.expiry;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContract;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import es.iesmm.proyecto.drivehub.backend.repository.ContractRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.cache.ReferenceCacheService;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserEvictions;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+
+/*
+ * Tarea que cierra los contratos vencidos y quita los roles de conductor a quien ya no tiene ningún contrato en vigor.
+ *
+ * - Los contratos vencidos y sin cerrar se buscan por lotes de ID con el índice (closed, endDate). Cada lote se cierra
+ *   y se quitan los roles en su propia transacción, los usuarios se guardan juntos y Hibernate agrupa los UPDATE en
+ *   lotes de JDBC.
+ * - El propio contrato cerrado es la marca de progreso: si la tarea se corta, los lotes confirmados ya no se vuelven a
+ *   leer y la siguiente ejecución sigue por los que quedan. Cerrar un contrato o quitar un rol dos veces no cambia nada.
+ * - Solo una réplica la ejecuta a la vez, la que consigue la concesión en Redis. Si la réplica se cae la concesión
+ *   caduca sola y otra réplica la recoge en la siguiente ejecución.
+ */
+@Component
+public class ContractExpiryJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractExpiryJob.class);
+
+    private static final String LEASE_KEY = "contract:expiry:lease";
+
+    // Contratos que se cierran en cada transacción
+    private static final int CHUNK_SIZE = 200;
+
+    private static final Set<UserRoles> DRIVER_ROLES = EnumSet.of(UserRoles.DRIVER_FLEET, UserRoles.DRIVER_CHAUFFEUR);
+
+    // Solo se borra la concesión si sigue siendo de esta réplica
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class
+    );
+
+    private final ContractRepository contractRepository;
+    private final UserRepository userRepository;
+    private final ReferenceCacheService referenceCacheService;
+    private final AuthenticatedUserEvictions authenticatedUserEvictions;
+    private final StringRedisTemplate redisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration leaseTime;
+
+    public ContractExpiryJob(
+            ContractRepository contractRepository,
+            UserRepository userRepository,
+            ReferenceCacheService referenceCacheService,
+            AuthenticatedUserEvictions authenticatedUserEvictions,
+            StringRedisTemplate redisTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${contract.expiry.lease-time:10m}") Duration leaseTime
+    ) {
+        this.contractRepository = contractRepository;
+        this.userRepository = userRepository;
+        this.referenceCacheService = referenceCacheService;
+        this.authenticatedUserEvictions = authenticatedUserEvictions;
+        this.redisTemplate = redisTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leaseTime = leaseTime;
+    }
+
+    @Scheduled(cron = "${contract.sweep.cron:0 */15 * * * *}")
+    public void run() {
+        String owner = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LEASE_KEY, owner, leaseTime))) {
+            log.debug("Contract expiry job is already running on another replica");
+            return;
+        }
+
+        try {
+            expireContracts(new Date(), owner);
+        } finally {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_KEY), owner);
+        }
+    }
+
+    // Cierra los contratos vencidos antes de "now", la concesión se renueva con cada lote
+    private void expireContracts(Date now, String owner) {
+        int closed = 0;
+        int revoked = 0;
+        long afterId = 0;
+
+        List<Long> ids;
+        do {
+            ids = contractRepository.findExpiredOpenIds(now, afterId, PageRequest.of(0, CHUNK_SIZE));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            List<Long> chunk = ids;
+            ChunkResult result = transactionTemplate.execute(status -> expireChunk(chunk, now));
+            closed += result.closed();
+            revoked += result.revoked();
+            afterId = ids.get(ids.size() - 1);
+
+            // Si la concesión ya no es de esta réplica (p.e. ha caducado) se para, otra réplica seguirá desde aquí
+            if (!renewLease(owner)) {
+                log.warn("Contract expiry lease lost, stopping after {} contracts", closed);
+                break;
+            }
+        } while (ids.size() == CHUNK_SIZE);
+
+        if (closed > 0) {
+            referenceCacheService.evictAll(DriverContract.class);
+            log.info("Closed {} expired contracts and revoked the driver roles of {} users", closed, revoked);
+        }
+    }
+
+    private ChunkResult expireChunk(List<Long> contractIds, Date now) {
+        // Solo cierra los que siguen abiertos, si otra ejecución ya los ha cerrado no cuentan
+        int closed = contractRepository.closeByIds(contractIds);
+
+        // Los conductores que tengan otro contrato en vigor mantienen sus roles
+        List<Long> driverIds = contractRepository.findDriverIdsByIds(contractIds);
+        Set<Long> stillHired = contractRepository.findDriverIdsWithCurrentContract(driverIds, now);
+
+        List<UserModel> toRevoke = new ArrayList<>();
+        for (UserModel user : userRepository.findAllById(driverIds)) {
+            if (stillHired.contains(user.getId()) || user.getRoles().stream().noneMatch(DRIVER_ROLES::contains)) {
+                continue;
+            }
+
+            List<UserRoles> roles = new ArrayList<>(user.getRoles());
+            roles.removeAll(DRIVER_ROLES);
+            user.setRoles(roles);
+            toRevoke.add(user);
+        }
+
+        // Los UPDATE de los usuarios se agrupan en lotes de JDBC al confirmar la transacción
+        userRepository.saveAll(toRevoke);
+
+        List<Long> revokedIds = toRevoke.stream().map(UserModel::getId).toList();
+        TransactionCallbacks.afterCommit(() -> authenticatedUserEvictions.evict(revokedIds));
+
+        return new ChunkResult(closed, revokedIds.size());
+    }
+
+    private boolean renewLease(String owner) {
+        if (!owner.equals(redisTemplate.opsForValue().get(LEASE_KEY))) {
+            return false;
+        }
+
+        return Boolean.TRUE.equals(redisTemplate.expire(LEASE_KEY, leaseTime));
+    }
+
+    private record ChunkResult(int closed, int revoked) {
+    }
+}
@@ -12,7 +12,9 @@ import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
 import es.iesmm.proyecto.drivehub.backend.repository.ContractRepository;
 import es.iesmm.proyecto.drivehub.backend.repository.FleetRepository;
 import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.cache.ReferenceCacheService;
 import es.iesmm.proyecto.drivehub.backend.service.contract.ContractService;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserEvictions;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -25,6 +27,8 @@ public class SimpleContractService implements ContractService {
     private final ContractRepository contractRepository;
     private final FleetRepository fleetRepository;
     private final UserRepository userRepository;
+    private final ReferenceCacheService referenceCacheService;
+    private final AuthenticatedUserEvictions authenticatedUserEvictions;
 
     @Override
     public DriverContract createContract(ContractCreationRequest request) {
@@ -65,16 +69,12 @@ public class SimpleContractService implements ContractService {
             fleetDriverModelData.setFleet(fleet);
         }
 
+        // Se obtiene el contrato actual del usuario antes de guardar el nuevo, así no puede ser el mismo contrato
+        Optional<DriverContract> previousContract = getActualContract(userModel.getId());
+
         DriverContract savedContract = contractRepository.save(contract);
 
-        // Se obtiene el contrato actual del usuario
-        findByDriver(userModel)
-                .stream()
-                .filter(other -> !other.isExpired()) // Comprobar que no ha expirado
-                .filter(other -> !Objects.equals(other.getId(), savedContract.getId()))
-                .max(Comparator.comparing(DriverContract::getEndDate))
-                // Se filtra para que no sea el mismo contrato por su ID
-                .ifPresent(actualContract -> {
+        previousContract.ifPresent(actualContract -> {
                     // Se establece la fecha de fin del contrato anterior
                     actualContract.setEndDate(savedContract.getStartDate());
 
@@ -86,35 +86,29 @@ public class SimpleContractService implements ContractService {
 
                     // Se actualiza el contrato anterior en la base de datos
                     contractRepository.save(actualContract);
+                    referenceCacheService.evict(DriverContract.class, actualContract.getId());
                 });
 
-        // Se guarda el usuario en la base de datos
+        // Se guarda el usuario en la base de datos, con los roles nuevos todas las réplicas lo vuelven a cargar
         userRepository.save(userModel);
+        authenticatedUserEvictions.evictAfterCommit(userModel.getId());
 
-        // Se guarda el contrato en la base de datos
-        return contractRepository.save(savedContract);
+        // Se guarda el contrato en la base de datos, las otras réplicas descartan los contratos del conductor en caché
+        DriverContract finalContract = contractRepository.save(savedContract);
+        referenceCacheService.evict(DriverContract.class, finalContract.getId());
+        return finalContract;
     }
 
     @Override
-    public Optional<DriverContract> getActualContract(UserModel user) {
-        DriverModelData driverData = user.getDriverData();
-        if (driverData == null) {
-            return Optional.empty();
-        }
-        // Obtener el contrato con fecha de finalización mas reciente
-        return findByDriver(user)
-                .stream()
-                .filter(contract -> !contract.isExpired()) // Comprobar que no ha expirado
-                .max(Comparator.comparing(DriverContract::getEndDate));
+    public Optional<DriverContract> getActualContract(Long driverId) {
+        // Obtener el contrato sin cerrar ni expirar con fecha de finalización mas reciente
+        return contractRepository.findFirstByDriverIdAndClosedFalseAndEndDateAfterOrderByEndDateDesc(driverId, new Date());
     }
 
     @Override
-    public List<DriverContract> findByDriver(UserModel user) {
-        DriverModelData driverData = user.getDriverData();
-        if (driverData == null) {
-            return Collections.emptyList();
-        }
-        return contractRepository.findByDriver(user.getId());
+    public List<DriverContract> findByDriver(Long driverId) {
+        // Si el usuario no es conductor no tiene contratos, no hace falta cargar sus datos de conductor
+        return contractRepository.findByDriver(driverId);
     }
 
     @Override
@@ -150,6 +144,7 @@ public class SimpleContractService implements ContractService {
     @Override
     public void deleteById(Long contractId) {
         contractRepository.deleteById(contractId);
+        referenceCacheService.evict(DriverContract.class, contractId);
     }
 
     @Override
@@ -160,18 +155,21 @@ public class SimpleContractService implements ContractService {
         // Check if contract is active
         Preconditions.checkState(!contract.isExpired(), "Contract is already finalized");
 
-        // Actualizar la fecha de finalización del contrato
+        // Actualizar la fecha de finalización del contrato y cerrarlo
         contract.setEndDate(new Date());
+        contract.setClosed(true);
 
         // Guardar el contrato en la base de datos
         contractRepository.save(contract);
+        referenceCacheService.evict(DriverContract.class, contractId);
 
         // Actualizar el usuario y eliminarle el rol de conductor
         UserModel driver = contract.getDriver();
         driver.getRoles().remove(UserRoles.DRIVER_FLEET);
         driver.getRoles().remove(UserRoles.DRIVER_CHAUFFEUR);
 
-        // Guardar el usuario en la base de datos
+        // Guardar el usuario en la base de datos, al confirmar ninguna réplica le deja seguir como conductor
         userRepository.save(driver);
+        authenticatedUserEvictions.evictAfterCommit(driver.getId());
     }
 }
@@ -0,0 +1,35 @@
+package es.iesmm.proyecto.drivehub.backend.service.export;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+public interface ExportService {
+
+    /**
+     * Exporta los trayectos a la salida según se leen de la base de datos, sin cargarlos todos en memoria
+     * @param status Estado de los trayectos, nulo para no filtrar
+     * @param from Fecha mínima (incluida), nula para no filtrar
+     * @param to Fecha máxima (excluida), nula para no filtrar
+     * @param format Formato de la exportación
+     * @param out Salida en la que se escribe, no se cierra
+     * @throws IOException Si hay un error al escribir en la salida
+     */
+    void exportTrips(TripStatus status, Date from, Date to, ExportFormat format, OutputStream out) throws IOException;
+
+    /**
+     * Exporta el seguimiento de los envíos a la salida según se leen de la base de datos, sin cargarlos todos en memoria
+     * @param status Estado de los envíos, nulo para no filtrar
+     * @param fleetId ID de la flota de los conductores, nulo para no filtrar
+     * @param from Fecha de envío mínima (incluida), nula para no filtrar
+     * @param to Fecha de envío máxima (excluida), nula para no filtrar
+     * @param format Formato de la exportación
+     * @param out Salida en la que se escribe, no se cierra
+     * @throws IOException Si hay un error al escribir en la salida
+     */
+    void exportShipments(ShipmentStatusType status, Long fleetId, Date from, Date to, ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,107 @@
+package es.iesmm.proyecto.drivehub.backend.service.export.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.user.UserSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
+import es.iesmm.proyecto.drivehub.backend.repository.ShipmentRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.TripRepository;
+import es.iesmm.proyecto.drivehub.backend.service.export.ExportService;
+import es.iesmm.proyecto.drivehub.backend.util.export.CsvExportWriter;
+import es.iesmm.proyecto.drivehub.backend.util.export.CsvExportWriter.Column;
+import es.iesmm.proyecto.drivehub.backend.util.export.ExportWriter;
+import es.iesmm.proyecto.drivehub.backend.util.export.NdjsonExportWriter;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Service
+@AllArgsConstructor
+public class SimpleExportService implements ExportService {
+
+    private static final List<Column<TripSummaryResponse>> TRIP_COLUMNS = List.of(
+            Column.of("id", TripSummaryResponse::id),
+            Column.of("status", TripSummaryResponse::status),
+            Column.of("date", TripSummaryResponse::date),
+            Column.of("originAddress", TripSummaryResponse::originAddress),
+            Column.of("destinationAddress", TripSummaryResponse::destinationAddress),
+            Column.of("price", TripSummaryResponse::price),
+            Column.of("distance", TripSummaryResponse::distance),
+            Column.of("sendPackage", TripSummaryResponse::sendPackage),
+            Column.of("driverId", trip -> user(trip.driver(), UserSummaryResponse::id)),
+            Column.of("driverFirstName", trip -> user(trip.driver(), UserSummaryResponse::firstName)),
+            Column.of("driverLastName", trip -> user(trip.driver(), UserSummaryResponse::lastName)),
+            Column.of("passengerId", trip -> user(trip.passenger(), UserSummaryResponse::id)),
+            Column.of("passengerFirstName", trip -> user(trip.passenger(), UserSummaryResponse::firstName)),
+            Column.of("passengerLastName", trip -> user(trip.passenger(), UserSummaryResponse::lastName))
+    );
+
+    private static final List<Column<ShipmentTrackingResponse>> SHIPMENT_COLUMNS = List.of(
+            Column.of("id", ShipmentTrackingResponse::id),
+            Column.of("sourceAddress", ShipmentTrackingResponse::sourceAddress),
+            Column.of("destinationAddress", ShipmentTrackingResponse::destinationAddress),
+            Column.of("shipmentDate", ShipmentTrackingResponse::shipmentDate),
+            Column.of("deliveryDate", ShipmentTrackingResponse::deliveryDate),
+            Column.of("actualStatus", ShipmentTrackingResponse::actualStatus),
+            Column.of("lastUpdateDate", ShipmentTrackingResponse::lastUpdateDate),
+            Column.of("parcelCount", ShipmentTrackingResponse::parcelCount),
+            Column.of("driverId", shipment -> user(shipment.driver(), UserSummaryResponse::id)),
+            Column.of("driverFirstName", shipment -> user(shipment.driver(), UserSummaryResponse::firstName)),
+            Column.of("driverLastName", shipment -> user(shipment.driver(), UserSummaryResponse::lastName))
+    );
+
+    private final TripRepository tripRepository;
+    private final ShipmentRepository shipmentRepository;
+    private final ObjectMapper objectMapper;
+
+    /*
+     * Las exportaciones se ejecutan en una transacción de solo lectura para poder recorrer el cursor de la consulta.
+     * Las filas son records (no entidades) así que no se acumulan en el contexto de persistencia.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportTrips(TripStatus status, Date from, Date to, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<TripSummaryResponse> rows = tripRepository.streamSummaries(status, from, to)) {
+            export(rows, TRIP_COLUMNS, format, out);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportShipments(ShipmentStatusType status, Long fleetId, Date from, Date to, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<ShipmentTrackingResponse> rows = shipmentRepository.streamTracking(status, fleetId, from, to)) {
+            export(rows, SHIPMENT_COLUMNS, format, out);
+        }
+    }
+
+    private <T> void export(Stream<T> rows, List<Column<T>> columns, ExportFormat format, OutputStream out) throws IOException {
+        try (ExportWriter<T> writer = createWriter(format, columns, out)) {
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+            }
+        }
+    }
+
+    private <T> ExportWriter<T> createWriter(ExportFormat format, List<Column<T>> columns, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonExportWriter<>(objectMapper, out);
+            case CSV -> new CsvExportWriter<>(out, columns);
+        };
+    }
+
+    private static Object user(UserSummaryResponse user, Function<UserSummaryResponse, Object> field) {
+        return user != null ? field.apply(user) : null;
+    }
+}
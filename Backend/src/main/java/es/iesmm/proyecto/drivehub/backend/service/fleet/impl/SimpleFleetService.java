@@ -11,7 +11,9 @@ import es.iesmm.proyecto.drivehub.backend.model.user.driver.contract.DriverContr
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.fleet.FleetDriverModelData;
 import es.iesmm.proyecto.drivehub.backend.repository.FleetRepository;
 import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.cache.ReferenceCacheService;
 import es.iesmm.proyecto.drivehub.backend.service.fleet.FleetService;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserEvictions;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -25,6 +27,8 @@ public class SimpleFleetService implements FleetService {
 
     private final FleetRepository fleetRepository;
     private final UserRepository userRepository;
+    private final ReferenceCacheService referenceCacheService;
+    private final AuthenticatedUserEvictions authenticatedUserEvictions;
 
     @Override
     public List<Fleet> findAll() {
@@ -63,7 +67,9 @@ public class SimpleFleetService implements FleetService {
         AdminModelData admin = userDetails.getAdminData();
         admin.addFleetPermission(fleet);
 
+        // Los permisos de flota van en una colección del administrador, se avisa a todas las réplicas al confirmar
         userRepository.save(userDetails);
+        authenticatedUserEvictions.evictAfterCommit(userDetails.getId());
         return fleet;
     }
 
@@ -79,7 +85,9 @@ public class SimpleFleetService implements FleetService {
         fleet.setName(request.getName());
         fleet.setVehicleType(request.getVehicleType());
 
-        return fleetRepository.save(fleet);
+        Fleet savedFleet = fleetRepository.save(fleet);
+        referenceCacheService.evict(Fleet.class, fleetId);
+        return savedFleet;
     }
 
     @Override
@@ -87,7 +95,13 @@ public class SimpleFleetService implements FleetService {
         Preconditions.checkNotNull(fleetId, "Fleet ID cannot be null");
         Preconditions.checkArgument(fleetRepository.existsById(fleetId), "Fleet does not exist");
 
+        // El borrado nativo de los permisos no pasa por las entidades, se avisa a mano de los administradores afectados
+        List<Long> adminIds = userRepository.findAdminsByFleetId(fleetId).stream().map(UserModel::getId).toList();
+
+        fleetRepository.deleteAdminPermissions(fleetId);
         fleetRepository.deleteById(fleetId);
+        authenticatedUserEvictions.evictAfterCommit(adminIds);
+        referenceCacheService.evict(Fleet.class, fleetId);
     }
 
     public Optional<Fleet> findByCIF(String CIF) {
@@ -104,16 +118,8 @@ public class SimpleFleetService implements FleetService {
         if (admin.hasGeneralPermission(AdminPermission.SUPER_ADMIN)) {
             fleets = fleetRepository.findAll();
         } else {
-            // Se recorren las flotas a las que tiene acceso el administrador
-            for (Long fleetRole : admin.getFleetPermissions()) {
-                // Se obtiene la flota
-                Fleet fleet = fleetRepository.findById(fleetRole).orElse(null);
-
-                // Si la flota existe (Debería existir si o si, pero controlo el error por si acaso), se añade a la lista
-                if (fleet != null) {
-                    fleets.add(fleet);
-                }
-            }
+            // Se obtienen de una vez las flotas a las que tiene acceso el administrador, las que ya no existan no vienen
+            fleets = fleetRepository.findAllById(admin.getFleetPermissions());
         }
 
         return fleets;
@@ -3,6 +3,8 @@ package es.iesmm.proyecto.drivehub.backend.service.geocode;
 import com.google.maps.model.LatLng;
 import es.iesmm.proyecto.drivehub.backend.util.distance.DistanceUnit;
 
+import java.util.List;
+
 public interface GeoCodeService {
 
     double calculateDistance(String origin, String destination, DistanceUnit unit);
@@ -11,10 +13,44 @@ public interface GeoCodeService {
         return calculateDistance(origin, destination, DistanceUnit.KILOMETERS);
     }
 
+    /*
+     * Calcula la distancia directamente entre dos coordenadas, sin pasar por la geocodificación de las direcciones.
+     */
+    double calculateDistance(LatLng origin, LatLng destination, DistanceUnit unit);
+
+    /*
+     * Calcula la distancia desde un origen a varios destinos, las implementaciones que puedan lo hacen en una sola
+     * consulta. Si no se puede calcular la distancia a un destino su posición será negativa.
+     */
+    default double[] calculateDistances(LatLng origin, List<LatLng> destinations, DistanceUnit unit) {
+        double[] distances = new double[destinations.size()];
+
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = calculateDistance(origin, destinations.get(i), unit);
+        }
+
+        return distances;
+    }
+
+    /*
+     * Calcula la distancia desde varios orígenes a un mismo destino (p.e. de cada conductor a la recogida), no es lo
+     * mismo que calcularla desde el destino porque hay calles de un solo sentido. Si no se puede calcular la distancia
+     * desde un origen su posición será negativa.
+     */
+    default double[] calculateDistancesTo(List<LatLng> origins, LatLng destination, DistanceUnit unit) {
+        double[] distances = new double[origins.size()];
+
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = calculateDistance(origins.get(i), destination, unit);
+        }
+
+        return distances;
+    }
+
     default double calculateDistance(double originLatitude, double originLongitude, double destinationLatitude, double destinationLongitude, DistanceUnit unit) {
         return calculateDistance(
-                getAddressFromCoordinates(originLatitude, originLongitude),
-                getAddressFromCoordinates(destinationLatitude, destinationLongitude),
+                new LatLng(originLatitude, originLongitude),
+                new LatLng(destinationLatitude, destinationLongitude),
                 unit
         );
     }
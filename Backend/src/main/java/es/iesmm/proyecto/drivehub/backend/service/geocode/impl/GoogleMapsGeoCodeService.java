@@ -61,6 +61,32 @@ public class GoogleMapsGeoCodeService implements GeoCodeService {
         return distance;
     }
 
+    @Override
+    public double calculateDistance(LatLng origin, LatLng destination, DistanceUnit unit) {
+        double distance = -1;
+
+        if (origin != null && destination != null) {
+            try {
+                // Se piden las direcciones directamente con las coordenadas, así Google no tiene que geocodificar
+                DirectionsResult result = DirectionsApi.newRequest(apiContext)
+                        .origin(origin)
+                        .destination(destination)
+                        .mode(TravelMode.DRIVING)
+                        .await();
+
+                distance = result.routes[0].legs[0].distance.inMeters; // Obtenemos la distancia en metros
+                distance = unit.fromMeters(distance); // Convertimos a la unidad deseada
+            } catch (ZeroResultsException e) {
+                logger.info("No results found for " + origin + " and " + destination);
+            } catch (Exception e) {
+                logger.severe("Unknown error calculating distance between "
+                        + origin + " and " + destination + ": " + e.getMessage());
+            }
+        }
+
+        return distance;
+    }
+
     @Override
     public String getAddressFromCoordinates(double latitude, double longitude) {
         String result = null;
@@ -0,0 +1,130 @@
+package es.iesmm.proyecto.drivehub.backend.service.geocode.impl;
+
+import com.google.maps.model.LatLng;
+import es.iesmm.proyecto.drivehub.backend.service.geocode.GeoCodeService;
+import es.iesmm.proyecto.drivehub.backend.util.distance.DistanceUnit;
+import es.iesmm.proyecto.drivehub.backend.util.routing.RoadGraph;
+import es.iesmm.proyecto.drivehub.backend.util.routing.RoadGraphRouter;
+import es.iesmm.proyecto.drivehub.backend.util.routing.RouteResult;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+
+/*
+ * Servicio de geocodificación que calcula las distancias entre coordenadas con un grafo de carreteras local, sin
+ * llamar a ninguna API externa. Solo se activa si se configura la propiedad routing.graph.file.
+ *
+ * La conversión entre direcciones y coordenadas no se puede hacer sin conexión, así que se delega en Google Maps,
+ * igual que las distancias entre direcciones de texto (que de otra forma necesitarían dos geocodificaciones).
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "routing.graph.file")
+public class OfflineRoutingGeoCodeService implements GeoCodeService {
+
+    @Value("${routing.graph.file}")
+    private String graphFile;
+
+    // Distancia máxima entre un punto y la carretera más cercana para considerarlo dentro del grafo
+    @Value("${routing.graph.max-snap-distance:500}")
+    private double maxSnapDistance;
+
+    // Búsquedas a la vez como mucho, cada una reserva unos 28 bytes por nodo del grafo
+    @Value("${routing.graph.max-searches:4}")
+    private int maxSearches;
+
+    private final GoogleMapsGeoCodeService delegate;
+    private final Logger logger = Logger.getLogger("OfflineRoutingGeoCodeService");
+
+    private RoadGraphRouter router;
+
+    public OfflineRoutingGeoCodeService(GoogleMapsGeoCodeService delegate) {
+        this.delegate = delegate;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            RoadGraph graph = RoadGraph.open(Path.of(graphFile));
+            router = new RoadGraphRouter(graph, maxSearches);
+
+            logger.info("Loaded road graph " + graphFile + " with " + graph.nodeCount() + " nodes and "
+                    + graph.edgeCount() + " edges");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading road graph " + graphFile, e);
+        }
+    }
+
+    @Override
+    public double calculateDistance(String origin, String destination, DistanceUnit unit) {
+        return delegate.calculateDistance(origin, destination, unit);
+    }
+
+    @Override
+    public double calculateDistance(LatLng origin, LatLng destination, DistanceUnit unit) {
+        if (origin == null || destination == null) {
+            return -1;
+        }
+
+        RouteResult result = router.route(snap(origin), snap(destination));
+
+        return result.isReachable() ? unit.fromMeters(result.distanceMeters()) : -1;
+    }
+
+    @Override
+    public double[] calculateDistances(LatLng origin, List<LatLng> destinations, DistanceUnit unit) {
+        int[] targets = new int[destinations.size()];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = destinations.get(i) != null ? snap(destinations.get(i)) : -1;
+        }
+
+        // Un solo recorrido del grafo para todos los destinos
+        RouteResult[] results = router.routeOneToMany(origin != null ? snap(origin) : -1, targets);
+
+        return toDistances(results, unit);
+    }
+
+    private static double[] toDistances(RouteResult[] results, DistanceUnit unit) {
+        double[] distances = new double[results.length];
+        for (int i = 0; i < results.length; i++) {
+            distances[i] = results[i].isReachable() ? unit.fromMeters(results[i].distanceMeters()) : -1;
+        }
+
+        return distances;
+    }
+
+    @Override
+    public double[] calculateDistancesTo(List<LatLng> origins, LatLng destination, DistanceUnit unit) {
+        int[] sources = new int[origins.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = origins.get(i) != null ? snap(origins.get(i)) : -1;
+        }
+
+        // Un solo recorrido del grafo desde el destino por las aristas invertidas
+        RouteResult[] results = router.routeManyToOne(sources, destination != null ? snap(destination) : -1);
+
+        return toDistances(results, unit);
+    }
+
+    @Override
+    public String getAddressFromCoordinates(double latitude, double longitude) {
+        return delegate.getAddressFromCoordinates(latitude, longitude);
+    }
+
+    @Override
+    public LatLng getCoordinatesFromAddress(String address) {
+        return delegate.getCoordinatesFromAddress(address);
+    }
+
+    private int snap(LatLng coordinates) {
+        return router.getGraph().nearestNode(coordinates.lat, coordinates.lng, maxSnapDistance);
+    }
+}
@@ -1,6 +1,7 @@
 package es.iesmm.proyecto.drivehub.backend.service.jwt;
 
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -23,6 +24,14 @@ public interface JwtService {
      */
     boolean isValid(String token, UserModel userModel);
 
+    /**
+     * Comprueba si los claims de un token ya procesado son válidos para el usuario autenticado
+     * @param claims Claims del token
+     * @param user Usuario autenticado
+     * @return Si el token es válido
+     */
+    boolean isValid(Claims claims, AuthenticatedUser user);
+
     /**
      * Extrae el email del token
      * @param token Token
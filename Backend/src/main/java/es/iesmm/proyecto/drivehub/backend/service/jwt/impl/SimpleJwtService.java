@@ -1,8 +1,15 @@
 package es.iesmm.proyecto.drivehub.backend.service.jwt.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import es.iesmm.proyecto.drivehub.backend.service.jwt.JwtService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -12,6 +19,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
@@ -21,6 +29,38 @@ public class SimpleJwtService implements JwtService {
     @Value("${jwt.secret}")
     private String jwtSecret;
     private SecretKey secretKey;
+    private JwtParser jwtParser;
+
+    private static final long VERIFIED_CLAIMS_TTL = TimeUnit.MINUTES.toNanos(10);
+
+    /*
+     * Claims ya verificados por el hash del token, así la firma solo se comprueba una vez por token. Cada entrada dura
+     * 10 minutos o hasta que caduca el token si es antes, un token caducado nunca se acepta desde la caché.
+     */
+    private final Cache<HashCode, Claims> verifiedClaims = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfter(new Expiry<HashCode, Claims>() {
+                @Override
+                public long expireAfterCreate(HashCode key, Claims claims, long currentTime) {
+                    if (claims.getExpiration() == null) {
+                        return VERIFIED_CLAIMS_TTL;
+                    }
+
+                    long untilExpiration = TimeUnit.MILLISECONDS.toNanos(claims.getExpiration().getTime() - System.currentTimeMillis());
+                    return Math.max(0, Math.min(VERIFIED_CLAIMS_TTL, untilExpiration));
+                }
+
+                @Override
+                public long expireAfterUpdate(HashCode key, Claims claims, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, claims, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(HashCode key, Claims claims, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
 
     // Cambiar a 1h de nuevo
     private final static long TIME_TO_EXPIRE = TimeUnit.HOURS.toMillis(24);
@@ -28,6 +68,11 @@ public class SimpleJwtService implements JwtService {
     @PostConstruct
     private void generateKey() {
         secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+
+        // El parser es inmutable y seguro entre hilos, se crea una sola vez
+        jwtParser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
     }
 
     /**
@@ -51,9 +96,21 @@ public class SimpleJwtService implements JwtService {
      */
     @Override
     public boolean isValid(String token, UserModel userModel) {
-        return !isExpired(token)
-                && extractUserId(token).equals(userModel.getId())
-                && extractEmail(token).equals(userModel.getEmail());
+        Claims claims = extractClaims(token);
+
+        return claims.getExpiration().after(new Date())
+                && userModel.getId().equals(claims.get("userId", Long.class))
+                && userModel.getEmail().equals(claims.get("email", String.class));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid(Claims claims, AuthenticatedUser user) {
+        return claims.getExpiration().after(new Date())
+                && user.getId().equals(claims.get("userId", Long.class))
+                && user.getEmail().equals(claims.get("email", String.class));
     }
 
     /**
@@ -93,11 +150,19 @@ public class SimpleJwtService implements JwtService {
      */
     @Override
     public Claims extractClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        HashCode tokenHash = Hashing.sha256().hashString(token, StandardCharsets.UTF_8);
+        Claims claims = verifiedClaims.getIfPresent(tokenHash);
+
+        // La entrada caduca con el token, pero se vuelve a comprobar por si la caché aún no la ha quitado. Si ha
+        // expirado se vuelve a procesar para que lance la excepción de expiración
+        if (claims == null || (claims.getExpiration() != null && claims.getExpiration().before(new Date()))) {
+            verifiedClaims.invalidate(tokenHash);
+
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+            verifiedClaims.put(tokenHash, claims);
+        }
+
+        return claims;
     }
 
     /**
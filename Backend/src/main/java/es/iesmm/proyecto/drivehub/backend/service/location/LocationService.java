@@ -1,7 +1,6 @@
 package es.iesmm.proyecto.drivehub.backend.service.location;
 
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.UserLocationUpdateRequest;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
@@ -9,14 +8,14 @@ import java.util.Optional;
 
 public interface LocationService {
 
-    default void save(UserModel user, UserLocationUpdateRequest request) {
-        save(user, UserLocation.from(request));
+    default void save(Long userId, UserLocationUpdateRequest request) {
+        save(userId, UserLocation.from(request));
     }
 
-    default void save(UserModel user, double latitude, double longitude) {
-        save(user, UserLocation.from(latitude, longitude));
+    default void save(Long userId, double latitude, double longitude) {
+        save(userId, UserLocation.from(latitude, longitude));
     }
-    void save(UserModel user, UserLocation location);
+    void save(Long userId, UserLocation location);
 
     Optional<UserLocation> findLatestLocation(Long userId);
 
@@ -2,7 +2,6 @@ package es.iesmm.proyecto.drivehub.backend.service.location.impl;
 
 import com.google.common.base.Preconditions;
 import es.iesmm.proyecto.drivehub.backend.model.trip.location.TripLocationEmitterRow;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
 import es.iesmm.proyecto.drivehub.backend.service.location.LocationService;
 import lombok.AllArgsConstructor;
@@ -27,14 +26,14 @@ public class RedisLocationService implements LocationService {
     private final Set<TripLocationEmitterRow> locationEmitters = new HashSet<>();
 
     @Override
-    public void save(UserModel user, UserLocation location) {
-        Preconditions.checkNotNull(user.getId(), "User must have an id");
+    public void save(Long userId, UserLocation location) {
+        Preconditions.checkNotNull(userId, "User must have an id");
 
         // Guardar en redis la localización del usuario por 4 días
-        redisRepository.opsForValue().set(KEY_PREFIX + user.getId(), location, 4, TimeUnit.DAYS);
+        redisRepository.opsForValue().set(KEY_PREFIX + userId, location, 4, TimeUnit.DAYS);
 
         // Actualizar la localización si hace falta en tiempo real y donde sea
-        broadcastLocation(user.getId(), location);
+        broadcastLocation(userId, location);
     }
 
     @Override
@@ -1,10 +1,13 @@
 package es.iesmm.proyecto.drivehub.backend.service.rent;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleReservationResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import io.micrometer.observation.ObservationFilter;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +21,45 @@ public interface RentService {
 
     List<UserRent> findAll();
 
+    /**
+     * Busca los alquileres paginados por cursor, de más reciente a más antiguo
+     * @param userId ID del usuario, nulo para no filtrar
+     * @param vehicleId ID del vehículo, nulo para no filtrar
+     * @param active Si el alquiler está activo o no, nulo para no filtrar
+     * @param from Fecha de inicio mínima (incluida), nula para no filtrar
+     * @param to Fecha de inicio máxima (excluida), nula para no filtrar
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página de alquileres con el cursor de la siguiente
+     */
+    KeysetPageResponse<UserRent> findPage(Long userId, Long vehicleId, Boolean active, Date from, Date to, String cursor, int size);
+
     Optional<UserRent> findActiveRentBy(UserModel userDetails);
+
+    /**
+     * Reserva un vehículo para el intervalo [from, to), falla si se solapa con otra reserva del vehículo
+     * @param vehicleId ID del vehículo
+     * @param userDetails Usuario que hace la reserva
+     * @param from Inicio de la reserva (incluido)
+     * @param to Fin de la reserva (excluido)
+     * @return Reserva creada
+     */
+    VehicleReservationResponse reserveVehicle(Long vehicleId, UserModel userDetails, Date from, Date to);
+
+    /**
+     * Cancela una reserva pendiente del usuario
+     * @param reservationId ID de la reserva
+     * @param userDetails Usuario dueño de la reserva
+     */
+    void cancelReservation(Long reservationId, UserModel userDetails);
+
+    List<VehicleReservationResponse> findPendingReservationsBy(UserModel userDetails);
+
+    /**
+     * Busca los vehículos sin reservas en el intervalo [from, to), se responde desde el índice de reservas en memoria
+     * @param from Inicio del intervalo (incluido)
+     * @param to Fin del intervalo (excluido)
+     * @return Vehículos libres ordenados por ID
+     */
+    List<RentCar> findFreeVehicles(Date from, Date to);
 }
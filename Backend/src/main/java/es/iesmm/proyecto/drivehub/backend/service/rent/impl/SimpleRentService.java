@@ -1,36 +1,51 @@
 package es.iesmm.proyecto.drivehub.backend.service.rent.impl;
 
 import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleReservationResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.UserRent;
 import es.iesmm.proyecto.drivehub.backend.model.rent.history.key.UserRentKey;
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.ReservationInterval;
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.VehicleReservation;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
 import es.iesmm.proyecto.drivehub.backend.repository.RentRepository;
-import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.ReservationRepository;
 import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.service.balance.BalanceService;
 import es.iesmm.proyecto.drivehub.backend.service.rent.RentService;
+import es.iesmm.proyecto.drivehub.backend.service.rent.reservation.ReservationIndex;
 import es.iesmm.proyecto.drivehub.backend.service.vehicle.VehicleService;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetCursor;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetPagination;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.Collection;
-import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @AllArgsConstructor
 public class SimpleRentService implements RentService {
 
+    // Duración máxima de una reserva
+    private static final long MAX_RESERVATION_MILLIS = TimeUnit.DAYS.toMillis(30);
+
     private final VehicleService vehicleService;
     private final RentRepository rentRepository;
-    private final UserRepository userRepository;
+    private final BalanceService balanceService;
+    private final ReservationRepository reservationRepository;
+    private final ReservationIndex reservationIndex;
 
     /*
-     * Tipos de licencia de conducir válidos para alquilar un vehículo
+     * Tipos de licencia de conducir válidos para alquilar un vehículo de licencia B (las licencias C incluyen la B),
+     * para el resto de vehículos hace falta la licencia que piden
      */
     private final List<DriverLicenseType> validLicenseTypes = List.of(
             DriverLicenseType.B,
@@ -41,22 +56,31 @@ public class SimpleRentService implements RentService {
 
     @Override
     public List<UserRent> findRentedVehiclesBy(UserModel userDetails) {
-        return userDetails.getUserRent() != null ? userDetails.getUserRent() : Collections.emptyList();
+        return rentRepository.findByUserId(userDetails.getId());
     }
 
     @Override
+    @Transactional
     public RentCar rentVehicle(Long vehicleId, UserModel user) {
         // Comprobar que el vehículo existe, que el usuario existe y que el usuario no tiene un alquiler activo, si no, lanzar excepción
         Preconditions.checkNotNull(vehicleId, "Vehicle ID cannot be null");
         Preconditions.checkNotNull(user, "User cannot be null");
-        Preconditions.checkState(!user.hasRentActive(), "USER_ALREADY_HAS_RENT");
-        Preconditions.checkState(hasValidDriverLicense(user), "USER_DOES_NOT_HAVE_LICENSE");
+        Preconditions.checkState(!rentRepository.existsActiveByUserId(user.getId()), "USER_ALREADY_HAS_RENT");
+
+        // Comprobación rápida en memoria, sin bloquear el vehículo
+        Preconditions.checkState(!isReservedByOther(vehicleId, user.getId()), "VEHICLE_RESERVED");
+
+        // Con el vehículo bloqueado se vuelve a comprobar en la base de datos, igual que al reservar, así una reserva
+        // a la vez que el alquiler no pueden salir bien las dos
+        RentCar vehicle = vehicleService.findLockedById(vehicleId).orElseThrow(() -> new NullPointerException("VEHICLE_NOT_FOUND"));
+        Preconditions.checkState(hasValidDriverLicense(user, vehicle), "USER_DOES_NOT_HAVE_LICENSE");
 
-        // OBtener el vehículo por ID, si no se encuentra, lanzar excepción
-        RentCar vehicle = vehicleService.findById(vehicleId).orElseThrow(() -> new NullPointerException("VEHICLE_NOT_FOUND"));
+        Date now = new Date();
+        Preconditions.checkState(!reservationRepository.existsOverlapByOtherUser(vehicleId, user.getId(), now, new Date(now.getTime() + 1)), "VEHICLE_RESERVED");
 
-        Preconditions.checkState(vehicle.isAvailable(), "VEHICLE_NOT_AVAILABLE");
+        // La disponibilidad se comprueba solo con el UPDATE condicional, el índice en memoria puede ir por detrás
         Preconditions.checkState(user.canAfford(vehicle.getPrecioHora()), "USER_CANT_AFFORD_RENT");
+        Preconditions.checkState(vehicleService.markRented(vehicle, user.getId()), "VEHICLE_NOT_AVAILABLE");
 
         // Crear el alquiler y asignarle el usuario y el vehículo
         UserRent userRent = UserRent
@@ -70,34 +94,29 @@ public class SimpleRentService implements RentService {
         // Generar la clave compuesta para el alquiler
         userRent.generateKey();
 
-        // Añadir el alquiler al usuario
-        user.getUserRent().add(
-                userRent
-        );
-
-        // Guardar el alquiler
+        // Guardar el alquiler (no se añade a la colección del usuario para no cargar todo su historial)
         rentRepository.save(userRent);
 
         return vehicle;
     }
 
     @Override
+    @Transactional
     public UserRent returnVehicle(Long vehicleId, UserModel user) {
         // Comprobar que el vehículo existe, que el usuario existe y que el usuario tiene un alquiler activo, si no, lanzar excepción
         Preconditions.checkNotNull(vehicleId, "Vehicle ID cannot be null");
         Preconditions.checkNotNull(user, "User cannot be null");
-        Preconditions.checkState(user.hasRentActive(), "USER_DOES_NOT_HAVE_ACTIVE_RENT");
+
+        // Obtiene el alquiler activo del usuario, si no lo tiene, lanza una excepción
+        UserRent userRent = rentRepository.findActiveByUserId(user.getId())
+                .orElseThrow(() -> new IllegalStateException("USER_DOES_NOT_HAVE_ACTIVE_RENT"));
 
         // Obtener el vehículo por ID, si no se encuentra, lanzar excepción
         Optional<RentCar> optionalVehicle = vehicleService.findById(vehicleId);
         RentCar vehicle = optionalVehicle.orElseThrow(() -> new NullPointerException("VEHICLE_NOT_FOUND"));
 
-        Collection<UserRent> userRents = user.getUserRent();
-        // Obtiene el alquiler activo del usuario para el vehículo, si no lo encuentra, lanza una excepción
-        UserRent userRent = userRents.stream()
-                .filter(ur -> ur.getVehicle().equals(vehicle) && ur.isActive())
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("VEHICLE_NOT_RENTED_BY_USER"));
+        // Comprueba que el alquiler activo es del vehículo, si no, lanza una excepción
+        Preconditions.checkArgument(userRent.getVehicle().equals(vehicle), "VEHICLE_NOT_RENTED_BY_USER");
 
         userRent.setActive(false);
         userRent.setEndTime(Timestamp.from(Instant.now()));
@@ -108,12 +127,10 @@ public class SimpleRentService implements RentService {
 
         // Save the rent so the final price is updated
         rentRepository.save(userRent);
+        vehicleService.markReturned(vehicle, user.getId());
 
-        // Remover el saldo del alquiler del usuario
-        user.withdraw(userRent.getFinalPrice());
-
-        // Guardar el usuario para actualizar el saldo (El saldo puede ser negativo, en cuyo caso no se permitirá alquilar vehículos)
-        userRepository.save(user);
+        // Remover el saldo del alquiler del usuario (El saldo puede ser negativo, en cuyo caso no se permitirá alquilar vehículos)
+        balanceService.forceWithdraw(user.getId(), userRent.getFinalPrice());
 
         return userRent;
     }
@@ -123,15 +140,112 @@ public class SimpleRentService implements RentService {
         return rentRepository.findAll();
     }
 
+    @Override
+    public KeysetPageResponse<UserRent> findPage(Long userId, Long vehicleId, Boolean active, Date from, Date to, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        List<UserRent> rows = rentRepository.findPage(userId, vehicleId, active, from, to,
+                position.date(), position.id(), KeysetPagination.limit(size));
+
+        return KeysetPagination.page(rows, size, rent -> KeysetCursor.of(rent.getStartTime(), rent.getUser().getId()));
+    }
+
     @Override
     public Optional<UserRent> findActiveRentBy(UserModel userDetails) {
-        return userDetails.getUserRent().stream()
-                // Filtrar por alquileres activos
-                .filter(UserRent::isActive)
-                .findFirst();
+        return rentRepository.findActiveByUserId(userDetails.getId());
+    }
+
+    @Override
+    @Transactional
+    public VehicleReservationResponse reserveVehicle(Long vehicleId, UserModel user, Date from, Date to) {
+        Preconditions.checkNotNull(vehicleId, "Vehicle ID cannot be null");
+        Preconditions.checkNotNull(user, "User cannot be null");
+        Preconditions.checkArgument(from != null && to != null && from.before(to), "INVALID_RESERVATION_RANGE");
+        Preconditions.checkArgument(to.getTime() > System.currentTimeMillis(), "INVALID_RESERVATION_RANGE");
+        Preconditions.checkArgument(to.getTime() - from.getTime() <= MAX_RESERVATION_MILLIS, "RESERVATION_TOO_LONG");
+
+        // Comprobación rápida en memoria, sin bloquear el vehículo
+        Preconditions.checkState(reservationIndex.findOverlapping(vehicleId, from.getTime(), to.getTime()).isEmpty(), "VEHICLE_RESERVED");
+
+        // Con el vehículo bloqueado se vuelve a comprobar en la base de datos, así dos reservas a la vez no se solapan
+        RentCar vehicle = vehicleService.findLockedById(vehicleId).orElseThrow(() -> new NullPointerException("VEHICLE_NOT_FOUND"));
+        Preconditions.checkState(hasValidDriverLicense(user, vehicle), "USER_DOES_NOT_HAVE_LICENSE");
+        // Si otro usuario lo tiene alquilado ahora solo se puede reservar más adelante, igual que en findFreeVehicles
+        Preconditions.checkState(from.getTime() > System.currentTimeMillis() || vehicle.isAvailable()
+                || vehicle.getRentedBy().equals(user.getId()), "VEHICLE_NOT_AVAILABLE");
+        Preconditions.checkState(!reservationRepository.existsOverlap(vehicleId, from, to), "VEHICLE_RESERVED");
+        Preconditions.checkState(user.canAfford(vehicle.getPrecioHora()), "USER_CANT_AFFORD_RENT");
+
+        VehicleReservation reservation = reservationRepository.save(VehicleReservation.builder()
+                .vehicle(vehicle)
+                .user(user)
+                .startTime(from)
+                .endTime(to)
+                .creationDate(new Date())
+                .build());
+
+        reservationIndex.add(toInterval(reservation));
+        return VehicleReservationResponse.of(reservation);
     }
 
-    private boolean hasValidDriverLicense(UserModel user) {
-        return user.getDriverLicenses().stream().anyMatch(dl -> validLicenseTypes.contains(dl.getType()));
+    @Override
+    @Transactional
+    public void cancelReservation(Long reservationId, UserModel user) {
+        VehicleReservation reservation = reservationRepository.findById(reservationId)
+                .filter(found -> !found.isCancelled())
+                .orElseThrow(() -> new NullPointerException("RESERVATION_NOT_FOUND"));
+
+        Preconditions.checkArgument(reservation.getUser().getId().equals(user.getId()), "RESERVATION_NOT_OWNED_BY_USER");
+        Preconditions.checkState(reservation.getEndTime().after(new Date()), "RESERVATION_ALREADY_ENDED");
+
+        reservation.setCancelled(true);
+        reservationRepository.save(reservation);
+
+        reservationIndex.remove(toInterval(reservation));
+    }
+
+    @Override
+    public List<VehicleReservationResponse> findPendingReservationsBy(UserModel user) {
+        return reservationRepository.findPendingByUserId(user.getId(), new Date());
+    }
+
+    @Override
+    public List<RentCar> findFreeVehicles(Date from, Date to) {
+        Preconditions.checkArgument(from != null && to != null && from.before(to), "INVALID_RESERVATION_RANGE");
+
+        List<Long> freeIds = reservationIndex.findFreeVehicles(from.getTime(), to.getTime());
+
+        // Si el intervalo empieza ya, los vehículos alquilados ahora mismo no están libres (no se sabe cuándo vuelven)
+        if (from.getTime() <= System.currentTimeMillis()) {
+            freeIds = freeIds.stream().filter(vehicleService::isAvailable).toList();
+        }
+
+        return vehicleService.findAllById(freeIds);
+    }
+
+    // Reservas de otros usuarios que ocupan el momento actual
+    private boolean isReservedByOther(Long vehicleId, Long userId) {
+        long now = System.currentTimeMillis();
+
+        return reservationIndex.findOverlapping(vehicleId, now, now + 1).stream()
+                .anyMatch(interval -> !interval.userId().equals(userId));
+    }
+
+    private ReservationInterval toInterval(VehicleReservation reservation) {
+        return new ReservationInterval(
+                reservation.getId(),
+                reservation.getVehicle().getId(),
+                reservation.getUser().getId(),
+                reservation.getStartTime(),
+                reservation.getEndTime()
+        );
+    }
+
+    private boolean hasValidDriverLicense(UserModel user, RentCar vehicle) {
+        DriverLicenseType required = vehicle.getRequiredLicense();
+
+        return user.getDriverLicenses().stream().anyMatch(dl -> required == DriverLicenseType.B
+                ? validLicenseTypes.contains(dl.getType())
+                : dl.getType() == required);
     }
 }
@@ -0,0 +1,245 @@
+package es.iesmm.proyecto.drivehub.backend.service.rent.reservation;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.ReservationInterval;
+import es.iesmm.proyecto.drivehub.backend.repository.ReservationRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Índice en memoria de las reservas pendientes de cada vehículo del catálogo.
+ *
+ * Las reservas de un vehículo nunca se solapan (se rechazan al crearlas), así que basta con un TreeMap ordenado por el
+ * inicio: el único intervalo que puede empezar antes de "from" y solaparse es el anterior (floorEntry) y el resto son
+ * los que empiezan dentro de [from, to). Cada consulta es O(log n) por vehículo y la búsqueda de vehículos libres
+ * recorre el catálogo en memoria sin consultar la base de datos.
+ *
+ * La base de datos es la que manda, las reservas se validan otra vez con el vehículo bloqueado al crearlas. Los cambios
+ * se aplican al confirmar la transacción y se avisa al resto de réplicas por un canal de Redis, cada réplica vuelve a
+ * leer de la base de datos la reserva o el vehículo que ha cambiado.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationIndex.class);
+
+    private static final ChannelTopic CHANGES_TOPIC = new ChannelTopic("rent:reservation:changes");
+    private static final String RESERVATION_PREFIX = "reservation";
+    private static final String VEHICLE_PREFIX = "vehicle";
+
+    private final ReservationRepository reservationRepository;
+    private final VehicleRepository vehicleRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Un calendario por cada vehículo del catálogo, aunque no tenga reservas
+    private final Map<Long, VehicleSchedule> schedules = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, CHANGES_TOPIC);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, VehicleSchedule> loaded = new HashMap<>();
+        vehicleRepository.findAllIds().forEach(id -> loaded.put(id, new VehicleSchedule()));
+
+        List<ReservationInterval> intervals = reservationRepository.findPendingIntervals(new Date());
+        for (ReservationInterval interval : intervals) {
+            VehicleSchedule schedule = loaded.get(interval.vehicleId());
+            if (schedule != null) {
+                schedule.add(interval);
+            }
+        }
+
+        schedules.clear();
+        schedules.putAll(loaded);
+
+        log.info("Reservation index rebuilt with {} vehicles and {} pending reservations", loaded.size(), intervals.size());
+    }
+
+    /**
+     * Busca las reservas de un vehículo que se solapan con el intervalo [from, to)
+     * @param vehicleId ID del vehículo
+     * @param from Inicio del intervalo en milisegundos (incluido)
+     * @param to Fin del intervalo en milisegundos (excluido)
+     * @return Reservas que se solapan, vacío si el vehículo está libre o no existe
+     */
+    public List<ReservationInterval> findOverlapping(Long vehicleId, long from, long to) {
+        VehicleSchedule schedule = schedules.get(vehicleId);
+        return schedule != null ? schedule.overlapping(from, to) : List.of();
+    }
+
+    /**
+     * Busca los vehículos del catálogo sin ninguna reserva en el intervalo [from, to)
+     * @param from Inicio del intervalo en milisegundos (incluido)
+     * @param to Fin del intervalo en milisegundos (excluido)
+     * @return IDs de los vehículos libres ordenados
+     */
+    public List<Long> findFreeVehicles(long from, long to) {
+        List<Long> free = new ArrayList<>();
+        schedules.forEach((vehicleId, schedule) -> {
+            if (schedule.isFree(from, to)) {
+                free.add(vehicleId);
+            }
+        });
+
+        free.sort(Comparator.naturalOrder());
+        return free;
+    }
+
+    /**
+     * Añade la reserva al índice cuando se confirme la transacción actual
+     * @param interval Intervalo de la reserva ya guardada
+     */
+    public void add(ReservationInterval interval) {
+        TransactionCallbacks.afterCommit(() -> {
+            schedules.computeIfAbsent(interval.vehicleId(), id -> new VehicleSchedule()).add(interval);
+            publish(RESERVATION_PREFIX, interval.reservationId(), interval.vehicleId());
+        });
+    }
+
+    /**
+     * Elimina la reserva del índice cuando se confirme la transacción actual
+     * @param interval Intervalo de la reserva cancelada
+     */
+    public void remove(ReservationInterval interval) {
+        TransactionCallbacks.afterCommit(() -> {
+            removeLocal(interval.vehicleId(), interval.reservationId());
+            publish(RESERVATION_PREFIX, interval.reservationId(), interval.vehicleId());
+        });
+    }
+
+    /**
+     * Añade o elimina el vehículo del catálogo del índice según exista o no en la base de datos
+     * @param vehicleId ID del vehículo creado o eliminado
+     */
+    public void refreshVehicle(Long vehicleId) {
+        TransactionCallbacks.afterCommit(() -> {
+            reloadVehicle(vehicleId);
+            publish(VEHICLE_PREFIX, vehicleId, vehicleId);
+        });
+    }
+
+    // Las reservas terminadas ya no pueden chocar con ninguna nueva, se quitan para que el índice no crezca sin límite
+    @Scheduled(cron = "${rent.reservation.prune-cron:0 0 * * * *}")
+    public void prune() {
+        long now = System.currentTimeMillis();
+        schedules.values().forEach(schedule -> schedule.removeEndedBefore(now));
+    }
+
+    /*
+     * Aviso de otra réplica (o de esta misma), el mensaje tiene el formato "<tipo>:<id>:<id del vehículo>".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":");
+        if (parts.length != 3) {
+            return;
+        }
+
+        try {
+            Long id = Long.parseLong(parts[1]);
+            Long vehicleId = Long.parseLong(parts[2]);
+
+            if (RESERVATION_PREFIX.equals(parts[0])) {
+                Optional<ReservationInterval> interval = reservationRepository.findIntervalById(id);
+                if (interval.isPresent()) {
+                    schedules.computeIfAbsent(vehicleId, key -> new VehicleSchedule()).add(interval.get());
+                } else {
+                    removeLocal(vehicleId, id);
+                }
+            } else if (VEHICLE_PREFIX.equals(parts[0])) {
+                reloadVehicle(vehicleId);
+            }
+        } catch (Exception e) {
+            log.warn("Could not apply reservation change {}", body, e);
+        }
+    }
+
+    private void reloadVehicle(Long vehicleId) {
+        if (vehicleRepository.existsById(vehicleId)) {
+            schedules.putIfAbsent(vehicleId, new VehicleSchedule());
+        } else {
+            schedules.remove(vehicleId);
+        }
+    }
+
+    private void removeLocal(Long vehicleId, Long reservationId) {
+        VehicleSchedule schedule = schedules.get(vehicleId);
+        if (schedule != null) {
+            schedule.remove(reservationId);
+        }
+    }
+
+    private void publish(String type, Long id, Long vehicleId) {
+        try {
+            redisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), type + ":" + id + ":" + vehicleId);
+        } catch (Exception e) {
+            log.warn("Could not publish reservation change {} {}", type, id, e);
+        }
+    }
+
+    /*
+     * Reservas de un vehículo ordenadas por inicio, sin solapes entre ellas.
+     */
+    private static final class VehicleSchedule {
+
+        private final TreeMap<Long, ReservationInterval> byStart = new TreeMap<>();
+
+        synchronized boolean isFree(long from, long to) {
+            Map.Entry<Long, ReservationInterval> previous = byStart.floorEntry(from);
+            if (previous != null && previous.getValue().overlaps(from, to)) {
+                return false;
+            }
+
+            Long next = byStart.higherKey(from);
+            return next == null || next >= to;
+        }
+
+        synchronized List<ReservationInterval> overlapping(long from, long to) {
+            List<ReservationInterval> result = new ArrayList<>();
+
+            Map.Entry<Long, ReservationInterval> previous = byStart.floorEntry(from);
+            if (previous != null && previous.getValue().overlaps(from, to)) {
+                result.add(previous.getValue());
+            }
+            result.addAll(byStart.subMap(from, false, to, false).values());
+
+            return result;
+        }
+
+        synchronized void add(ReservationInterval interval) {
+            // Si la reserva ya estaba (p.e. el aviso de la propia réplica) se reemplaza
+            remove(interval.reservationId());
+            byStart.put(interval.start(), interval);
+        }
+
+        synchronized void remove(Long reservationId) {
+            byStart.values().removeIf(interval -> interval.reservationId().equals(reservationId));
+        }
+
+        synchronized void removeEndedBefore(long time) {
+            byStart.headMap(time, false).values().removeIf(interval -> interval.end() <= time);
+        }
+    }
+}
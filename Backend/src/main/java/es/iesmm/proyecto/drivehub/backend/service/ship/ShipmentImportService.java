@@ -0,0 +1,21 @@
+package es.iesmm.proyecto.drivehub.backend.service.ship;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface ShipmentImportService {
+
+    /**
+     * Importa los envíos según se leen de la entrada y escribe el resultado de cada uno en NDJSON, sin cargar el fichero
+     * entero en memoria. Los envíos se guardan por bloques, cada bloque en su propia transacción.
+     * @param format Formato de la entrada, en NDJSON cada línea es una petición de /ship/create y en CSV cada fila es
+     *               un paquete (las filas seguidas con la misma "reference" son del mismo envío)
+     * @param in Entrada con los envíos, no se cierra
+     * @param out Salida en la que se escriben los resultados, no se cierra
+     * @throws IOException Si hay un error al leer la entrada o escribir en la salida
+     */
+    void importShipments(ExportFormat format, InputStream in, OutputStream out) throws IOException;
+}
@@ -1,11 +1,18 @@
 package es.iesmm.proyecto.drivehub.backend.service.ship;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentBulkStatusUpdateRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentCreationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentStatusUpdateRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusUpdateResultResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
 import org.springframework.http.ProblemDetail;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +21,36 @@ public interface ShipmentService {
 
     Shipment createShipment(ShipmentCreationRequest request);
 
-    Shipment updateStatus(Shipment shipment, ShipmentStatusUpdateRequest request);
+    /**
+     * Cambia el estado actual del envío y añade el cambio al historial, sin cargar el envío ni su historial
+     * @param shipmentId ID del envío
+     * @param request Nuevo estado y descripción
+     * @return Entrada del historial guardada, vacío si el envío no existe
+     */
+    Optional<ShipmentStatusUpdate> updateStatus(Long shipmentId, ShipmentStatusUpdateRequest request);
+
+    /**
+     * Cambia el estado de varios envíos con un solo UPDATE y añade los cambios al historial en lotes, sin cargar los
+     * envíos ni su historial
+     * @param request Envíos, nuevo estado y descripción
+     * @param driverId Si no es nulo solo se cambian los envíos de este conductor, el resto se indican como no encontrados
+     * @return Resultado de cada envío en el orden de la petición (sin repetidos)
+     * @throws IllegalArgumentException Si la lista de envíos está vacía o supera el máximo
+     */
+    List<ShipmentStatusUpdateResultResponse> updateStatuses(ShipmentBulkStatusUpdateRequest request, Long driverId);
+
+    /**
+     * Busca el historial de estados de un envío paginado por cursor, de más reciente a más antiguo
+     * @param shipmentId ID del envío
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página del historial, vacío si el envío no existe
+     */
+    Optional<KeysetPageResponse<ShipmentStatusHistoryResponse>> findStatusHistory(Long shipmentId, String cursor, int size);
 
     void deleteById(Long id);
 
-    List<Shipment> findByDriver(UserModel user);
+    List<Shipment> findByDriver(Long driverId);
 
     List<Shipment> findByFleet(Long fleetId);
 
@@ -28,4 +60,20 @@ public interface ShipmentService {
 
     List<Shipment> findAll();
 
+    /**
+     * Busca el seguimiento de los envíos paginado por cursor, de más reciente a más antiguo
+     * @param status Estado del envío, nulo para no filtrar
+     * @param driverId ID del conductor, nulo para no filtrar
+     * @param fleetId ID de la flota de los conductores, nulo para no filtrar
+     * @param from Fecha de envío mínima (incluida), nula para no filtrar
+     * @param to Fecha de envío máxima (excluida), nula para no filtrar
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página de envíos con el cursor de la siguiente
+     */
+    KeysetPageResponse<ShipmentTrackingResponse> findTracking(ShipmentStatusType status, Long driverId, Long fleetId,
+                                                              Date from, Date to, String cursor, int size);
+
+    List<ShipmentTrackingResponse> findTrackingByDriver(Long driverId);
+
 }
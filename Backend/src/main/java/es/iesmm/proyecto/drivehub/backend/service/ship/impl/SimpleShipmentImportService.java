@@ -0,0 +1,304 @@
+package es.iesmm.proyecto.drivehub.backend.service.ship.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentCreationRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentImportResultResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
+import es.iesmm.proyecto.drivehub.backend.model.ship.parcel.Parcel;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
+import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.ship.ShipmentImportService;
+import es.iesmm.proyecto.drivehub.backend.util.export.CsvRowReader;
+import es.iesmm.proyecto.drivehub.backend.util.export.ExportWriter;
+import es.iesmm.proyecto.drivehub.backend.util.export.NdjsonExportWriter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.*;
+
+/*
+ * Importación masiva de envíos.
+ *
+ * La entrada se lee por bloques de "batchSize" envíos, en memoria solo está el bloque actual. De cada bloque se
+ * validan los envíos en paralelo, se comprueban todos sus conductores con una sola consulta y los válidos se guardan en
+ * una transacción con los INSERT agrupados en lotes de JDBC. Al terminar el bloque se escriben sus resultados y se
+ * vacía el contexto de persistencia para que no crezca con cada bloque.
+ */
+@Service
+public class SimpleShipmentImportService implements ShipmentImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimpleShipmentImportService.class);
+
+    private static final String BATCH_FAILED = "BATCH_FAILED";
+    private static final String DRIVER_NOT_FOUND = "DRIVER_NOT_FOUND";
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader requestReader;
+    private final int batchSize;
+
+    public SimpleShipmentImportService(
+            UserRepository userRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${shipment.import.batch-size:500}") int batchSize
+    ) {
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(ShipmentCreationRequest.class);
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    @Override
+    public void importShipments(ExportFormat format, InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        RowSource rows = switch (format) {
+            case NDJSON -> ndjsonRows(reader);
+            case CSV -> csvRows(new CsvRowReader(reader));
+        };
+
+        int created = 0;
+        int rejected = 0;
+
+        try (ExportWriter<ShipmentImportResultResponse> writer = new NdjsonExportWriter<>(objectMapper, out)) {
+            List<ImportRow> chunk = new ArrayList<>(batchSize);
+
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                chunk.add(row);
+
+                if (chunk.size() == batchSize) {
+                    for (ShipmentImportResultResponse result : importChunk(chunk)) {
+                        writer.write(result);
+                        if (result.shipmentId() != null) created++; else rejected++;
+                    }
+                    chunk.clear();
+                }
+            }
+
+            for (ShipmentImportResultResponse result : importChunk(chunk)) {
+                writer.write(result);
+                if (result.shipmentId() != null) created++; else rejected++;
+            }
+        }
+
+        log.info("Shipment import finished with {} created and {} rejected shipments", created, rejected);
+    }
+
+    private List<ShipmentImportResultResponse> importChunk(List<ImportRow> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+
+        // Las validaciones no dependen unas de otras, se hacen en paralelo manteniendo el orden
+        String[] errors = chunk.parallelStream().map(SimpleShipmentImportService::validate).toArray(String[]::new);
+
+        // Todos los conductores del bloque se comprueban con una sola consulta, solo valen los conductores de flota
+        Set<Long> driverIds = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] == null) {
+                driverIds.add(chunk.get(i).request().driverId());
+            }
+        }
+        Set<Long> existingDrivers = driverIds.isEmpty() ? Set.of() : userRepository.findFleetDriverIds(driverIds);
+
+        Shipment[] shipments = new Shipment[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] == null && !existingDrivers.contains(chunk.get(i).request().driverId())) {
+                errors[i] = DRIVER_NOT_FOUND;
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    if (errors[i] != null) {
+                        continue;
+                    }
+
+                    ShipmentCreationRequest request = chunk.get(i).request();
+                    Shipment shipment = request.toShipment();
+                    shipment.setDriver(userRepository.getReferenceById(request.driverId()));
+
+                    entityManager.persist(shipment);
+                    entityManager.persist(ShipmentStatusUpdate.initial(shipment));
+                    shipments[i] = shipment;
+                }
+
+                entityManager.flush();
+            });
+        } catch (RuntimeException e) {
+            // Si falla el bloque no se ha guardado ninguno de sus envíos
+            log.warn("Could not save a shipment import batch starting at line {}", chunk.get(0).line(), e);
+            Arrays.fill(shipments, null);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (errors[i] == null) {
+                    errors[i] = BATCH_FAILED;
+                }
+            }
+        } finally {
+            entityManager.clear();
+        }
+
+        List<ShipmentImportResultResponse> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            long line = chunk.get(i).line();
+            results.add(errors[i] == null
+                    ? ShipmentImportResultResponse.created(line, shipments[i].getId())
+                    : ShipmentImportResultResponse.rejected(line, errors[i]));
+        }
+        return results;
+    }
+
+    private static String validate(ImportRow row) {
+        if (row.error() != null) {
+            return row.error();
+        }
+
+        try {
+            row.request().validate();
+            return row.request().driverId() == null ? DRIVER_NOT_FOUND : null;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    /*
+     * NDJSON: cada línea no vacía es un envío con el mismo formato que /ship/create.
+     */
+    private RowSource ndjsonRows(BufferedReader reader) {
+        long[] line = {0};
+
+        return () -> {
+            String value;
+            while ((value = reader.readLine()) != null) {
+                line[0]++;
+                if (value.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    return ImportRow.of(line[0], requestReader.readValue(value));
+                } catch (IOException e) {
+                    return ImportRow.invalid(line[0], "INVALID_JSON");
+                }
+            }
+            return null;
+        };
+    }
+
+    /*
+     * CSV: cada fila es un paquete con las columnas reference, sourceAddress, destinationAddress, shipmentDate,
+     * deliveryDate (en milisegundos), driverId, content, quantity y weight. Las filas seguidas con la misma "reference"
+     * (no vacía) son paquetes del mismo envío, los datos del envío se toman de la primera.
+     */
+    private RowSource csvRows(CsvRowReader reader) throws IOException {
+        List<String> header = reader.next();
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim(), i);
+            }
+        }
+
+        return new RowSource() {
+            private List<String> pending = reader.next();
+            private long pendingLine = reader.getRowLine();
+
+            @Override
+            public ImportRow next() throws IOException {
+                // Se saltan las filas vacías
+                while (pending != null && pending.size() == 1 && pending.get(0).isBlank()) {
+                    advance();
+                }
+                if (pending == null) {
+                    return null;
+                }
+
+                long line = pendingLine;
+                String reference = value(pending, "reference");
+                List<String> first = pending;
+                List<Parcel> parcels = new ArrayList<>();
+                String error = null;
+
+                do {
+                    try {
+                        parcels.add(Parcel.builder()
+                                .content(value(pending, "content"))
+                                .quantity(Integer.parseInt(value(pending, "quantity")))
+                                .weight(Double.parseDouble(value(pending, "weight")))
+                                .build());
+                    } catch (RuntimeException e) {
+                        error = "INVALID_PARCEL";
+                    }
+                    advance();
+                } while (reference != null && pending != null && reference.equals(value(pending, "reference")));
+
+                if (error != null) {
+                    return ImportRow.invalid(line, error);
+                }
+
+                try {
+                    return ImportRow.of(line, new ShipmentCreationRequest(
+                            value(first, "sourceAddress"),
+                            value(first, "destinationAddress"),
+                            date(value(first, "shipmentDate")),
+                            date(value(first, "deliveryDate")),
+                            parcels,
+                            Long.parseLong(value(first, "driverId"))
+                    ));
+                } catch (RuntimeException e) {
+                    return ImportRow.invalid(line, "INVALID_ROW");
+                }
+            }
+
+            private void advance() throws IOException {
+                pending = reader.next();
+                pendingLine = reader.getRowLine();
+            }
+
+            private String value(List<String> row, String column) {
+                Integer index = columns.get(column);
+                if (index == null || index >= row.size() || row.get(index).isBlank()) {
+                    return null;
+                }
+                return row.get(index).trim();
+            }
+        };
+    }
+
+    private static Date date(String value) {
+        return value != null ? new Date(Long.parseLong(value)) : null;
+    }
+
+    @FunctionalInterface
+    private interface RowSource {
+        ImportRow next() throws IOException;
+    }
+
+    private record ImportRow(long line, ShipmentCreationRequest request, String error) {
+
+        static ImportRow of(long line, ShipmentCreationRequest request) {
+            return new ImportRow(line, request, null);
+        }
+
+        static ImportRow invalid(long line, String error) {
+            return new ImportRow(line, null, error);
+        }
+    }
+}
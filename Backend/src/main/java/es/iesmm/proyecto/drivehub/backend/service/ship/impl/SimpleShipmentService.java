@@ -1,18 +1,30 @@
 package es.iesmm.proyecto.drivehub.backend.service.ship.impl;
 
 import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentBulkStatusUpdateRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentCreationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.ship.ShipmentStatusUpdateRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusHistoryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentStatusUpdateResultResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
 import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
 import es.iesmm.proyecto.drivehub.backend.repository.ShipmentRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.ShipmentStatusUpdateRepository;
 import es.iesmm.proyecto.drivehub.backend.service.ship.ShipmentService;
+import es.iesmm.proyecto.drivehub.backend.service.ship.tracking.ShipmentTrackingHub;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetCursor;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetPagination;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,7 +32,9 @@ import java.util.stream.Collectors;
 public class SimpleShipmentService implements ShipmentService {
 
     private final ShipmentRepository shipmentRepository;
+    private final ShipmentStatusUpdateRepository statusUpdateRepository;
     private final UserService userService;
+    private final ShipmentTrackingHub shipmentTrackingHub;
 
     @Override
     public Optional<Shipment> findById(Long id) {
@@ -28,16 +42,11 @@ public class SimpleShipmentService implements ShipmentService {
     }
 
     @Override
+    @Transactional
     public Shipment createShipment(ShipmentCreationRequest request) {
         // Control de errores y validaciones de los datos
         Preconditions.checkNotNull(request, "The request cannot be null");
-        Preconditions.checkNotNull(request.sourceAddress(), "The source address cannot be null");
-        Preconditions.checkNotNull(request.destinationAddress(), "The destination address cannot be null");
-        Preconditions.checkNotNull(request.shipmentDate(), "The shipment date cannot be null");
-        Preconditions.checkNotNull(request.deliveryDate(), "The delivery date cannot be null");
-        Preconditions.checkNotNull(request.parcels(), "PARCELS_CANNOT_BE_NULL");
-        Preconditions.checkArgument(request.shipmentDate().before(request.deliveryDate()), "INVALID_SHIPMENT_DATE");
-        Preconditions.checkArgument(!request.parcels().isEmpty(), "PARCELS_CANNOT_BE_EMPTY");
+        request.validate();
 
         // Se convierte la petición en un envío y se guarda en la base de datos
         Shipment shipment = request.toShipment();
@@ -50,52 +59,130 @@ public class SimpleShipmentService implements ShipmentService {
 
         shipment = shipmentRepository.save(shipment);
 
+        // Se guarda la primera entrada del historial
+        ShipmentStatusUpdate initialStatus = statusUpdateRepository.save(ShipmentStatusUpdate.initial(shipment));
+        shipment.setStatusHistory(new LinkedList<>(List.of(initialStatus)));
+
         return shipment;
     }
 
     @Override
-    public Shipment updateStatus(Shipment shipment, ShipmentStatusUpdateRequest request) {
+    @Transactional
+    public Optional<ShipmentStatusUpdate> updateStatus(Long shipmentId, ShipmentStatusUpdateRequest request) {
         // Control de errores y validaciones de los datos
-        Preconditions.checkNotNull(shipment, "The shipment cannot be null");
+        Preconditions.checkNotNull(shipmentId, "The shipment id cannot be null");
         Preconditions.checkNotNull(request, "The request cannot be null");
         Preconditions.checkNotNull(request.status(), "The status cannot be null");
 
-        // Se aplica la actualización del estado
-        request.update(shipment);
+        // Primero se actualiza el estado actual, si el envío no existe no se guarda nada
+        if (shipmentRepository.updateActualStatus(shipmentId, request.status()) == 0) {
+            return Optional.empty();
+        }
 
-        // Se guarda el envío en la base de datos
-        shipment = shipmentRepository.save(shipment);
+        // Quien siga el envío recibe el cambio cuando ya está guardado
+        TransactionCallbacks.afterCommit(() -> shipmentTrackingHub.publishStatus(List.of(shipmentId), request.status()));
 
-        return shipment;
+        // Se añade el cambio al historial sin cargar el envío ni su historial
+        return Optional.of(statusUpdateRepository.save(request.toStatusUpdate(shipmentRepository.getReferenceById(shipmentId))));
     }
 
     @Override
+    @Transactional
+    public List<ShipmentStatusUpdateResultResponse> updateStatuses(ShipmentBulkStatusUpdateRequest request, Long driverId) {
+        // Control de errores y validaciones de los datos
+        Preconditions.checkNotNull(request, "The request cannot be null");
+        request.validate();
+
+        List<Long> ids = request.shipmentIds().stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // Primero el UPDATE, así las filas quedan bloqueadas y los envíos encontrados no pueden borrarse hasta el final.
+        // Para un conductor los envíos de otros conductores cuentan como no encontrados
+        Set<Long> existing;
+        if (driverId == null) {
+            shipmentRepository.updateActualStatusByIds(ids, request.status());
+            existing = shipmentRepository.findExistingIds(ids);
+        } else {
+            shipmentRepository.updateActualStatusByIdsAndDriverId(ids, request.status(), driverId);
+            existing = shipmentRepository.findExistingIdsByDriverId(ids, driverId);
+        }
+
+        if (request.atomic() && existing.size() < ids.size()) {
+            // Falta algún envío, se deshace el cambio de todos
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+
+            return ids.stream()
+                    .map(id -> ShipmentStatusUpdateResultResponse.rejected(id, existing.contains(id) ? "NOT_APPLIED" : "SHIPMENT_NOT_FOUND"))
+                    .toList();
+        }
+
+        // Las entradas del historial se insertan en lotes de JDBC con referencias a los envíos, sin cargarlos
+        List<ShipmentStatusUpdate> updates = ids.stream()
+                .filter(existing::contains)
+                .map(id -> request.toStatusUpdate(shipmentRepository.getReferenceById(id)))
+                .toList();
+        Map<Long, Long> updateIds = statusUpdateRepository.saveAll(updates).stream()
+                .collect(Collectors.toMap(update -> update.getShipment().getId(), ShipmentStatusUpdate::getId));
+
+        List<Long> updatedIds = List.copyOf(updateIds.keySet());
+        TransactionCallbacks.afterCommit(() -> shipmentTrackingHub.publishStatus(updatedIds, request.status()));
+
+        return ids.stream()
+                .map(id -> updateIds.containsKey(id)
+                        ? ShipmentStatusUpdateResultResponse.applied(id, updateIds.get(id))
+                        : ShipmentStatusUpdateResultResponse.rejected(id, "SHIPMENT_NOT_FOUND"))
+                .toList();
+    }
+
+    @Override
+    public Optional<KeysetPageResponse<ShipmentStatusHistoryResponse>> findStatusHistory(Long shipmentId, String cursor, int size) {
+        Preconditions.checkNotNull(shipmentId, "The shipment id cannot be null");
+
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        // Igual que en Shipment, los envíos ocultos no muestran el historial
+        return shipmentRepository.findHiddenById(shipmentId).map(hidden -> {
+            if (hidden) {
+                return new KeysetPageResponse<>(List.of(), null);
+            }
+
+            List<ShipmentStatusHistoryResponse> rows = statusUpdateRepository.findHistory(shipmentId,
+                    position.date(), position.id(), KeysetPagination.limit(size));
+
+            return KeysetPagination.page(rows, size, update -> KeysetCursor.of(update.updateDate(), update.id()));
+        });
+    }
+
+    @Override
+    @Transactional
     public void deleteById(Long id) {
         // Control de errores y validaciones de los datos
         Preconditions.checkNotNull(id, "The id cannot be null");
         Preconditions.checkArgument(shipmentRepository.existsById(id), "The shipment with id " + id + " does not exist");
 
+        // El historial no se borra a través del envío, se borra antes con una sola consulta (en la misma transacción,
+        // si falla el borrado del envío se mantiene su historial)
+        statusUpdateRepository.deleteByShipmentId(id);
         shipmentRepository.deleteById(id);
     }
 
     @Override
-    public List<Shipment> findByDriver(UserModel user) {
+    public List<Shipment> findByDriver(Long driverId) {
         // Control de errores y validaciones de los datos
-        Preconditions.checkNotNull(user, "The user cannot be null");
+        Preconditions.checkNotNull(driverId, "The user cannot be null");
 
-        return shipmentRepository.findByDriverId(user.getId()).stream().filter(Shipment::isNotCompleted).collect(Collectors.toList());
+        return shipmentRepository.findByDriverId(driverId).stream().filter(Shipment::isNotCompleted).collect(Collectors.toList());
     }
 
     @Override
     public List<Shipment> findByFleet(Long fleetId) {
-        // Obtiene los conductores de la flota
-        List<UserModel> drivers = userService.findDriversByFleet(fleetId);
-
-        // Busca los envios de cada conductor y los añade a la lista
-        return drivers.stream()
-                .map(this::findByDriver)
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        // Control de errores y validaciones de los datos
+        Preconditions.checkNotNull(fleetId, "The fleet cannot be null");
+
+        // Envíos pendientes de todos los conductores de la flota en una sola consulta
+        return shipmentRepository.findPendingByFleetId(fleetId);
     }
 
     @Override
@@ -130,4 +217,23 @@ public class SimpleShipmentService implements ShipmentService {
         return shipmentRepository.findAll();
     }
 
+    @Override
+    public KeysetPageResponse<ShipmentTrackingResponse> findTracking(ShipmentStatusType status, Long driverId, Long fleetId,
+                                                                     Date from, Date to, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        List<ShipmentTrackingResponse> rows = shipmentRepository.findTracking(status, driverId, fleetId, from, to,
+                position.date(), position.id(), KeysetPagination.limit(size));
+
+        return KeysetPagination.page(rows, size, shipment -> KeysetCursor.of(shipment.shipmentDate(), shipment.id()));
+    }
+
+    @Override
+    public List<ShipmentTrackingResponse> findTrackingByDriver(Long driverId) {
+        // Control de errores y validaciones de los datos
+        Preconditions.checkNotNull(driverId, "The user cannot be null");
+
+        return shipmentRepository.findPendingTrackingByDriverId(driverId);
+    }
+
 }
@@ -0,0 +1,239 @@
+package es.iesmm.proyecto.drivehub.backend.service.ship.tracking;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.ship.ShipmentTrackingResponse;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusType;
+import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
+import es.iesmm.proyecto.drivehub.backend.repository.ShipmentRepository;
+import es.iesmm.proyecto.drivehub.backend.service.location.LocationService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+ * Seguimiento en tiempo real de los envíos para los clientes, en lugar de consultar /ship/{id} y /ship/{id}/location
+ * cada pocos segundos.
+ *
+ * - Todos los que siguen el mismo envío en esta réplica comparten una sola suscripción: el seguimiento del envío se lee
+ *   de la base de datos una vez, cuando llega el primero, y se mantiene en memoria mientras quede alguno conectado.
+ * - La localización del conductor se lee de Redis como mucho una vez por intervalo y conductor, aunque lleve muchos
+ *   envíos o los siga mucha gente, y solo se envía si ha cambiado.
+ * - Los cambios de estado se avisan por un canal de Redis al confirmarse, así llegan a quien siga el envío en cualquier
+ *   réplica sin volver a leer la base de datos. Al entregarse o devolverse el envío se cierran los emisores.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShipmentTrackingHub implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentTrackingHub.class);
+
+    private static final ChannelTopic STATUS_TOPIC = new ChannelTopic("ship:tracking:status");
+    private static final String SEPARATOR = ",";
+
+    private static final Set<ShipmentStatusType> FINAL_STATUSES = EnumSet.of(ShipmentStatusType.DELIVERED, ShipmentStatusType.RETURNED);
+
+    private final ShipmentRepository shipmentRepository;
+    private final LocationService locationService;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    // Envíos con alguien conectado en esta réplica
+    private final Map<Long, TrackedShipment> shipments = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, STATUS_TOPIC);
+    }
+
+    /**
+     * Crea un emisor con el seguimiento del envío, el primer evento es el estado actual
+     * @param shipmentId ID del envío
+     * @return Emisor de eventos, vacío si el envío no existe
+     */
+    public Optional<SseEmitter> track(Long shipmentId) {
+        // Solo se lee de la base de datos si nadie sigue ya el envío en esta réplica
+        ShipmentTrackingResponse snapshot = Optional.ofNullable(shipments.get(shipmentId))
+                .map(TrackedShipment::getSnapshot)
+                .or(() -> shipmentRepository.findTrackingById(shipmentId))
+                .orElse(null);
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+
+        // Se crea el emitter y se le asigna un tiempo de vida de 30 minutos (Si dura mas, el cliente deberá reconectar)
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(30));
+        emitter.onCompletion(() -> remove(shipmentId, emitter));
+        emitter.onTimeout(() -> remove(shipmentId, emitter));
+        emitter.onError(e -> remove(shipmentId, emitter));
+
+        TrackedShipment tracked = shipments.compute(shipmentId, (id, current) -> {
+            TrackedShipment value = current != null ? current : new TrackedShipment(snapshot);
+            value.emitters.add(emitter);
+            return value;
+        });
+
+        // Estado actual y, si ya se conoce, la última localización para no esperar al siguiente intervalo
+        send(tracked, emitter, "shipment", tracked.getSnapshot());
+        Optional.ofNullable(tracked.lastLocation).ifPresent(location -> send(tracked, emitter, "location", location));
+
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Avisa a todas las réplicas del cambio de estado de los envíos, se debe llamar después de confirmar el cambio
+     * @param shipmentIds IDs de los envíos
+     * @param status Nuevo estado
+     */
+    public void publishStatus(Collection<Long> shipmentIds, ShipmentStatusType status) {
+        if (shipmentIds.isEmpty()) {
+            return;
+        }
+
+        // Primero se aplica en esta réplica, si Redis no está disponible al menos aquí se ve el cambio
+        Date now = new Date();
+        shipmentIds.forEach(id -> applyStatus(id, status, now));
+
+        try {
+            redisTemplate.convertAndSend(
+                    STATUS_TOPIC.getTopic(),
+                    status.name() + ":" + shipmentIds.stream().map(String::valueOf).collect(Collectors.joining(SEPARATOR))
+            );
+        } catch (Exception e) {
+            log.warn("Could not publish status {} of {} shipments", status, shipmentIds.size(), e);
+        }
+    }
+
+    /*
+     * Aviso de otra réplica (o de esta misma), el mensaje es el estado y los IDs de los envíos separados por comas.
+     * Solo se tienen en cuenta los envíos que alguien sigue en esta réplica.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        try {
+            String[] parts = body.split(":", 2);
+            ShipmentStatusType status = ShipmentStatusType.valueOf(parts[0]);
+            Date now = new Date();
+
+            for (String id : parts[1].split(SEPARATOR)) {
+                applyStatus(Long.parseLong(id), status, now);
+            }
+        } catch (Exception e) {
+            log.warn("Could not apply shipment status message {}", body, e);
+        }
+    }
+
+    // Lee la localización de cada conductor una sola vez por intervalo y la envía a quien siga alguno de sus envíos
+    @Scheduled(fixedDelayString = "${shipment.tracking.location-interval:2000}")
+    public void pushLocations() {
+        Map<Long, List<TrackedShipment>> byDriver = shipments.values().stream()
+                .filter(tracked -> tracked.driverId() != null)
+                .collect(Collectors.groupingBy(TrackedShipment::driverId));
+
+        byDriver.forEach((driverId, tracked) -> {
+            Optional<UserLocation> location;
+            try {
+                location = locationService.findLatestLocation(driverId);
+            } catch (Exception e) {
+                log.warn("Could not read location of driver {}", driverId, e);
+                return;
+            }
+
+            location.ifPresent(value -> tracked.forEach(shipment -> {
+                if (value.equals(shipment.lastLocation)) {
+                    return;
+                }
+
+                shipment.lastLocation = value;
+                shipment.emitters.forEach(emitter -> send(shipment, emitter, "location", value));
+            }));
+        });
+    }
+
+    // Enviar un evento de keepalive a los emisores cada 10 segundos
+    @Scheduled(fixedRate = 10_000)
+    public void sendKeepAlive() {
+        shipments.values().forEach(tracked -> tracked.emitters.forEach(emitter -> send(tracked, emitter, "keep-alive", "keepalive")));
+    }
+
+    private void applyStatus(Long shipmentId, ShipmentStatusType status, Date updateDate) {
+        TrackedShipment tracked = shipments.get(shipmentId);
+        if (tracked == null) {
+            return;
+        }
+
+        ShipmentTrackingResponse snapshot;
+        synchronized (tracked) {
+            // Los envíos ocultos no muestran el estado, y el aviso de esta réplica vuelve por Redis así que se ignora
+            // si ya se tiene el mismo estado
+            ShipmentStatusType current = tracked.getSnapshot().actualStatus();
+            if (current == ShipmentStatusType.HIDDEN || current == status) {
+                return;
+            }
+
+            snapshot = tracked.getSnapshot().withStatus(status, updateDate);
+            tracked.snapshot = snapshot;
+        }
+
+        tracked.emitters.forEach(emitter -> send(tracked, emitter, "shipment", snapshot));
+
+        // Si el envío ya ha terminado no hay nada más que seguir
+        if (FINAL_STATUSES.contains(status)) {
+            tracked.emitters.forEach(SseEmitter::complete);
+            shipments.remove(shipmentId, tracked);
+        }
+    }
+
+    private void send(TrackedShipment tracked, SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+        } catch (Exception e) {
+            // Completa el emisor si hay un error y lo elimina de la lista
+            emitter.complete();
+            tracked.emitters.remove(emitter);
+        }
+    }
+
+    private void remove(Long shipmentId, SseEmitter emitter) {
+        // El último en desconectarse quita el envío, no se vuelve a leer su localización
+        shipments.computeIfPresent(shipmentId, (id, tracked) -> {
+            tracked.emitters.remove(emitter);
+            return tracked.emitters.isEmpty() ? null : tracked;
+        });
+    }
+
+    private static final class TrackedShipment {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private volatile ShipmentTrackingResponse snapshot;
+        private volatile UserLocation lastLocation;
+
+        private TrackedShipment(ShipmentTrackingResponse snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        private ShipmentTrackingResponse getSnapshot() {
+            return snapshot;
+        }
+
+        private Long driverId() {
+            return snapshot.driver() != null ? snapshot.driver().id() : null;
+        }
+    }
+}
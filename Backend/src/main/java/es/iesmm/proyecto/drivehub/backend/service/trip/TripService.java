@@ -1,16 +1,24 @@
 package es.iesmm.proyecto.drivehub.backend.service.trip;
 
+import com.google.maps.model.LatLng;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripDetailResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
 import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
 import es.iesmm.proyecto.drivehub.backend.model.trip.draft.TripDraftModel;
+import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 public interface TripService {
 
-    TripDraftModel createDraft(UserModel user, String origin, String destination);
+    TripDraftModel createDraft(Long userId, String origin, String destination);
+
+    TripDraftModel createDraft(Long userId, LatLng origin, LatLng destination, String originLabel, String destinationLabel);
 
     Optional<TripDraftModel> findDraft(String draftId);
 
@@ -30,21 +38,37 @@ public interface TripService {
 
     List<TripModel> findAll();
 
+    /**
+     * Busca los resúmenes de los trayectos paginados por cursor, de más reciente a más antiguo
+     * @param status Estado del trayecto, nulo para no filtrar
+     * @param passengerId ID del pasajero, nulo para no filtrar
+     * @param driverId ID del conductor, nulo para no filtrar
+     * @param from Fecha mínima (incluida), nula para no filtrar
+     * @param to Fecha máxima (excluida), nula para no filtrar
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página de trayectos con el cursor de la siguiente
+     */
+    KeysetPageResponse<TripSummaryResponse> findSummaries(TripStatus status, Long passengerId, Long driverId,
+                                                          Date from, Date to, String cursor, int size);
+
     List<TripModel> findActiveTrips();
 
     List<TripModel> findByDriver(Long driverId);
 
+    List<TripModel> findByPassenger(Long passengerId);
+
     Optional<TripModel> findActiveByDriver(Long driverId);
 
-    List<TripModel> findUserHistory(Long userId);
+    Optional<TripModel> findActiveByPassenger(Long passengerId);
 
-    List<TripModel> findDriverHistory(Long id);
+    Optional<TripDetailResponse> findActiveDetailByPassenger(Long passengerId);
 
-    Optional<TripModel> findActiveByPassenger(Long passengerId);
+    Optional<TripDetailResponse> findActiveDetailByDriver(Long driverId);
 
     SseEmitter streamTripStatus(TripModel tripModel);
 
     SseEmitter streamTripLocation(TripModel tripModel);
 
-    SseEmitter streamDuty(UserModel userDetails);
+    SseEmitter streamDuty(Long driverId);
 }
@@ -2,6 +2,10 @@ package es.iesmm.proyecto.drivehub.backend.service.trip.impl;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.MapMaker;
+import com.google.maps.model.LatLng;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripDetailResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
 import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
 import es.iesmm.proyecto.drivehub.backend.model.trip.draft.TripDraftModel;
 import es.iesmm.proyecto.drivehub.backend.model.trip.status.TripStatus;
@@ -11,18 +15,27 @@ import es.iesmm.proyecto.drivehub.backend.model.user.driver.chauffeur.ChauffeurD
 import es.iesmm.proyecto.drivehub.backend.model.user.location.UserLocation;
 import es.iesmm.proyecto.drivehub.backend.repository.TripRepository;
 import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.balance.BalanceService;
 import es.iesmm.proyecto.drivehub.backend.service.geocode.GeoCodeService;
 import es.iesmm.proyecto.drivehub.backend.service.location.LocationService;
 import es.iesmm.proyecto.drivehub.backend.service.trip.TripService;
+import es.iesmm.proyecto.drivehub.backend.service.trip.registry.ActiveTripRegistry;
 import es.iesmm.proyecto.drivehub.backend.util.distance.DistanceUnit;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetCursor;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetPagination;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
 import lombok.AllArgsConstructor;
 import net.bytebuddy.utility.RandomString;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
@@ -31,22 +44,27 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @AllArgsConstructor
 public class SimpleTripService implements TripService {
 
     private static final Logger log = LoggerFactory.getLogger(SimpleTripService.class);
+    private static final Set<TripStatus> ACTIVE_STATUSES = EnumSet.of(TripStatus.PENDING, TripStatus.ACCEPTED);
     private final String KEY_PREFIX = "trip:draft:";
 
     private final RedisTemplate<String, TripDraftModel> redisRepository;
     private final GeoCodeService geoCodeService;
     private final UserRepository userRepository;
     private final LocationService locationService;
+    private final BalanceService balanceService;
 
     @Value("${price.per.km}")
     private final double PRICE_PER_KM = 1.5;
     private final TripRepository tripRepository;
+    private final ActiveTripRegistry activeTripRegistry;
+    private final PlatformTransactionManager transactionManager;
 
     private final Map<Long, SseEmitter> tripStatusEmitters = new MapMaker().makeMap();
     private final Map<Long, SseEmitter> dutyEmitters = new ConcurrentHashMap<>();
@@ -54,28 +72,50 @@ public class SimpleTripService implements TripService {
     private final ExecutorService executorService = Executors.newCachedThreadPool();
 
     @Override
-    public TripDraftModel createDraft(UserModel user, String origin, String destination) {
+    public TripDraftModel createDraft(Long userId, String origin, String destination) {
         double distance = geoCodeService.calculateDistance(origin, destination, DistanceUnit.KILOMETERS);
 
         Preconditions.checkArgument(distance > 0, "INVALID_DISTANCE_BETWEEN");
 
-        String randomId = RandomString.make(10);
-
-        // Se calcula el precio del trayecto redondeado a 2 decimales
-        double price = distance * PRICE_PER_KM;
-        double roundedPrice = Math.round(price * 100.0) / 100.0;
-
         // Creamos el borrador del trayecto con los datos proporcionados
         TripDraftModel tripDraft = TripDraftModel.builder()
-                .id(randomId)
+                .id(RandomString.make(10))
                 .origin(origin)
                 .destination(destination)
                 .distance(distance)
                 .destinationCoordinates(geoCodeService.getCoordinatesFromAddress(destination))
                 .originCoordinates(geoCodeService.getCoordinatesFromAddress(origin))
-                .price(roundedPrice)
+                .price(calculatePrice(distance))
                 .build();
 
+        return saveDraft(tripDraft);
+    }
+
+    @Override
+    public TripDraftModel createDraft(Long userId, LatLng origin, LatLng destination, String originLabel, String destinationLabel) {
+        Preconditions.checkArgument(isValidCoordinate(origin), "INVALID_ORIGIN_COORDINATES");
+        Preconditions.checkArgument(isValidCoordinate(destination), "INVALID_DESTINATION_COORDINATES");
+
+        // El cliente ya conoce las coordenadas, así que la distancia se calcula directamente sin geocodificar
+        double distance = geoCodeService.calculateDistance(origin, destination, DistanceUnit.KILOMETERS);
+
+        Preconditions.checkArgument(distance > 0, "INVALID_DISTANCE_BETWEEN");
+
+        // Las etiquetas son opcionales, si no vienen la dirección se resolverá al crear el trayecto y en segundo plano
+        TripDraftModel tripDraft = TripDraftModel.builder()
+                .id(RandomString.make(10))
+                .origin(StringUtils.isBlank(originLabel) ? null : originLabel)
+                .destination(StringUtils.isBlank(destinationLabel) ? null : destinationLabel)
+                .distance(distance)
+                .originCoordinates(origin)
+                .destinationCoordinates(destination)
+                .price(calculatePrice(distance))
+                .build();
+
+        return saveDraft(tripDraft);
+    }
+
+    private TripDraftModel saveDraft(TripDraftModel tripDraft) {
         // Guardar en redis el borrador del trayecto por 10 minutos para que el usuario pueda completar la compra
         redisRepository.opsForValue().set(KEY_PREFIX + tripDraft.getId(), tripDraft, 10, TimeUnit.MINUTES);
 
@@ -83,17 +123,29 @@ public class SimpleTripService implements TripService {
         return tripDraft;
     }
 
+    private double calculatePrice(double distance) {
+        // Se calcula el precio del trayecto redondeado a 2 decimales
+        double price = distance * PRICE_PER_KM;
+        return Math.round(price * 100.0) / 100.0;
+    }
+
+    private boolean isValidCoordinate(LatLng coordinates) {
+        return coordinates != null
+                && coordinates.lat >= -90 && coordinates.lat <= 90
+                && coordinates.lng >= -180 && coordinates.lng <= 180;
+    }
+
     @Override
     public Optional<TripDraftModel> findDraft(String draftId) {
         return Optional.ofNullable(redisRepository.opsForValue().get(KEY_PREFIX + draftId));
     }
 
     @Override
+    @Transactional
     public TripModel createTrip(UserModel user, TripDraftModel tripDraftModel, boolean sendPackage) {
         Preconditions.checkArgument(tripDraftModel.getDistance() > 0, "INVALID_DISTANCE_BETWEEN");
         Preconditions.checkArgument(tripDraftModel.getPrice() > 0, "INVALID_PRICE");
-        Preconditions.checkState(user.canAfford(tripDraftModel.getPrice()), "INSUFFICIENT_FUNDS");
-        Preconditions.checkState(findActiveByPassenger(user.getId()).isEmpty(), "ACTIVE_TRIP_EXISTS");
+        Preconditions.checkState(!activeTripRegistry.hasActiveTripAsPassenger(user.getId()), "ACTIVE_TRIP_EXISTS");
 
         // Convertir las coordenadas a String para guardarlas en la base de datos
         String originCoordinates = tripDraftModel.getOriginCoordinates().lat + ";" + tripDraftModel.getOriginCoordinates().lng;
@@ -106,33 +158,77 @@ public class SimpleTripService implements TripService {
                 .startTime(new Date())
                 .origin(originCoordinates)
                 .destination(destinationCoordinates)
-                .originAddress(tripDraftModel.getOrigin())
-                .destinationAddress(tripDraftModel.getDestination())
+                .originAddress(Objects.requireNonNullElse(tripDraftModel.getOrigin(), originCoordinates))
+                .destinationAddress(Objects.requireNonNullElse(tripDraftModel.getDestination(), destinationCoordinates))
                 .price(tripDraftModel.getPrice())
                 .distance(tripDraftModel.getDistance())
                 .sendPackage(sendPackage)
                 .passenger(user)
                 .build();
 
-        // Cobrar al usuario el precio del trayecto
-        user.withdraw(tripDraftModel.getPrice());
+        // El cobro y el trayecto van en la misma transacción, si no se puede guardar el trayecto no se cobra
+        Preconditions.checkState(balanceService.withdraw(user.getId(), tripDraftModel.getPrice()), "INSUFFICIENT_FUNDS");
 
-        // Actualizar el usuario para guardar su saldo y guardar el trayecto
-        userRepository.save(user);
+        // Guardar el trayecto y registrarlo como activo, si el pasajero ya tiene otro (p.e. una petición a la vez en otra
+        // réplica) falla el registro y se deshace todo, también el cobro
         TripModel savedTrip = tripRepository.save(trip);
+        activeTripRegistry.register(savedTrip);
+
+        // Las tareas en segundo plano leen el trayecto de la base de datos, se lanzan cuando ya está guardado
+        TransactionCallbacks.afterCommit(() -> {
+            // Si el borrador venía solo con coordenadas, la dirección legible se resuelve en segundo plano
+            if (tripDraftModel.getOrigin() == null || tripDraftModel.getDestination() == null) {
+                Long tripId = savedTrip.getId();
+                String originAddress = savedTrip.getOriginAddress();
+                String destinationAddress = savedTrip.getDestinationAddress();
+                executorService.execute(() -> resolveAddresses(tripId, originAddress, destinationAddress, tripDraftModel));
+            }
 
-        // Se busca a un conductor en otro hilo para no retrasar la respuesta, se le pasa el trayecto
-        executorService.execute(() -> findDriverToAssign(savedTrip));
+            // Se busca a un conductor en otro hilo para no retrasar la respuesta, se le pasa el trayecto
+            executorService.execute(() -> findDriverToAssign(savedTrip));
+        });
 
         return savedTrip;
     }
 
+    /*
+     * Se ejecuta en otro hilo, por eso solo recibe valores y no el trayecto: la dirección se guarda con un UPDATE de
+     * las dos columnas y la entidad que ya tiene el hilo de la petición no se toca.
+     */
+    private void resolveAddresses(Long tripId, String fallbackOrigin, String fallbackDestination, TripDraftModel tripDraftModel) {
+        String originAddress = tripDraftModel.getOrigin();
+        String destinationAddress = tripDraftModel.getDestination();
+
+        // Solo se geocodifican las direcciones que el cliente no ha enviado
+        if (originAddress == null) {
+            LatLng origin = tripDraftModel.getOriginCoordinates();
+            originAddress = geoCodeService.getAddressFromCoordinates(origin.lat, origin.lng);
+        }
+
+        if (destinationAddress == null) {
+            LatLng destination = tripDraftModel.getDestinationCoordinates();
+            destinationAddress = geoCodeService.getAddressFromCoordinates(destination.lat, destination.lng);
+        }
+
+        // Si no se ha podido resolver alguna dirección, se mantienen las coordenadas como dirección
+        if (originAddress == null) {
+            originAddress = fallbackOrigin;
+        }
+
+        if (destinationAddress == null) {
+            destinationAddress = fallbackDestination;
+        }
+
+        tripRepository.updateAddresses(tripId, originAddress, destinationAddress);
+    }
+
     @Override
+    @Transactional
     public void assignDriver(UserModel driver, TripModel tripModel) {
         Preconditions.checkState(tripModel.getStatus() == TripStatus.PENDING, "TRIP_NOT_PENDING");
         Preconditions.checkState(tripModel.getDriver() == null, "TRIP_ALREADY_ASSIGNED");
-        Preconditions.checkState(findActiveByDriver(driver.getId()).isEmpty(), "DRIVER_HAS_ACTIVE_TRIP");
-        Preconditions.checkState(findActiveByPassenger(driver.getId()).isEmpty(), "DRIVER_IS_IN_TRIP");
+        Preconditions.checkState(!activeTripRegistry.hasActiveTripAsDriver(driver.getId()), "DRIVER_HAS_ACTIVE_TRIP");
+        Preconditions.checkState(!activeTripRegistry.hasActiveTripAsPassenger(driver.getId()), "DRIVER_IS_IN_TRIP");
 
         // Establecer el conductor, el modelo del vehículo y la matrícula del vehículo, también establecer el estado en ACEPTADO
         tripModel.setDriver(driver);
@@ -144,29 +240,35 @@ public class SimpleTripService implements TripService {
         tripModel.setVehiclePlate(driverData.getVehiclePlate());
         tripModel.setVehicleColor(driverData.getVehicleColor());
 
-        // Guardar el trayecto actualizado
+        // Guardar el trayecto actualizado y registrar al conductor, si ya tiene otro trayecto no se guarda la asignación
         tripRepository.save(tripModel);
+        activeTripRegistry.register(tripModel);
 
         // Avisar por el emitter de que el trayecto ha sido aceptado
-        broadcastTripStatus(tripModel);
+        TransactionCallbacks.afterCommit(() -> broadcastTripStatus(tripModel));
     }
 
     @Override
+    @Transactional
     public void cancelTrip(TripModel tripModel) {
         Preconditions.checkState(tripModel.isActive(), "TRIP_NOT_ACTIVE");
 
-        // Cancelar el trayecto y devolver el saldo al usuario
+        // Cancelar el trayecto solo si sigue activo en la base de datos, si otra cancelación (o la búsqueda de conductor)
+        // se ha adelantado ya se ha devuelto el saldo y no se vuelve a devolver
+        Preconditions.checkState(tripRepository.cancelIfStatusIn(tripModel.getId(), ACTIVE_STATUSES) == 1, "TRIP_NOT_ACTIVE");
         tripModel.setStatus(TripStatus.CANCELLED);
-        tripModel.getPassenger().deposit(tripModel.getPrice());
 
-        // Guardar el trayecto actualizado y el usuario actualizado
-        tripRepository.save(tripModel);
-        userRepository.saveAndFlush(tripModel.getPassenger()); // Guardar y forzar la actualización del usuario
+        // El trayecto cancelado y la devolución del saldo se guardan juntos o no se guarda ninguno
+        balanceService.deposit(tripModel.getPassenger().getId(), tripModel.getPrice());
 
-        broadcastTripStatus(tripModel);
-        if (tripModel.getDriver() != null) {
-            Optional.ofNullable(dutyEmitters.get(tripModel.getDriver().getId())).ifPresent(SseEmitter::complete);
-        }
+        TransactionCallbacks.afterCommit(() -> {
+            activeTripRegistry.release(tripModel);
+
+            broadcastTripStatus(tripModel);
+            if (tripModel.getDriver() != null) {
+                Optional.ofNullable(dutyEmitters.get(tripModel.getDriver().getId())).ifPresent(SseEmitter::complete);
+            }
+        });
     }
 
     @Override
@@ -179,6 +281,7 @@ public class SimpleTripService implements TripService {
 
         // Guardar el trayecto actualizado
         tripRepository.save(tripModel);
+        activeTripRegistry.release(tripModel);
 
         // Avisar por el emitter de la localización del conductor que el trayecto ha finalizado
         locationService.removeLocationEmitter(tripModel.getId());
@@ -196,6 +299,17 @@ public class SimpleTripService implements TripService {
         return tripRepository.findAll();
     }
 
+    @Override
+    public KeysetPageResponse<TripSummaryResponse> findSummaries(TripStatus status, Long passengerId, Long driverId,
+                                                                 Date from, Date to, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        List<TripSummaryResponse> rows = tripRepository.findSummaries(status, passengerId, driverId, from, to,
+                position.date(), position.id(), KeysetPagination.limit(size));
+
+        return KeysetPagination.page(rows, size, trip -> KeysetCursor.of(trip.date(), trip.id()));
+    }
+
     @Override
     public List<TripModel> findActiveTrips() {
         return tripRepository.findActiveTrips();
@@ -206,24 +320,35 @@ public class SimpleTripService implements TripService {
         return tripRepository.findByDriverId(driverId);
     }
 
+    @Override
+    public List<TripModel> findByPassenger(Long passengerId) {
+        return tripRepository.findByPassengerId(passengerId);
+    }
+
     @Override
     public Optional<TripModel> findActiveByDriver(Long driverId) {
-        return tripRepository.findActiveByDriverId(driverId);
+        // Solo se va a la base de datos si el registro tiene un trayecto activo para el conductor
+        return activeTripRegistry.findTripByDriver(driverId)
+                .flatMap(tripRepository::findById)
+                .filter(TripModel::isActive);
     }
 
     @Override
-    public List<TripModel> findUserHistory(Long userId) {
-        return tripRepository.findByPassengerId(userId);
+    public Optional<TripModel> findActiveByPassenger(Long passengerId) {
+        // Solo se va a la base de datos si el registro tiene un trayecto activo para el pasajero
+        return activeTripRegistry.findTripByPassenger(passengerId)
+                .flatMap(tripRepository::findById)
+                .filter(TripModel::isActive);
     }
 
     @Override
-    public List<TripModel> findDriverHistory(Long id) {
-        return tripRepository.findByDriverId(id);
+    public Optional<TripDetailResponse> findActiveDetailByPassenger(Long passengerId) {
+        return activeTripRegistry.findTripByPassenger(passengerId).flatMap(tripRepository::findActiveDetailById);
     }
 
     @Override
-    public Optional<TripModel> findActiveByPassenger(Long passengerId) {
-        return tripRepository.findActiveByPassengerId(passengerId);
+    public Optional<TripDetailResponse> findActiveDetailByDriver(Long driverId) {
+        return activeTripRegistry.findTripByDriver(driverId).flatMap(tripRepository::findActiveDetailById);
     }
 
     private void broadcastTripStatus(TripModel tripModel) {
@@ -261,7 +386,7 @@ public class SimpleTripService implements TripService {
         }
 
         // Obtener los conductores en duty
-        Queue<UserModel> drivers = dutyEmitters.keySet().stream()
+        List<UserModel> candidates = dutyEmitters.keySet().stream()
                 // Obtener los conductores por ID y filtra que existan
                 .map(userRepository::findById)
                 .filter(Optional::isPresent)
@@ -269,15 +394,20 @@ public class SimpleTripService implements TripService {
                 // Confirmar que el usuario es un conductor de tipo Chauffeur si o si
                 .filter(driver -> driver.getDriverData() != null && driver.getDriverData() instanceof ChauffeurDriverModelData)
                 // Filtrar por los conductores que no tienen un trayecto activo
-                .filter(driver -> findActiveByDriver(driver.getId()).isEmpty())
-                // Calcula la distancia de cada conductor al origen del trayecto y los mete en un mapa <Conductor, Distancia>
-                .map(driver -> new AbstractMap.SimpleEntry<>(driver, calculateDistanceToOrigin(driver, tripModel)))
+                .filter(driver -> !activeTripRegistry.hasActiveTripAsDriver(driver.getId()))
+                .toList();
+
+        // Calcula la distancia de cada conductor al origen del trayecto en una sola consulta
+        double[] distances = calculateDistancesToOrigin(candidates, tripModel);
+
+        Queue<UserModel> drivers = IntStream.range(0, candidates.size())
                 // Filtra los conductores que no tienen una distancia valida o que tengan MAX_VALUE, que se consideran descartados
-                .filter(entry -> entry.getValue() < Double.MAX_VALUE)
+                .filter(i -> distances[i] < Double.MAX_VALUE)
+                .boxed()
                 // Ordena por la distancia
-                .sorted(Comparator.comparingDouble(AbstractMap.SimpleEntry::getValue))
+                .sorted(Comparator.comparingDouble(i -> distances[i]))
                 // Devuelve solo los conductores, no necesito la distancia
-                .map(Map.Entry::getKey)
+                .map(candidates::get)
                 // Los mete dentro de un linked list para poder hacer un poll
                 .collect(Collectors.toCollection(LinkedList::new));
 
@@ -318,18 +448,26 @@ public class SimpleTripService implements TripService {
         }
 
         if (!driverAssigned) {
-            // Cambiamos el estado del trayecto a CANCELADO por no tener conductor
-            // y avisamos al emisor del estado del trayecto
+            // Se cancela solo si sigue pendiente y se devuelve el saldo al usuario en la misma transacción. Si el pasajero
+            // lo ha cancelado mientras tanto ya se le ha devuelto el saldo
+            boolean cancelled = Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(status -> {
+                if (tripRepository.cancelIfStatusIn(tripModel.getId(), EnumSet.of(TripStatus.PENDING)) == 0) {
+                    return false;
+                }
+
+                balanceService.deposit(tripModel.getPassenger().getId(), tripModel.getPrice());
+                return true;
+            }));
+            if (!cancelled) {
+                log.info("Trip {} is no longer pending, it is not cancelled due to no driver", tripModel.getId());
+                return;
+            }
+
+            // Avisamos al emisor de que se ha cancelado por no tener conductor, en la base de datos queda como CANCELADO
             tripModel.setStatus(TripStatus.CANCELLED_DUE_TO_NO_DRIVER);
             broadcastTripStatus(tripModel);
-
-            // Lo guardamos como cancelado
             tripModel.setStatus(TripStatus.CANCELLED);
-            tripRepository.save(tripModel);
-
-            // Añadir al usuario el saldo del trayecto
-            tripModel.getPassenger().deposit(tripModel.getPrice());
-            userRepository.save(tripModel.getPassenger());
+            activeTripRegistry.release(tripModel);
 
             log.info("Trip {} was cancelled due to no driver available", tripModel.getId());
             Optional.ofNullable(tripStatusEmitters.get(tripModel.getId())).ifPresent(SseEmitter::complete);
@@ -385,51 +523,61 @@ public class SimpleTripService implements TripService {
     }
 
     @Override
-    public SseEmitter streamDuty(UserModel userDetails) {
+    public SseEmitter streamDuty(Long driverId) {
         // Se crea el emitter y se le asigna un tiempo de vida de 8 horas (Si dura mas, el cliente deberá reconectar)
         // (No creo que dure jaja)
         SseEmitter emitter = new SseEmitter(TimeUnit.HOURS.toMillis(8));
 
-        emitter.onTimeout(() -> dutyEmitters.remove(userDetails.getId()));
-        emitter.onCompletion(() -> dutyEmitters.remove(userDetails.getId()));
+        emitter.onTimeout(() -> dutyEmitters.remove(driverId));
+        emitter.onCompletion(() -> dutyEmitters.remove(driverId));
         emitter.onError((e) -> {
-            tripStatusEmitters.remove(userDetails.getId());
+            tripStatusEmitters.remove(driverId);
         });
 
         // Si ya existe un emisor para el usuario, lo eliminamos y lo reemplazamos
-        if (dutyEmitters.containsKey(userDetails.getId())) {
-            dutyEmitters.get(userDetails.getId()).complete();
+        if (dutyEmitters.containsKey(driverId)) {
+            dutyEmitters.get(driverId).complete();
         }
 
-        dutyEmitters.put(userDetails.getId(), emitter);
+        dutyEmitters.put(driverId, emitter);
 
         return emitter;
     }
 
-    private double calculateDistanceToOrigin(UserModel driver, TripModel tripModel) {
-        Optional<UserLocation> driverLocation = locationService.findLatestLocation(driver.getId());
+    private double[] calculateDistancesToOrigin(List<UserModel> drivers, TripModel tripModel) {
+        double[] distances = new double[drivers.size()];
+        Arrays.fill(distances, Double.MAX_VALUE);
+
+        // Solo se tienen en cuenta los conductores que tienen una localización
+        List<Integer> located = new ArrayList<>();
+        List<LatLng> locations = new ArrayList<>();
+        for (int i = 0; i < drivers.size(); i++) {
+            Optional<UserLocation> driverLocation = locationService.findLatestLocation(drivers.get(i).getId());
 
-        double distance = Double.MAX_VALUE;
+            if (driverLocation.isPresent()) {
+                located.add(i);
+                locations.add(new LatLng(driverLocation.get().latitude(), driverLocation.get().longitude()));
+            }
+        }
+
+        if (locations.isEmpty()) {
+            return distances;
+        }
 
-        // Si el conductor tiene una localización, se calcula la distancia entre su localización y el origen del trayecto
-        if (driverLocation.isPresent()) {
-            // Se obtiene la dirección del conductor a partir de sus coordenadas
-            String driverAddress = geoCodeService.getAddressFromCoordinates(
-                    driverLocation.get().latitude(),
-                    driverLocation.get().longitude()
-            );
+        // Se calcula la distancia desde cada conductor hasta el origen del trayecto, que es el sentido en el que circula
+        double[] calculated = geoCodeService.calculateDistancesTo(locations, tripModel.getOriginCoordinates(), DistanceUnit.KILOMETERS);
 
-            // Se calcula la distancia entre la dirección del conductor y el origen del trayecto
-            distance = geoCodeService.calculateDistance(driverAddress, tripModel.getOriginAddress(), DistanceUnit.KILOMETERS);
+        for (int j = 0; j < calculated.length; j++) {
+            int i = located.get(j);
 
-            // Si la distancia es mayor a la preferida por el conductor, se descarta
-            ChauffeurDriverModelData driverData = (ChauffeurDriverModelData) driver.getDriverData();
-            if (distance > driverData.getPreferedDistance()) {
-                distance = Double.MAX_VALUE;
+            // Si la distancia es mayor a la preferida por el conductor o no es valida, se descarta
+            ChauffeurDriverModelData driverData = (ChauffeurDriverModelData) drivers.get(i).getDriverData();
+            if (calculated[j] >= 0 && calculated[j] <= driverData.getPreferedDistance()) {
+                distances[i] = calculated[j];
             }
         }
 
-        return distance;
+        return distances;
     }
 
     // Enviar un evento de keepalive a los emisores cada 10 segundos
@@ -0,0 +1,246 @@
+package es.iesmm.proyecto.drivehub.backend.service.trip.registry;
+
+import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
+import es.iesmm.proyecto.drivehub.backend.model.trip.active.ActiveTripEntry;
+import es.iesmm.proyecto.drivehub.backend.repository.TripRepository;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Registro de los trayectos activos (PENDING o ACCEPTED) por pasajero y por conductor.
+ *
+ * Las comprobaciones de si un usuario tiene un trayecto activo se hacen en cada endpoint de trayectos, al crear un
+ * trayecto, al asignar un conductor y por cada conductor al buscar uno, así que se responden desde memoria en vez de
+ * consultar la base de datos. Se actualiza en los mismos sitios donde cambia el estado de un trayecto y se reconstruye
+ * desde la base de datos al arrancar.
+ *
+ * Para que funcione con varias réplicas, los cambios se copian en dos hashes de Redis y se avisa al resto de réplicas
+ * por un canal, cada réplica vuelve a leer de Redis la entrada que ha cambiado.
+ *
+ * Redis es el que decide quién se queda con la entrada: el registro se hace con HSETNX, así de dos peticiones a la vez
+ * (en la misma réplica o en dos distintas) solo una puede registrar el trayecto del usuario. Si Redis no responde el
+ * error llega al que registra, que deshace su transacción.
+ */
+@Component
+@RequiredArgsConstructor
+public class ActiveTripRegistry implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveTripRegistry.class);
+
+    private static final String PASSENGER_KEY = "trip:active:passenger";
+    private static final String DRIVER_KEY = "trip:active:driver";
+    private static final ChannelTopic CHANGES_TOPIC = new ChannelTopic("trip:active:changes");
+
+    // Solo se cambia o se borra la entrada si sigue apuntando al trayecto indicado
+    private static final RedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('hset', KEYS[1], ARGV[1], ARGV[3]) + 1 else return 0 end",
+            Long.class
+    );
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hget', KEYS[1], ARGV[1]) == ARGV[2] then return redis.call('hdel', KEYS[1], ARGV[1]) else return 0 end",
+            Long.class
+    );
+
+    private final TripRepository tripRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<Long, Long> tripByPassenger = new ConcurrentHashMap<>();
+    private final Map<Long, Long> tripByDriver = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, CHANGES_TOPIC);
+    }
+
+    /*
+     * Al arrancar se carga el estado real desde la base de datos y se escribe en Redis, la base de datos es la que
+     * manda por si alguna réplica se paró sin poder actualizar Redis. No se borran los hashes porque el resto de
+     * réplicas siguen registrando trayectos mientras tanto, las entradas de trayectos que ya han terminado se
+     * sustituyen al registrar el siguiente trayecto del usuario.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ActiveTripEntry> activeTrips = tripRepository.findActiveTripEntries();
+
+        Map<Long, Long> passengers = new HashMap<>();
+        Map<Long, Long> drivers = new HashMap<>();
+        for (ActiveTripEntry entry : activeTrips) {
+            passengers.put(entry.passengerId(), entry.tripId());
+            if (entry.driverId() != null) {
+                drivers.put(entry.driverId(), entry.tripId());
+            }
+        }
+
+        tripByPassenger.clear();
+        tripByPassenger.putAll(passengers);
+        tripByDriver.clear();
+        tripByDriver.putAll(drivers);
+
+        try {
+            if (!passengers.isEmpty()) {
+                redisTemplate.opsForHash().putAll(PASSENGER_KEY, toRedisHash(passengers));
+            }
+            if (!drivers.isEmpty()) {
+                redisTemplate.opsForHash().putAll(DRIVER_KEY, toRedisHash(drivers));
+            }
+        } catch (Exception e) {
+            log.warn("Could not mirror active trips to Redis", e);
+        }
+
+        log.info("Active trip registry rebuilt with {} trips", activeTrips.size());
+    }
+
+    public Optional<Long> findTripByPassenger(Long passengerId) {
+        return Optional.ofNullable(passengerId).map(tripByPassenger::get);
+    }
+
+    public Optional<Long> findTripByDriver(Long driverId) {
+        return Optional.ofNullable(driverId).map(tripByDriver::get);
+    }
+
+    public boolean hasActiveTripAsPassenger(Long passengerId) {
+        return findTripByPassenger(passengerId).isPresent();
+    }
+
+    public boolean hasActiveTripAsDriver(Long driverId) {
+        return findTripByDriver(driverId).isPresent();
+    }
+
+    /**
+     * Registra el trayecto como activo para su pasajero y su conductor (si ya lo tiene asignado). Se debe llamar dentro
+     * de la transacción que guarda el trayecto, si se deshace se quitan las entradas que se han registrado aquí.
+     * @param trip Trayecto activo ya guardado
+     * @throws IllegalStateException Si el pasajero o el conductor ya tienen otro trayecto activo
+     */
+    public void register(TripModel trip) {
+        Long tripId = trip.getId();
+        Long passengerId = trip.getPassenger().getId();
+        Long driverId = trip.getDriver() != null ? trip.getDriver().getId() : null;
+
+        if (claim(tripByPassenger, PASSENGER_KEY, passengerId, tripId, "ACTIVE_TRIP_EXISTS")) {
+            TransactionCallbacks.afterRollback(() -> remove(tripByPassenger, PASSENGER_KEY, passengerId, tripId));
+        }
+
+        if (driverId != null && claim(tripByDriver, DRIVER_KEY, driverId, tripId, "DRIVER_HAS_ACTIVE_TRIP")) {
+            TransactionCallbacks.afterRollback(() -> remove(tripByDriver, DRIVER_KEY, driverId, tripId));
+        }
+    }
+
+    /**
+     * Elimina el trayecto del registro, se llama cuando el trayecto deja de estar activo
+     * @param trip Trayecto que ha terminado o se ha cancelado
+     */
+    public void release(TripModel trip) {
+        remove(tripByPassenger, PASSENGER_KEY, trip.getPassenger().getId(), trip.getId());
+
+        if (trip.getDriver() != null) {
+            remove(tripByDriver, DRIVER_KEY, trip.getDriver().getId(), trip.getId());
+        }
+    }
+
+    /*
+     * Registra la entrada solo si el usuario no tiene otra, devuelve si se ha registrado ahora (false si ya apuntaba al
+     * mismo trayecto). Si apunta a un trayecto que ya ha terminado (p.e. no se pudo quitar al terminar) se sustituye,
+     * si el trayecto todavía no está en la base de datos se toma como activo porque su transacción puede no haber
+     * terminado.
+     */
+    private boolean claim(Map<Long, Long> local, String key, Long userId, Long tripId, String error) {
+        String field = userId.toString();
+        String value = tripId.toString();
+
+        boolean claimed = Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(key, field, value));
+        if (!claimed) {
+            Object current = redisTemplate.opsForHash().get(key, field);
+            if (value.equals(current)) {
+                local.put(userId, tripId);
+                return false;
+            }
+
+            Preconditions.checkState(current != null && isFinished(current.toString()), error);
+            Long replaced = redisTemplate.execute(REPLACE_SCRIPT, List.of(key), field, current.toString(), value);
+            // Si otra petición ha cambiado la entrada entre medias, esa es la que se queda
+            Preconditions.checkState(replaced != null && replaced > 0, error);
+        }
+
+        local.put(userId, tripId);
+        redisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), key + ":" + userId);
+        return true;
+    }
+
+    private void remove(Map<Long, Long> local, String key, Long userId, Long tripId) {
+        // Solo se elimina si sigue apuntando al mismo trayecto, por si el usuario ya tiene otro
+        local.remove(userId, tripId);
+
+        redisTemplate.execute(REMOVE_SCRIPT, List.of(key), userId.toString(), tripId.toString());
+        redisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), key + ":" + userId);
+    }
+
+    private boolean isFinished(String tripId) {
+        return tripRepository.findById(Long.parseLong(tripId)).filter(trip -> !trip.isActive()).isPresent();
+    }
+
+    /*
+     * Aviso de otra réplica (o de esta misma) de que ha cambiado una entrada, se vuelve a leer de Redis.
+     * El mensaje tiene el formato "<hash>:<id del usuario>".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator < 0) {
+            return;
+        }
+
+        String key = body.substring(0, separator);
+        Map<Long, Long> local = switch (key) {
+            case PASSENGER_KEY -> tripByPassenger;
+            case DRIVER_KEY -> tripByDriver;
+            default -> null;
+        };
+
+        if (local == null) {
+            return;
+        }
+
+        try {
+            Long userId = Long.parseLong(body.substring(separator + 1));
+            Object tripId = redisTemplate.opsForHash().get(key, userId.toString());
+
+            if (tripId == null) {
+                local.remove(userId);
+            } else {
+                local.put(userId, Long.parseLong(tripId.toString()));
+            }
+        } catch (Exception e) {
+            log.warn("Could not refresh active trip entry {}", body, e);
+        }
+    }
+
+    private static Map<String, String> toRedisHash(Map<Long, Long> entries) {
+        Map<String, String> hash = new HashMap<>();
+        entries.forEach((userId, tripId) -> hash.put(userId.toString(), tripId.toString()));
+        return hash;
+    }
+}
@@ -2,11 +2,11 @@ package es.iesmm.proyecto.drivehub.backend.service.user;
 
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.DriverModificationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.UserModificationRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.DriverLicense;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -28,6 +28,34 @@ public interface UserService extends UserDetailsService {
 
     Optional<UserModel> findById(Long id);
 
+    /**
+     * Busca el usuario con todo lo que se devuelve en su perfil (licencias de conducir incluidas) en una sola consulta
+     * @param id ID del usuario
+     * @return Usuario con sus licencias cargadas
+     */
+    Optional<UserModel> findProfileById(Long id);
+
+    /**
+     * Busca el usuario autenticado por su ID, se usa la caché de usuarios autenticados
+     * @param id ID del usuario
+     * @return Usuario autenticado con sus roles y permisos
+     */
+    Optional<AuthenticatedUser> findAuthenticatedById(Long id);
+
+    /**
+     * Carga el usuario completo a partir del usuario autenticado, solo para los endpoints que lo necesitan
+     * @param userDetails Usuario autenticado
+     * @return Usuario completo
+     */
+    default UserModel findAuthenticated(UserDetails userDetails) {
+        if (userDetails instanceof UserModel userModel) {
+            return userModel;
+        }
+
+        return findById(((AuthenticatedUser) userDetails).getId())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+    }
+
     void delete(UserModel userModel);
 
     void deleteById(Long id);
@@ -38,7 +66,14 @@ public interface UserService extends UserDetailsService {
 
     List<UserModel> findAll();
 
-    Page<UserModel> findAllPaged(Pageable pageable);
+    /**
+     * Busca los usuarios paginados por cursor, ordenados por ID
+     * @param fleetId ID de la flota de los conductores, nulo para no filtrar
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página de usuarios con sus licencias y el cursor de la siguiente
+     */
+    KeysetPageResponse<UserModel> findPage(Long fleetId, String cursor, int size);
 
     void updateUserByRequest(UserModel user, UserModificationRequest request);
 
@@ -52,6 +87,8 @@ public interface UserService extends UserDetailsService {
 
     List<UserModel> findDriversByFleet(Long fleetId);
 
+    List<UserModel> findAdminsByFleet(Long fleetId);
+
     List<DriverLicense> findDriverLicensesByDriver(Long driverId);
 
     void addDriverLicenseToDriver(Long driverId, DriverLicense license);
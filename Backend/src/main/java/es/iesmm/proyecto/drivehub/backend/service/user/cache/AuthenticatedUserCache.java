@@ -0,0 +1,66 @@
+package es.iesmm.proyecto.drivehub.backend.service.user.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/*
+ * Caché de corta duración de los usuarios autenticados, se consulta en cada petición desde el filtro de JWT.
+ *
+ * No depende de ningún otro servicio para que el listener de las entidades la pueda usar sin dependencias circulares.
+ */
+@Component
+public class AuthenticatedUserCache {
+
+    private final Cache<Long, AuthenticatedUser> cache;
+
+    public AuthenticatedUserCache(
+            @Value("${auth.principal.cache-ttl:30s}") Duration timeToLive,
+            @Value("${auth.principal.cache-size:10000}") long maximumSize
+    ) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(timeToLive)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Obtiene el usuario autenticado de la caché o lo carga si no está
+     * @param userId ID del usuario
+     * @param loader Función que carga el usuario si no está en caché
+     * @return Usuario autenticado si existe
+     */
+    public Optional<AuthenticatedUser> get(Long userId, Function<Long, Optional<AuthenticatedUser>> loader) {
+        AuthenticatedUser cached = cache.getIfPresent(userId);
+
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        // Los usuarios que no existen no se guardan en caché
+        Optional<AuthenticatedUser> loaded = loader.apply(userId);
+        loaded.ifPresent(user -> cache.put(userId, user));
+
+        return loaded;
+    }
+
+    /**
+     * Elimina el usuario de la caché, se llama cuando el usuario cambia
+     * @param userId ID del usuario
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
@@ -0,0 +1,32 @@
+package es.iesmm.proyecto.drivehub.backend.service.user.cache;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.AdminModelData;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+ * Listener de las entidades de usuario que invalida la caché local de usuarios autenticados cuando se modifican los
+ * roles, los permisos o se elimina el usuario. Spring lo inyecta como bean al registrarlo con @EntityListeners.
+ *
+ * Se ejecuta antes de confirmar la transacción y solo en esta réplica, es solo un atajo: los servicios avisan a todas
+ * las réplicas con AuthenticatedUserEvictions después de confirmar.
+ */
+@Component
+@AllArgsConstructor
+public class AuthenticatedUserCacheListener {
+
+    private final AuthenticatedUserCache authenticatedUserCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChange(Object entity) {
+        if (entity instanceof UserModel user) {
+            authenticatedUserCache.invalidate(user.getId());
+        } else if (entity instanceof AdminModelData adminData && adminData.getUserModel() != null) {
+            authenticatedUserCache.invalidate(adminData.getUserModel().getId());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package es.iesmm.proyecto.drivehub.backend.service.user.cache;
+
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+ * Invalidación de la caché de usuarios autenticados en todas las réplicas.
+ *
+ * Todos los cambios de roles, permisos y flotas de los usuarios se avisan por un canal de Redis cuando se confirma la
+ * transacción, así ninguna réplica sigue aceptando los permisos antiguos ni vuelve a cargar el usuario antes de que el
+ * cambio esté guardado. El listener de las entidades solo adelanta la invalidación en la réplica que guarda el usuario.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserEvictions implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AuthenticatedUserEvictions.class);
+
+    private static final ChannelTopic EVICTIONS_TOPIC = new ChannelTopic("auth:principal:evictions");
+    private static final String SEPARATOR = ",";
+
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, EVICTIONS_TOPIC);
+    }
+
+    /**
+     * Elimina los usuarios de la caché de usuarios autenticados de todas las réplicas
+     * @param userIds IDs de los usuarios
+     */
+    public void evict(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+
+        // Primero se elimina en esta réplica, si Redis no está disponible al menos esta réplica no queda desactualizada
+        userIds.forEach(authenticatedUserCache::invalidate);
+
+        try {
+            redisTemplate.convertAndSend(
+                    EVICTIONS_TOPIC.getTopic(),
+                    userIds.stream().map(String::valueOf).collect(Collectors.joining(SEPARATOR))
+            );
+        } catch (Exception e) {
+            log.warn("Could not publish eviction of {} authenticated users", userIds.size(), e);
+        }
+    }
+
+    /**
+     * Elimina el usuario de la caché de todas las réplicas cuando se confirme la transacción actual
+     * @param userId ID del usuario
+     */
+    public void evictAfterCommit(Long userId) {
+        if (userId != null) {
+            evictAfterCommit(List.of(userId));
+        }
+    }
+
+    /**
+     * Elimina los usuarios de la caché de todas las réplicas cuando se confirme la transacción actual
+     * @param userIds IDs de los usuarios
+     */
+    public void evictAfterCommit(Collection<Long> userIds) {
+        TransactionCallbacks.afterCommit(() -> evict(userIds));
+    }
+
+    /*
+     * Aviso de otra réplica (o de esta misma), el mensaje son los IDs de los usuarios separados por comas.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        try {
+            for (String id : body.split(SEPARATOR)) {
+                authenticatedUserCache.invalidate(Long.parseLong(id));
+            }
+        } catch (Exception e) {
+            log.warn("Could not apply authenticated user eviction {}", body, e);
+        }
+    }
+}
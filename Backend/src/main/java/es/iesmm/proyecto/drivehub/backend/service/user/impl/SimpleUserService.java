@@ -1,26 +1,29 @@
 package es.iesmm.proyecto.drivehub.backend.service.user.impl;
 
+import com.google.common.base.Preconditions;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.DriverModificationRequest;
 import es.iesmm.proyecto.drivehub.backend.model.http.request.user.UserModificationRequest;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
 import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.admin.AdminModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
 import es.iesmm.proyecto.drivehub.backend.model.user.balance.type.BalanceChangeType;
-import es.iesmm.proyecto.drivehub.backend.model.user.driver.fleet.FleetDriverModelData;
 import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.DriverLicense;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
 import es.iesmm.proyecto.drivehub.backend.repository.UserRepository;
+import es.iesmm.proyecto.drivehub.backend.service.balance.BalanceService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserCache;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserEvictions;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetCursor;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetPagination;
 import lombok.AllArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -28,10 +31,17 @@ public class SimpleUserService implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AuthenticatedUserCache authenticatedUserCache;
+    private final AuthenticatedUserEvictions authenticatedUserEvictions;
+    private final BalanceService balanceService;
 
     @Override
     public UserModel save(UserModel userModel) {
-        return userRepository.save(userModel);
+        UserModel savedUser = userRepository.save(userModel);
+
+        // Los roles y permisos pueden haber cambiado, todas las réplicas lo vuelven a cargar al confirmar
+        authenticatedUserEvictions.evictAfterCommit(savedUser.getId());
+        return savedUser;
     }
 
     @Override
@@ -49,14 +59,34 @@ public class SimpleUserService implements UserService {
         return userRepository.findById(id);
     }
 
+    @Override
+    public Optional<UserModel> findProfileById(Long id) {
+        return userRepository.findProfileById(id);
+    }
+
+    @Override
+    public Optional<AuthenticatedUser> findAuthenticatedById(Long id) {
+        return authenticatedUserCache.get(id, this::loadAuthenticated);
+    }
+
+    private Optional<AuthenticatedUser> loadAuthenticated(Long id) {
+        // Solo los administradores tienen flotas, al resto no se les hace la segunda consulta
+        return userRepository.findAuthenticatedById(id)
+                .map(user -> user.hasRole(UserRoles.ADMIN)
+                        ? user.withFleetIds(userRepository.findFleetPermissionsById(id))
+                        : user);
+    }
+
     @Override
     public void delete(UserModel userModel) {
         userRepository.delete(userModel);
+        authenticatedUserEvictions.evictAfterCommit(userModel.getId());
     }
 
     @Override
     public void deleteById(Long id) {
         userRepository.deleteById(id);
+        authenticatedUserEvictions.evictAfterCommit(id);
     }
 
     @Override
@@ -80,8 +110,14 @@ public class SimpleUserService implements UserService {
     }
 
     @Override
-    public Page<UserModel> findAllPaged(Pageable pageable) {
-        return userRepository.findAll(pageable);
+    public KeysetPageResponse<UserModel> findPage(Long fleetId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        // Primero los IDs de la página y después los usuarios con sus licencias
+        List<Long> ids = userRepository.findIdPage(fleetId, position.id(), KeysetPagination.limit(size));
+        List<UserModel> rows = ids.isEmpty() ? List.of() : userRepository.findAllWithLicensesByIdIn(ids);
+
+        return KeysetPagination.page(rows, size, user -> KeysetCursor.of(user.getId()));
     }
 
     @Override
@@ -144,23 +180,20 @@ public class SimpleUserService implements UserService {
 
     @Override
     public void updateUserBalance(Long id, double amount, BalanceChangeType type) {
-        UserModel user = findById(id).orElseThrow(() -> new IllegalArgumentException("USER_NOT_FOUND"));
+        if (!userRepository.existsById(id)) {
+            throw new IllegalArgumentException("USER_NOT_FOUND");
+        }
 
-        // Realizar el cambio de saldo
+        // Realizar el cambio de saldo, se hace directamente en la base de datos sin cargar el usuario
         if (type == BalanceChangeType.DEPOSIT) {
             // Depositar el saldo
-            user.deposit(amount);
+            balanceService.deposit(id, amount);
         } else if (type == BalanceChangeType.WITHDRAW) {
-            // Retirar el saldo
-            if (user.canAfford(amount)) {
-                user.withdraw(amount);
-            } else {
-                // Si el usuario no puede pagar la cantidad, lanzar una excepción para indicar que no puede pagar
+            // Retirar el saldo, si el usuario no puede pagar la cantidad, lanzar una excepción para indicar que no puede pagar
+            if (!balanceService.withdraw(id, amount)) {
                 throw new IllegalStateException("USER_CANNOT_AFFORD_AMOUNT");
             }
         }
-
-        save(user);
     }
 
     @Override
@@ -190,18 +223,16 @@ public class SimpleUserService implements UserService {
 
     @Override
     public List<UserModel> findDriversByFleet(Long fleetId) {
-        return userRepository.findAll().stream()
-                // Filtrar por los conductores
-                .filter(user -> user.getDriverData() != null)
-                // Filtrar que el conductor sea de flota
-                .filter(user -> user.getDriverData() instanceof FleetDriverModelData)
-                // Filtrar por la flota
-                .filter(user -> {
-                    FleetDriverModelData driverData = (FleetDriverModelData) user.getDriverData();
-                    return driverData.getFleet() != null && Objects.equals(driverData.getFleet().getId(), fleetId);
-                })
-                // Meter en una lista
-                .collect(Collectors.toList());
+        Preconditions.checkNotNull(fleetId, "Fleet ID cannot be null");
+
+        return userRepository.findDriversByFleetId(fleetId);
+    }
+
+    @Override
+    public List<UserModel> findAdminsByFleet(Long fleetId) {
+        Preconditions.checkNotNull(fleetId, "Fleet ID cannot be null");
+
+        return userRepository.findAdminsByFleetId(fleetId);
     }
 
     @Override
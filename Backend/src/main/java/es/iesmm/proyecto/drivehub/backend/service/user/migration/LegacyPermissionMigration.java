@@ -0,0 +1,223 @@
+package es.iesmm.proyecto.drivehub.backend.service.user.migration;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import es.iesmm.proyecto.drivehub.backend.util.converter.EnumBitmaskConverter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/*
+ * Migración de los roles y permisos guardados como texto separado por ";" a las columnas de máscara de bits y a la
+ * tabla ADMINISTRADOR_FLOTA.
+ *
+ * Se ejecuta al arrancar, después de que Hibernate cree las columnas nuevas y antes de que el servidor acepte
+ * peticiones. Solo hace algo mientras existan las columnas antiguas:
+ *
+ * - La copia se hace en una transacción que empieza insertando la fila de la migración en MIGRACIONES. Esa fila es el
+ *   cerrojo: si arrancan varias réplicas a la vez, el INSERT de las demás espera a que termine la primera y falla por
+ *   la clave repetida, así que solo una copia los datos. Si la primera se corta, su transacción se deshace entera y la
+ *   siguiente réplica la vuelve a hacer.
+ * - Las columnas antiguas no se borran aquí, solo se dejan como opcionales para que se pueda insertar sin rellenarlas.
+ *   Se borrarán en una versión posterior, cuando ninguna réplica de la versión anterior las siga leyendo.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class LegacyPermissionMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacyPermissionMigration.class);
+
+    private static final String MIGRATION_NAME = "LEGACY_PERMISSIONS";
+
+    private static final String SPLIT_CHAR = ";";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    public void migrate() {
+        boolean legacyRoles = hasColumn("USUARIOS", "ROLES");
+        boolean legacyPermissions = hasColumn("ADMINISTRADOR", "GENERAL_PERMISSIONS");
+        boolean legacyFleets = hasColumn("ADMINISTRADOR", "FLOTAS_CON_ACCESO");
+
+        if (!legacyRoles && !legacyPermissions && !legacyFleets) {
+            return;
+        }
+
+        createMigrationTable();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (!claim()) {
+                log.debug("Legacy permissions were already migrated");
+                return;
+            }
+
+            if (legacyRoles) {
+                migrateRoles();
+            }
+            if (legacyPermissions) {
+                migratePermissions();
+            }
+            if (legacyFleets) {
+                migrateFleets();
+            }
+        });
+
+        // Las columnas antiguas ya no las escribe nadie y "roles" es NOT NULL, se quita para que se pueda insertar
+        if (legacyRoles) {
+            dropNotNull("USUARIOS", "ROLES");
+        }
+        if (legacyPermissions) {
+            dropNotNull("ADMINISTRADOR", "GENERAL_PERMISSIONS");
+        }
+        if (legacyFleets) {
+            dropNotNull("ADMINISTRADOR", "FLOTAS_CON_ACCESO");
+        }
+    }
+
+    // Espera a que termine la réplica que tenga la fila sin confirmar, devuelve falso si ya se ha hecho la migración
+    private boolean claim() {
+        try {
+            jdbcTemplate.update("INSERT INTO MIGRACIONES (name, applied_date) VALUES (?, ?)", MIGRATION_NAME, new Timestamp(System.currentTimeMillis()));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void migrateRoles() {
+        List<Object[]> updates = jdbcTemplate.query(
+                "SELECT id, roles FROM USUARIOS",
+                (rs, row) -> new Object[]{EnumBitmaskConverter.toMask(parse(UserRoles.class, rs.getString("roles"))), rs.getLong("id")}
+        );
+
+        batchUpdate("UPDATE USUARIOS SET roles_mask = ? WHERE id = ?", updates);
+        log.info("Migrated the roles of {} users to the bitmask column", updates.size());
+    }
+
+    private void migratePermissions() {
+        List<Object[]> updates = jdbcTemplate.query(
+                "SELECT id, general_permissions FROM ADMINISTRADOR",
+                (rs, row) -> new Object[]{EnumBitmaskConverter.toMask(parse(AdminPermission.class, rs.getString("general_permissions"))), rs.getLong("id")}
+        );
+
+        batchUpdate("UPDATE ADMINISTRADOR SET general_permissions_mask = ? WHERE id = ?", updates);
+        log.info("Migrated the permissions of {} admins to the bitmask column", updates.size());
+    }
+
+    private void migrateFleets() {
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, flotas_con_acceso FROM ADMINISTRADOR", (RowCallbackHandler) rs -> {
+            long adminId = rs.getLong("id");
+            String fleets = rs.getString("flotas_con_acceso");
+            if (fleets == null) {
+                return;
+            }
+
+            Arrays.stream(fleets.split(SPLIT_CHAR))
+                    .map(String::trim)
+                    .filter(value -> !value.isEmpty())
+                    .distinct()
+                    .forEach(value -> rows.add(new Object[]{adminId, Long.parseLong(value)}));
+        });
+
+        batchUpdate("INSERT INTO ADMINISTRADOR_FLOTA (admin_id, fleet_id) VALUES (?, ?)", rows);
+        log.info("Migrated {} fleet permissions to ADMINISTRADOR_FLOTA", rows.size());
+    }
+
+    private void batchUpdate(String sql, List<Object[]> arguments) {
+        for (int from = 0; from < arguments.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, arguments.subList(from, Math.min(from + BATCH_SIZE, arguments.size())));
+        }
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> parse(Class<E> type, String value) {
+        EnumSet<E> result = EnumSet.noneOf(type);
+        if (value == null) {
+            return result;
+        }
+
+        for (String name : value.split(SPLIT_CHAR)) {
+            if (name.isBlank()) {
+                continue;
+            }
+
+            try {
+                result.add(Enum.valueOf(type, name.trim()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring unknown {} {}", type.getSimpleName(), name);
+            }
+        }
+
+        return result;
+    }
+
+    private boolean hasColumn(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+                return columns.next();
+            }
+        }));
+    }
+
+    private boolean isNullable(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), connection.getSchema(), table, column)) {
+                return columns.next() && columns.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+            }
+        }));
+    }
+
+    private void createMigrationTable() {
+        boolean exists = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), connection.getSchema(), "MIGRACIONES", null)) {
+                return tables.next();
+            }
+        }));
+        if (exists) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("CREATE TABLE MIGRACIONES (name VARCHAR2(100) PRIMARY KEY, applied_date TIMESTAMP NOT NULL)");
+        } catch (Exception e) {
+            // Otra réplica que arrancaba a la vez ya la ha creado, si no el INSERT de la migración fallará
+            log.warn("Could not create the MIGRACIONES table", e);
+        }
+    }
+
+    private void dropNotNull(String table, String column) {
+        if (isNullable(table, column)) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.execute("ALTER TABLE " + table + " MODIFY (" + column + " NULL)");
+        } catch (Exception e) {
+            // Otra réplica que arrancaba a la vez ya lo ha cambiado
+            log.warn("Could not make legacy column {}.{} nullable", table, column, e);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package es.iesmm.proyecto.drivehub.backend.service.vehicle;
 
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleCatalogResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogQuery;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,8 +14,60 @@ public interface VehicleService {
 
     List<RentCar> findAll();
 
+    /**
+     * Busca los vehículos paginados por cursor, ordenados por ID
+     * @param available Si el vehículo está disponible o no, nulo para no filtrar
+     * @param cursor Cursor de la página anterior, nulo para la primera página
+     * @param size Tamaño de la página
+     * @return Página de vehículos con el cursor de la siguiente
+     */
+    KeysetPageResponse<RentCar> findPage(Boolean available, String cursor, int size);
+
+    /**
+     * Busca en el catálogo de vehículos de alquiler desde el índice en memoria
+     * @param query Filtros, orden y página
+     * @return Página de vehículos con el total y las facetas de los resultados
+     */
+    VehicleCatalogResponse searchCatalog(CatalogQuery query);
+
     Optional<RentCar> findById(Long vehicleId);
 
+    /**
+     * Busca el vehículo y bloquea su fila hasta el final de la transacción actual
+     * @param vehicleId ID del vehículo
+     * @return Vehículo bloqueado si existe
+     */
+    Optional<RentCar> findLockedById(Long vehicleId);
+
+    /**
+     * Busca los vehículos por sus IDs
+     * @param vehicleIds IDs de los vehículos
+     * @return Vehículos encontrados ordenados por ID
+     */
+    List<RentCar> findAllById(Collection<Long> vehicleIds);
+
+    /**
+     * Comprueba en el índice en memoria si el vehículo está disponible, sin consultar la base de datos
+     * @param vehicleId ID del vehículo
+     * @return Si el vehículo existe y no está alquilado
+     */
+    boolean isAvailable(Long vehicleId);
+
+    /**
+     * Marca el vehículo como alquilado por el usuario si nadie lo tiene alquilado, de forma atómica
+     * @param vehicle Vehículo a alquilar
+     * @param userId ID del usuario que lo alquila
+     * @return Si se ha podido marcar, falso si ya estaba alquilado
+     */
+    boolean markRented(RentCar vehicle, Long userId);
+
+    /**
+     * Marca el vehículo como disponible si lo tenía alquilado el usuario
+     * @param vehicle Vehículo devuelto
+     * @param userId ID del usuario que lo devuelve
+     */
+    void markReturned(RentCar vehicle, Long userId);
+
     RentCar save(RentCar vehicle);
 
     Optional<RentCar> findByPlate(String plate);
@@ -0,0 +1,322 @@
+package es.iesmm.proyecto.drivehub.backend.service.vehicle.catalog;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.rent.CatalogSort;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogEntry;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogQuery;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.PriceBand;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.service.vehicle.index.VehicleAvailabilityIndex;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/*
+ * Índice en memoria del catálogo de vehículos de alquiler guardado por columnas.
+ *
+ * Cada campo filtrable es un array con una posición por vehículo (ordenados por ID), las marcas, modelos y colores se
+ * guardan como códigos de un diccionario para comparar enteros en vez de cadenas. Una búsqueda recorre los arrays una
+ * sola vez, calcula las facetas sobre los vehículos que cumplen los filtros y solo se cargan de la base de datos (o de la
+ * caché de segundo nivel) los vehículos de la página pedida.
+ *
+ * El catálogo cambia muy poco, así que cada alta, cambio o baja vuelve a cargar el índice entero y lo reemplaza de una
+ * vez. El resto de réplicas recargan su índice al recibir el aviso por Redis. Las recargas se retrasan un poco y se
+ * juntan, así muchos cambios seguidos (p.e. un alta masiva de vehículos) solo cargan el índice una o dos veces.
+ */
+@Component
+public class VehicleCatalogIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleCatalogIndex.class);
+
+    private static final ChannelTopic CHANGES_TOPIC = new ChannelTopic("vehicle:catalog:changes");
+
+    private final VehicleRepository vehicleRepository;
+    private final VehicleAvailabilityIndex availabilityIndex;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long refreshDelay;
+
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    private volatile CatalogColumns columns = CatalogColumns.of(List.of());
+
+    public VehicleCatalogIndex(
+            VehicleRepository vehicleRepository,
+            VehicleAvailabilityIndex availabilityIndex,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${vehicle.catalog.refresh-delay:500}") long refreshDelay
+    ) {
+        this.vehicleRepository = vehicleRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.refreshDelay = refreshDelay;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, CHANGES_TOPIC);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        columns = CatalogColumns.of(vehicleRepository.findCatalogEntries());
+        log.info("Vehicle catalog index rebuilt with {} vehicles", columns.ids.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Vuelve a cargar el índice cuando se confirme la transacción actual y avisa al resto de réplicas
+     */
+    public void refresh() {
+        TransactionCallbacks.afterCommit(() -> {
+            scheduleRebuild();
+
+            try {
+                redisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), "refresh");
+            } catch (Exception e) {
+                log.warn("Could not publish vehicle catalog refresh", e);
+            }
+        });
+    }
+
+    // El aviso de esta misma réplica también llega aquí, se junta con la recarga que ya está pendiente
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        scheduleRebuild();
+    }
+
+    /*
+     * Solo hay una recarga pendiente a la vez, los avisos que llegan mientras tanto no programan otra. La marca se
+     * quita antes de leer la base de datos, así un cambio que llegue durante la lectura programa una recarga más.
+     */
+    private void scheduleRebuild() {
+        if (!refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        refreshExecutor.schedule(() -> {
+            refreshPending.set(false);
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.warn("Could not refresh vehicle catalog index", e);
+            }
+        }, refreshDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Busca en el catálogo con los filtros de la consulta
+     * @param query Filtros, orden y página
+     * @return IDs de la página pedida, total de resultados y facetas
+     */
+    public CatalogResult search(CatalogQuery query) {
+        CatalogColumns snapshot = columns;
+
+        // Si el valor no está en el diccionario ningún vehículo lo tiene
+        int brand = snapshot.brands.code(query.brand());
+        int model = snapshot.models.code(query.model());
+        int color = snapshot.colors.code(query.color());
+        if (brand == Dictionary.MISSING || model == Dictionary.MISSING || color == Dictionary.MISSING) {
+            return CatalogResult.empty();
+        }
+
+        double minPrice = query.minPrice() != null ? query.minPrice() : Double.NEGATIVE_INFINITY;
+        double maxPrice = query.maxPrice() != null ? query.maxPrice() : Double.POSITIVE_INFINITY;
+        int license = query.license() != null ? query.license().ordinal() : Dictionary.ANY;
+        int priceBand = query.priceBand() != null ? query.priceBand().ordinal() : Dictionary.ANY;
+
+        int[] matches = new int[snapshot.ids.length];
+        int count = 0;
+
+        int[] brandFacet = new int[snapshot.brands.size()];
+        int[] priceBandFacet = new int[PriceBand.values().length];
+        int[] licenseFacet = new int[DriverLicenseType.values().length];
+
+        for (int row = 0; row < snapshot.ids.length; row++) {
+            if ((brand != Dictionary.ANY && snapshot.brand[row] != brand)
+                    || (model != Dictionary.ANY && snapshot.model[row] != model)
+                    || (color != Dictionary.ANY && snapshot.color[row] != color)
+                    || (license != Dictionary.ANY && snapshot.license[row] != license)
+                    || (priceBand != Dictionary.ANY && snapshot.priceBand[row] != priceBand)
+                    || snapshot.price[row] < minPrice || snapshot.price[row] > maxPrice
+                    || (query.available() != null && availabilityIndex.isAvailable(snapshot.ids[row]) != query.available())) {
+                continue;
+            }
+
+            matches[count++] = row;
+            brandFacet[snapshot.brand[row]]++;
+            priceBandFacet[snapshot.priceBand[row]]++;
+            licenseFacet[snapshot.license[row]]++;
+        }
+
+        // Orden y página, el orden por ID es el de los arrays y no hace falta ordenar
+        Integer[] rows = IntStream.of(matches).limit(count).boxed().toArray(Integer[]::new);
+        Comparator<Integer> comparator = comparator(snapshot, query.sort());
+        if (comparator != null) {
+            Arrays.sort(rows, comparator);
+        }
+
+        // El desplazamiento se calcula en long, con una página muy alta el producto no cabe en un int
+        int from = (int) Math.min((long) query.page() * query.size(), count);
+        int to = (int) Math.min((long) from + query.size(), count);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(snapshot.ids[rows[i]]);
+        }
+
+        return new CatalogResult(
+                pageIds,
+                count,
+                facet(brandFacet, snapshot.brands::label),
+                facet(priceBandFacet, code -> PriceBand.values()[code].name()),
+                facet(licenseFacet, code -> DriverLicenseType.values()[code].name())
+        );
+    }
+
+    private static Comparator<Integer> comparator(CatalogColumns snapshot, CatalogSort sort) {
+        if (sort == null) {
+            return null;
+        }
+
+        // Las filas están ordenadas por ID, a igualdad se desempata por la fila
+        Comparator<Integer> byId = Comparator.naturalOrder();
+
+        return switch (sort) {
+            case ID -> null;
+            case PRICE_ASC -> Comparator.<Integer>comparingDouble(row -> snapshot.price[row]).thenComparing(byId);
+            case PRICE_DESC -> Comparator.<Integer>comparingDouble(row -> -snapshot.price[row]).thenComparing(byId);
+            case BRAND -> Comparator.<Integer, String>comparing(row -> snapshot.brands.label(snapshot.brand[row])).thenComparing(byId);
+        };
+    }
+
+    // Solo se devuelven los valores con algún vehículo, en el orden de los códigos
+    private static Map<String, Integer> facet(int[] counts, IntFunction<String> label) {
+        Map<String, Integer> facet = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                facet.put(label.apply(code), counts[code]);
+            }
+        }
+        return facet;
+    }
+
+    public record CatalogResult(
+            List<Long> pageIds,
+            int total,
+            Map<String, Integer> brands,
+            Map<String, Integer> priceBands,
+            Map<String, Integer> licenses
+    ) {
+
+        static CatalogResult empty() {
+            return new CatalogResult(List.of(), 0, Map.of(), Map.of(), Map.of());
+        }
+    }
+
+    /*
+     * Columnas del índice, inmutables una vez creadas. Las búsquedas usan siempre la misma instancia aunque se recargue
+     * el índice a la vez.
+     */
+    private static final class CatalogColumns {
+
+        private final long[] ids;
+        private final int[] brand;
+        private final int[] model;
+        private final int[] color;
+        private final double[] price;
+        private final byte[] priceBand;
+        private final byte[] license;
+
+        private final Dictionary brands = new Dictionary();
+        private final Dictionary models = new Dictionary();
+        private final Dictionary colors = new Dictionary();
+
+        private CatalogColumns(List<CatalogEntry> entries) {
+            int size = entries.size();
+            ids = new long[size];
+            brand = new int[size];
+            model = new int[size];
+            color = new int[size];
+            price = new double[size];
+            priceBand = new byte[size];
+            license = new byte[size];
+
+            for (int row = 0; row < size; row++) {
+                CatalogEntry entry = entries.get(row);
+                ids[row] = entry.id();
+                brand[row] = brands.add(entry.brand());
+                model[row] = models.add(entry.model());
+                color[row] = colors.add(entry.color());
+                price[row] = entry.pricePerHour();
+                priceBand[row] = (byte) PriceBand.of(entry.pricePerHour()).ordinal();
+                license[row] = (byte) entry.requiredLicense().ordinal();
+            }
+        }
+
+        static CatalogColumns of(List<CatalogEntry> entries) {
+            return new CatalogColumns(entries);
+        }
+    }
+
+    /*
+     * Diccionario de valores de texto a códigos, sin distinguir mayúsculas. Se guarda la primera forma escrita de cada
+     * valor para mostrarla en las facetas.
+     */
+    private static final class Dictionary {
+
+        static final int ANY = -1;
+        static final int MISSING = -2;
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> labels = new ArrayList<>();
+
+        int add(String value) {
+            String label = value != null ? value.trim() : "";
+            return codes.computeIfAbsent(label.toLowerCase(Locale.ROOT), key -> {
+                labels.add(label);
+                return labels.size() - 1;
+            });
+        }
+
+        int code(String value) {
+            if (value == null || value.isBlank()) {
+                return ANY;
+            }
+            return codes.getOrDefault(value.trim().toLowerCase(Locale.ROOT), MISSING);
+        }
+
+        String label(int code) {
+            return labels.get(code);
+        }
+
+        int size() {
+            return labels.size();
+        }
+    }
+}
@@ -1,24 +1,39 @@
 package es.iesmm.proyecto.drivehub.backend.service.vehicle.impl;
 
 import com.google.common.base.Preconditions;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.rent.VehicleCatalogResponse;
 import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogQuery;
 import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.service.cache.ReferenceCacheService;
+import es.iesmm.proyecto.drivehub.backend.service.rent.reservation.ReservationIndex;
 import es.iesmm.proyecto.drivehub.backend.service.vehicle.VehicleService;
+import es.iesmm.proyecto.drivehub.backend.service.vehicle.catalog.VehicleCatalogIndex;
+import es.iesmm.proyecto.drivehub.backend.service.vehicle.index.VehicleAvailabilityIndex;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetCursor;
+import es.iesmm.proyecto.drivehub.backend.util.pagination.KeysetPagination;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 public class SimpleVehicleService implements VehicleService {
 
     private final VehicleRepository vehicleRepository;
+    private final ReferenceCacheService referenceCacheService;
+    private final VehicleAvailabilityIndex availabilityIndex;
+    private final ReservationIndex reservationIndex;
+    private final VehicleCatalogIndex catalogIndex;
 
     @Override
     public List<RentCar> findAvailableVehicles() {
-        return findAll().stream().filter(RentCar::isAvailable).toList();
+        return vehicleRepository.findAvailable();
     }
 
     @Override
@@ -26,11 +41,89 @@ public class SimpleVehicleService implements VehicleService {
         return vehicleRepository.findAll();
     }
 
+    @Override
+    public KeysetPageResponse<RentCar> findPage(Boolean available, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        List<RentCar> rows = vehicleRepository.findPage(available, position.id(), KeysetPagination.limit(size));
+
+        return KeysetPagination.page(rows, size, vehicle -> KeysetCursor.of(vehicle.getId()));
+    }
+
     @Override
     public Optional<RentCar> findById(Long vehicleId) {
         return vehicleRepository.findById(vehicleId);
     }
 
+    @Override
+    public VehicleCatalogResponse searchCatalog(CatalogQuery query) {
+        Preconditions.checkArgument(query.page() >= 0, "INVALID_PAGE");
+        int size = KeysetPagination.pageSize(query.size());
+
+        VehicleCatalogIndex.CatalogResult result = catalogIndex.search(new CatalogQuery(
+                query.brand(), query.model(), query.color(), query.minPrice(), query.maxPrice(),
+                query.priceBand(), query.license(), query.available(), query.sort(), query.page(), size
+        ));
+
+        // Solo se cargan los vehículos de la página, en el orden del índice
+        Map<Long, RentCar> vehicles = vehicleRepository.findAllById(result.pageIds()).stream()
+                .collect(Collectors.toMap(RentCar::getId, Function.identity()));
+        List<RentCar> items = result.pageIds().stream()
+                .map(vehicles::get)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new VehicleCatalogResponse(items, result.total(), query.page(), size,
+                result.brands(), result.priceBands(), result.licenses());
+    }
+
+    @Override
+    public Optional<RentCar> findLockedById(Long vehicleId) {
+        return vehicleRepository.findLockedById(vehicleId);
+    }
+
+    @Override
+    public List<RentCar> findAllById(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return List.of();
+        }
+
+        return vehicleRepository.findAllById(vehicleIds).stream()
+                .sorted(Comparator.comparing(RentCar::getId))
+                .toList();
+    }
+
+    @Override
+    public boolean isAvailable(Long vehicleId) {
+        return availabilityIndex.isAvailable(vehicleId);
+    }
+
+    @Override
+    @Transactional
+    public boolean markRented(RentCar vehicle, Long userId) {
+        if (vehicleRepository.markRented(vehicle.getId(), userId) == 0) {
+            return false;
+        }
+
+        // La entidad cargada no se entera del UPDATE, se actualiza a mano para devolverla con el estado correcto
+        vehicle.setRentedBy(userId);
+
+        // El índice y la caché se actualizan al confirmar la transacción, si se deshace el vehículo sigue libre
+        availabilityIndex.update(vehicle.getId(), false);
+        referenceCacheService.evict(RentCar.class, vehicle.getId());
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void markReturned(RentCar vehicle, Long userId) {
+        if (vehicleRepository.markReturned(vehicle.getId(), userId) > 0) {
+            vehicle.setRentedBy(null);
+            availabilityIndex.update(vehicle.getId(), true);
+            referenceCacheService.evict(RentCar.class, vehicle.getId());
+        }
+    }
+
     @Override
     public Optional<RentCar> findByPlate(String plate) {
         return vehicleRepository.findByPlate(plate);
@@ -47,7 +140,11 @@ public class SimpleVehicleService implements VehicleService {
         Preconditions.checkNotNull(vehicle, "The vehicle cannot be null");
         Preconditions.checkState(findByPlate(vehicle.getPlate()).isEmpty(), "PLATE_ALREADY_EXISTS");
 
-        return vehicleRepository.save(vehicle);
+        RentCar savedVehicle = vehicleRepository.save(vehicle);
+        availabilityIndex.update(savedVehicle.getId(), true);
+        reservationIndex.refreshVehicle(savedVehicle.getId());
+        catalogIndex.refresh();
+        return savedVehicle;
     }
 
     @Override
@@ -67,8 +164,12 @@ public class SimpleVehicleService implements VehicleService {
         vehicleToUpdate.setFechaMatriculacion(vehicle.getFechaMatriculacion());
         vehicleToUpdate.setImageUrl(vehicle.getImageUrl());
         vehicleToUpdate.setPrecioHora(vehicle.getPrecioHora());
+        vehicleToUpdate.setRequiredLicense(vehicle.getRequiredLicense());
 
-        return vehicleRepository.save(vehicleToUpdate);
+        RentCar savedVehicle = vehicleRepository.save(vehicleToUpdate);
+        referenceCacheService.evict(RentCar.class, id);
+        catalogIndex.refresh();
+        return savedVehicle;
     }
 
     @Override
@@ -78,5 +179,9 @@ public class SimpleVehicleService implements VehicleService {
         Preconditions.checkArgument(vehicleRepository.existsById(id), "VEHICLE_NOT_FOUND");
 
         vehicleRepository.deleteById(id);
+        availabilityIndex.update(id, false);
+        reservationIndex.refreshVehicle(id);
+        catalogIndex.refresh();
+        referenceCacheService.evict(RentCar.class, id);
     }
 }
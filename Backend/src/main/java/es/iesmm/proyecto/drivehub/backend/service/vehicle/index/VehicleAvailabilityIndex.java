@@ -0,0 +1,156 @@
+package es.iesmm.proyecto.drivehub.backend.service.vehicle.index;
+
+import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.util.transaction.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Índice en memoria de los vehículos de alquiler disponibles, un bit por ID de vehículo.
+ *
+ * La columna rented_by de RentCar es la que manda, se reserva y se libera con un UPDATE condicional en la base de
+ * datos. Este índice solo sirve para filtrar los listados sin consultas, al alquilar se usa siempre el UPDATE. Se
+ * actualiza cuando se confirma la transacción del alquiler o la devolución y se avisa al resto de réplicas por un canal
+ * de Redis. Si se pierde algún aviso (p.e. Redis no estaba disponible) se corrige al recargarlo cada cierto tiempo.
+ */
+@Component
+@RequiredArgsConstructor
+public class VehicleAvailabilityIndex implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleAvailabilityIndex.class);
+
+    private static final ChannelTopic CHANGES_TOPIC = new ChannelTopic("vehicle:availability:changes");
+
+    private final VehicleRepository vehicleRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final BitSet available = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, CHANGES_TOPIC);
+    }
+
+    /*
+     * Al arrancar se rellena la columna rented_by de los alquileres activos que haya de antes y se carga el índice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int backfilled = vehicleRepository.backfillRentedBy();
+        if (backfilled > 0) {
+            log.info("Marked {} vehicles with an active rent as rented", backfilled);
+        }
+
+        int count = reload();
+        log.info("Vehicle availability index rebuilt with {} available vehicles", count);
+    }
+
+    // Vuelve a cargar el índice desde rented_by, corrige los cambios de otras réplicas que no hayan llegado por Redis
+    @Scheduled(fixedDelayString = "${vehicle.availability.reload-interval:300000}", initialDelayString = "${vehicle.availability.reload-interval:300000}")
+    public void reconcile() {
+        int count = reload();
+        log.debug("Vehicle availability index reloaded with {} available vehicles", count);
+    }
+
+    private int reload() {
+        List<Long> availableIds = vehicleRepository.findAvailableIds();
+
+        BitSet loaded = new BitSet();
+        availableIds.forEach(id -> loaded.set(Math.toIntExact(id)));
+
+        lock.writeLock().lock();
+        try {
+            available.clear();
+            available.or(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return availableIds.size();
+    }
+
+    public boolean isAvailable(Long vehicleId) {
+        if (vehicleId == null || vehicleId < 0 || vehicleId > Integer.MAX_VALUE) {
+            return false;
+        }
+
+        lock.readLock().lock();
+        try {
+            return available.get(vehicleId.intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countAvailable() {
+        lock.readLock().lock();
+        try {
+            return available.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marca el vehículo como disponible o no disponible cuando se confirme la transacción actual
+     * @param vehicleId ID del vehículo
+     * @param isAvailable Si el vehículo queda disponible
+     */
+    public void update(Long vehicleId, boolean isAvailable) {
+        TransactionCallbacks.afterCommit(() -> {
+            setLocal(vehicleId, isAvailable);
+
+            try {
+                redisTemplate.convertAndSend(CHANGES_TOPIC.getTopic(), vehicleId + ":" + (isAvailable ? 1 : 0));
+            } catch (Exception e) {
+                log.warn("Could not publish availability of vehicle {}", vehicleId, e);
+            }
+        });
+    }
+
+    /*
+     * Aviso de otra réplica (o de esta misma), el mensaje tiene el formato "<id del vehículo>:<1 si está disponible>".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+
+        try {
+            setLocal(Long.parseLong(body.substring(0, separator)), "1".equals(body.substring(separator + 1)));
+        } catch (Exception e) {
+            log.warn("Could not apply vehicle availability change {}", body, e);
+        }
+    }
+
+    private void setLocal(Long vehicleId, boolean isAvailable) {
+        lock.writeLock().lock();
+        try {
+            available.set(Math.toIntExact(vehicleId), isAvailable);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
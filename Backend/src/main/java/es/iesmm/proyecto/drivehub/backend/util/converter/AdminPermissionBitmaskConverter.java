@@ -0,0 +1,12 @@
+package es.iesmm.proyecto.drivehub.backend.util.converter;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
+import jakarta.persistence.Converter;
+
+@Converter
+public class AdminPermissionBitmaskConverter extends EnumBitmaskConverter<AdminPermission> {
+
+    public AdminPermissionBitmaskConverter() {
+        super(AdminPermission.class);
+    }
+}
@@ -0,0 +1,66 @@
+package es.iesmm.proyecto.drivehub.backend.util.converter;
+
+import jakarta.persistence.AttributeConverter;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/*
+ * Guarda un conjunto de valores de un enum como una máscara de bits en una columna numérica, el bit de cada valor es
+ * su ordinal. Por eso los valores de los enums que se guardan así nunca se pueden reordenar ni borrar, solo añadir al
+ * final (hasta 64 valores).
+ *
+ * Al leer no se parsea ningún texto, se recorren los bits activos sobre la tabla de valores del enum que se guarda una
+ * sola vez, y se devuelve un EnumSet modificable.
+ */
+public abstract class EnumBitmaskConverter<E extends Enum<E>> implements AttributeConverter<Set<E>, Long> {
+
+    private final Class<E> type;
+    private final E[] constants;
+
+    protected EnumBitmaskConverter(Class<E> type) {
+        this.type = type;
+        this.constants = type.getEnumConstants();
+
+        if (constants.length > Long.SIZE) {
+            throw new IllegalStateException(type.getSimpleName() + " has more than " + Long.SIZE + " values");
+        }
+    }
+
+    @Override
+    public Long convertToDatabaseColumn(Set<E> values) {
+        return toMask(values);
+    }
+
+    @Override
+    public Set<E> convertToEntityAttribute(Long mask) {
+        EnumSet<E> values = EnumSet.noneOf(type);
+
+        long remaining = mask != null ? mask : 0;
+        while (remaining != 0) {
+            int ordinal = Long.numberOfTrailingZeros(remaining);
+            // Los bits de valores que ya no existen se ignoran
+            if (ordinal < constants.length) {
+                values.add(constants[ordinal]);
+            }
+            remaining &= remaining - 1;
+        }
+
+        return values;
+    }
+
+    public static <E extends Enum<E>> long toMask(Collection<E> values) {
+        long mask = 0;
+
+        if (values != null) {
+            for (E value : values) {
+                if (value != null) {
+                    mask |= 1L << value.ordinal();
+                }
+            }
+        }
+
+        return mask;
+    }
+}
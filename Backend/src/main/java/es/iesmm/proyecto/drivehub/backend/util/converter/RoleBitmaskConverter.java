@@ -0,0 +1,12 @@
+package es.iesmm.proyecto.drivehub.backend.util.converter;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import jakarta.persistence.Converter;
+
+@Converter
+public class RoleBitmaskConverter extends EnumBitmaskConverter<UserRoles> {
+
+    public RoleBitmaskConverter() {
+        super(UserRoles.class);
+    }
+}
@@ -0,0 +1,75 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Exportación en CSV, las columnas se indican con su nombre y la función que saca el valor de la fila. Las fechas se
+ * escriben en milisegundos igual que en la API.
+ */
+public class CsvExportWriter<T> implements ExportWriter<T> {
+
+    private final BufferedWriter writer;
+    private final List<Column<T>> columns;
+
+    public CsvExportWriter(OutputStream out, List<Column<T>> columns) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.columns = columns;
+
+        // Cabecera con los nombres de las columnas
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(columns.get(i).name()));
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(format(columns.get(i).value().apply(row)));
+        }
+        writer.write('\n');
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date date) {
+            return String.valueOf(date.getTime());
+        }
+        return escape(value.toString());
+    }
+
+    private static String escape(String value) {
+        // Solo se entrecomillan los valores que lo necesitan, las comillas se duplican
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    public record Column<T>(String name, Function<T, Object> value) {
+
+        public static <T> Column<T> of(String name, Function<T, Object> value) {
+            return new Column<>(name, value);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Lee un CSV fila a fila con el mismo formato que escribe CsvExportWriter: separado por comas, los valores con comas,
+ * comillas o saltos de línea entrecomillados y las comillas duplicadas. Solo guarda la fila actual.
+ */
+public class CsvRowReader {
+
+    private final Reader reader;
+    private int next = -2;
+    private long line = 1;
+    private long rowLine;
+
+    public CsvRowReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Lee la siguiente fila
+     * @return Valores de la fila, nulo si no hay más filas
+     * @throws IOException Si hay un error al leer
+     */
+    public List<String> next() throws IOException {
+        if (peek() < 0) {
+            return null;
+        }
+
+        rowLine = line;
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            int c = read();
+
+            if (c < 0) {
+                values.add(value.toString());
+                return values;
+            }
+
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        value.append((char) read());
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) c);
+            }
+        }
+    }
+
+    // Línea del fichero en la que empieza la última fila leída
+    public long getRowLine() {
+        return rowLine;
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = reader.read();
+        }
+        return next;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        next = -2;
+
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+}
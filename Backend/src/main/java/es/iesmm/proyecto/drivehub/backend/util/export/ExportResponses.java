@@ -0,0 +1,70 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.export.ExportFormat;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Respuestas de las exportaciones, el cuerpo se escribe directamente en la salida mientras se leen las filas de la
+ * base de datos (en el hilo asíncrono de Spring MVC), opcionalmente comprimido con gzip.
+ *
+ * Pueden durar varios minutos, así que el tiempo límite se indica en cada respuesta en lugar de cambiar el de todas las
+ * peticiones asíncronas del servidor.
+ */
+@Component
+public class ExportResponses {
+
+    private final Duration timeout;
+
+    public ExportResponses(@Value("${export.timeout:30m}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public WebAsyncTask<Void> stream(HttpServletResponse response, String name, ExportFormat format, boolean gzip, ExportTask task) {
+        String fileName = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+
+        response.setContentType(gzip ? "application/gzip" : format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString());
+
+        return write(response, out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                task.export(gzipOut);
+                // Solo se termina el gzip, la salida la cierra el servidor
+                gzipOut.finish();
+            } else {
+                task.export(out);
+            }
+        });
+    }
+
+    /**
+     * Escribe el cuerpo de la respuesta en el hilo asíncrono con el tiempo límite de las exportaciones, las cabeceras
+     * se deben indicar antes
+     * @param response Respuesta en la que se escribe
+     * @param task Escritura del cuerpo
+     * @return Tarea asíncrona para devolver desde el controlador
+     */
+    public WebAsyncTask<Void> write(HttpServletResponse response, ExportTask task) {
+        return new WebAsyncTask<>(timeout.toMillis(), () -> {
+            OutputStream out = response.getOutputStream();
+            task.export(out);
+            out.flush();
+            return null;
+        });
+    }
+
+    @FunctionalInterface
+    public interface ExportTask {
+        void export(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,13 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/*
+ * Escribe las filas de una exportación una a una en la salida, nunca guarda las filas ya escritas. Al cerrarlo se
+ * vacía el buffer pero no se cierra la salida, de eso se encarga quien la ha abierto.
+ */
+public interface ExportWriter<T> extends Closeable {
+
+    void write(T row) throws IOException;
+}
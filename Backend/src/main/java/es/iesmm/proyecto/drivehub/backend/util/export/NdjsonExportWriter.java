@@ -0,0 +1,32 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/*
+ * Exportación en NDJSON, cada fila se serializa con el ObjectMapper de la aplicación (mismo formato que la API) y se
+ * separa con un salto de línea.
+ */
+public class NdjsonExportWriter<T> implements ExportWriter<T> {
+
+    private final JsonGenerator generator;
+
+    public NdjsonExportWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public void write(T row) throws IOException {
+        generator.writeObject(row);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -2,6 +2,7 @@ package es.iesmm.proyecto.drivehub.backend.util.filter;
 
 import es.iesmm.proyecto.drivehub.backend.service.jwt.JwtService;
 import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -37,14 +38,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Si el token es válido, se procesa, si no, se ignora
         if (token != null) {
             try {
-                // Extraer el ID del usuario del token
-                Long userId = jwtService.extractUserId(token);
+                // Extraer el ID del usuario del token, el token solo se procesa una vez
+                Claims claims = jwtService.extractClaims(token);
+                Long userId = claims.get("userId", Long.class);
 
                 // Si el ID del usuario es válido y no hay una autenticación ya establecida, se establece una nueva.
                 if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     userService
-                            .findById(userId) // Buscar el usuario por ID
-                            .filter(user -> jwtService.isValid(token, user)) // Comprobar si el token es válido
+                            .findAuthenticatedById(userId) // Buscar el usuario autenticado por ID, sin cargar el usuario completo
+                            .filter(user -> jwtService.isValid(claims, user)) // Comprobar si el token es válido
                             .ifPresent(user -> {
                                 // Si el token es válido, se establece la autenticación
                                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,54 @@
+package es.iesmm.proyecto.drivehub.backend.util.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/*
+ * Posición de la última fila devuelta en una página, la siguiente página empieza justo después de ella. La fecha es
+ * nula en los listados que solo se ordenan por ID.
+ *
+ * Se envía al cliente como un texto opaco (Base64 de "milisegundos:id") para que no dependa del formato interno.
+ */
+public record KeysetCursor(Date date, Long id) {
+
+    private static final String SEPARATOR = ":";
+
+    public static KeysetCursor of(Date date, Long id) {
+        return new KeysetCursor(date, id);
+    }
+
+    public static KeysetCursor of(Long id) {
+        return new KeysetCursor(null, id);
+    }
+
+    public String encode() {
+        String value = (date != null ? date.getTime() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Convierte el cursor recibido del cliente, si no se ha enviado ninguno se devuelve el cursor de la primera página
+     * @param cursor Cursor codificado, puede ser nulo
+     * @return Cursor decodificado, con la fecha y el ID nulos si es la primera página
+     * @throws IllegalArgumentException Si el cursor no es válido
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new KeysetCursor(null, null);
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            String date = value.substring(0, separator);
+
+            return new KeysetCursor(
+                    date.isEmpty() ? null : new Date(Long.parseLong(date)),
+                    Long.parseLong(value.substring(separator + 1))
+            );
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("INVALID_CURSOR", e);
+        }
+    }
+}
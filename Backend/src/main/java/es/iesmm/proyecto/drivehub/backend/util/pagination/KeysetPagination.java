@@ -0,0 +1,42 @@
+package es.iesmm.proyecto.drivehub.backend.util.pagination;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.response.common.KeysetPageResponse;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/*
+ * Utilidades para los listados paginados por cursor (keyset).
+ *
+ * Las consultas filtran por la posición del cursor en vez de saltar filas con OFFSET, así cualquier página cuesta lo
+ * mismo que la primera. Siempre se pide una fila más del tamaño de la página para saber si hay más sin hacer un COUNT.
+ */
+public final class KeysetPagination {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private KeysetPagination() {
+    }
+
+    public static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, pageSize(size) + 1);
+    }
+
+    public static <T> KeysetPageResponse<T> page(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        int pageSize = pageSize(size);
+
+        if (rows.size() <= pageSize) {
+            return new KeysetPageResponse<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPageResponse<>(List.copyOf(items), cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
@@ -0,0 +1,115 @@
+package es.iesmm.proyecto.drivehub.backend.util.pagination;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/*
+ * Consulta JPQL de los listados con filtros opcionales, solo se añaden las condiciones de los filtros indicados.
+ *
+ * Con condiciones del tipo "(:x IS NULL OR columna = :x)" en una consulta fija el plan es el mismo para cualquier
+ * combinación de filtros y la base de datos no puede usar el índice de la columna filtrada, ni el de la ordenación para
+ * saltar hasta el cursor. Aquí cada combinación de filtros tiene su propia consulta (y su propio plan).
+ */
+public final class KeysetQuery {
+
+    private final StringBuilder jpql;
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+    private boolean hasCondition;
+    private String orderBy;
+
+    private KeysetQuery(String select) {
+        this.jpql = new StringBuilder(select);
+    }
+
+    public static KeysetQuery select(String select) {
+        return new KeysetQuery(select);
+    }
+
+    /**
+     * Añade una condición que siempre se aplica
+     * @param condition Condición JPQL
+     * @return La misma consulta
+     */
+    public KeysetQuery where(String condition) {
+        jpql.append(hasCondition ? " AND " : " WHERE ").append(condition);
+        hasCondition = true;
+        return this;
+    }
+
+    /**
+     * Añade la condición solo si se ha indicado el valor del filtro
+     * @param condition Condición JPQL con el parámetro
+     * @param parameter Nombre del parámetro en la condición
+     * @param value Valor del filtro, si es nulo no se añade la condición
+     * @return La misma consulta
+     */
+    public KeysetQuery where(String condition, String parameter, Object value) {
+        if (value == null) {
+            return this;
+        }
+
+        parameters.put(parameter, value);
+        return where(condition);
+    }
+
+    /**
+     * Filtra las filas que van después del cursor en un listado ordenado por (fecha DESC, ID DESC). Se escribe como un
+     * rango sobre la fecha para que la base de datos pueda empezar a leer el índice directamente en el cursor.
+     * @param date Expresión de la fecha
+     * @param id Expresión del ID
+     * @param cursorDate Fecha del cursor, nula en la primera página
+     * @param cursorId ID del cursor
+     * @return La misma consulta
+     */
+    public KeysetQuery before(String date, String id, Date cursorDate, Long cursorId) {
+        if (cursorDate == null || cursorId == null) {
+            return this;
+        }
+
+        parameters.put("cursorDate", cursorDate);
+        parameters.put("cursorId", cursorId);
+        return where(date + " <= :cursorDate AND NOT (" + date + " = :cursorDate AND " + id + " >= :cursorId)");
+    }
+
+    /**
+     * Filtra las filas que van después del cursor en un listado ordenado solo por ID ascendente
+     * @param id Expresión del ID
+     * @param cursorId ID del cursor, nulo en la primera página
+     * @return La misma consulta
+     */
+    public KeysetQuery after(String id, Long cursorId) {
+        return where(id + " > :cursorId", "cursorId", cursorId);
+    }
+
+    public KeysetQuery orderBy(String orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+
+    public <T> List<T> list(EntityManager entityManager, Class<T> type, Pageable pageable) {
+        TypedQuery<T> query = create(entityManager, type);
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return query.getResultList();
+    }
+
+    // Solo dentro de una transacción, las filas se leen de la base de datos por bloques de "fetchSize"
+    public <T> Stream<T> stream(EntityManager entityManager, Class<T> type, int fetchSize) {
+        return create(entityManager, type)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private <T> TypedQuery<T> create(EntityManager entityManager, Class<T> type) {
+        String value = orderBy != null ? jpql + " ORDER BY " + orderBy : jpql.toString();
+
+        TypedQuery<T> query = entityManager.createQuery(value, type);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
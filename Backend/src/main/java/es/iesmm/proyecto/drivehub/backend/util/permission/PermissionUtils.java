@@ -1,7 +1,7 @@
 package es.iesmm.proyecto.drivehub.backend.util.permission;
 
-import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
 import es.iesmm.proyecto.drivehub.backend.model.user.admin.permisison.AdminPermission;
+import es.iesmm.proyecto.drivehub.backend.model.user.principal.AuthenticatedUser;
 import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
 
 public class PermissionUtils {
@@ -10,36 +10,33 @@ public class PermissionUtils {
      * Clase de utilidades para comprobar permisos de usuario y roles
      */
 
-    public static boolean hasRole(UserModel userModel, String role) {
-        return hasRole(userModel, UserRoles.valueOf(role));
+    public static boolean hasRole(AuthenticatedUser user, String role) {
+        return hasRole(user, UserRoles.valueOf(role));
     }
 
-    public static boolean hasRole(UserModel userModel, UserRoles role) {
-        return userModel.getRoles().contains(role);
+    public static boolean hasRole(AuthenticatedUser user, UserRoles role) {
+        return user.hasRole(role);
     }
 
-    public static boolean hasAdminPermission(UserModel userModel, String authority) {
-        return hasAdminPermission(userModel, AdminPermission.valueOf(authority));
+    public static boolean hasAdminPermission(AuthenticatedUser user, String authority) {
+        return hasAdminPermission(user, AdminPermission.valueOf(authority));
     }
 
-    public static boolean hasAdminPermission(UserModel userModel, AdminPermission authority) {
-        return  userModel.getAuthorities().stream().anyMatch(r -> r.getAuthority().equals(authority.name()));
+    public static boolean hasAdminPermission(AuthenticatedUser user, AdminPermission authority) {
+        return user.hasPermission(authority);
     }
 
-    public static boolean hasFleetPermission(UserModel userModel, Long fleetId) {
-        if (fleetId == null) { // If the fleetId is null, the user does not have permission
-            return false;
-        }
-
-        return userModel.getAuthorities().stream().anyMatch(r -> r.getAuthority().equals("FLEET_" + fleetId));
+    public static boolean hasFleetPermission(AuthenticatedUser user, Long fleetId) {
+        // Si el fleetId es nulo, el usuario no tiene permiso
+        return user.hasFleetAccess(fleetId);
     }
 
-    public static boolean hasFleetPermissionAndGrant(UserModel userModel, Long fleetId, AdminPermission authority) {
-        return hasFleetPermission(userModel, fleetId) && hasAdminPermission(userModel, authority);
+    public static boolean hasFleetPermissionAndGrant(AuthenticatedUser user, Long fleetId, AdminPermission authority) {
+        return hasFleetPermission(user, fleetId) && hasAdminPermission(user, authority);
     }
 
-    public static boolean hasFleetPermissionAndGrant(UserModel userModel, Long fleetId, String authority) {
-        return hasFleetPermissionAndGrant(userModel, fleetId, AdminPermission.valueOf(authority));
+    public static boolean hasFleetPermissionAndGrant(AuthenticatedUser user, Long fleetId, String authority) {
+        return hasFleetPermissionAndGrant(user, fleetId, AdminPermission.valueOf(authority));
     }
 
 }
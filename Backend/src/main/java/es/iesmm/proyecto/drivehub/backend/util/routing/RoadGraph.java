@@ -0,0 +1,214 @@
+package es.iesmm.proyecto.drivehub.backend.util.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Grafo de carreteras de solo lectura, mapeado en memoria desde un fichero binario compacto.
+ *
+ * El fichero se genera a partir de un extracto de OpenStreetMap ya preprocesado (ver RoadGraphWriter) y tiene el
+ * siguiente formato, todo en little endian:
+ *
+ *  - Cabecera: magic (int), versión (int), nodos (int), aristas (int), filas de la rejilla (int),
+ *    columnas de la rejilla (int), latitud mínima (double), longitud mínima (double), tamaño de celda en grados
+ *    (double) y velocidad máxima en m/s (float).
+ *  - Coordenadas de los nodos: 2 ints por nodo con la latitud y la longitud en microgrados.
+ *  - Índice de aristas (CSR): nodos + 1 ints, las aristas del nodo n van de offsets[n] a offsets[n + 1].
+ *  - Aristas: 3 ints por arista con el nodo destino, la distancia en metros y la duración en décimas de segundo.
+ *  - Rejilla espacial: filas * columnas + 1 ints, los nodos están ordenados por celda y la celda c contiene los
+ *    nodos de cells[c] a cells[c + 1].
+ *
+ * Al estar mapeado en memoria el arranque es inmediato, el sistema operativo carga las páginas según se usan.
+ */
+public final class RoadGraph {
+
+    static final int MAGIC = 0x44485247; // "DHRG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 6 * Integer.BYTES + 3 * Double.BYTES + Float.BYTES;
+
+    static final double COORDINATE_SCALE = 1_000_000d;
+    static final double DURATION_SCALE = 10d;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000d;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int gridRows;
+    private final int gridCols;
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double cellSize;
+    private final float maxSpeed;
+
+    private final IntBuffer coordinates;
+    private final IntBuffer offsets;
+    private final IntBuffer edges;
+    private final IntBuffer cells;
+
+    private RoadGraph(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("INVALID_ROAD_GRAPH_FILE");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("UNSUPPORTED_ROAD_GRAPH_VERSION");
+        }
+
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+        this.gridRows = buffer.getInt(16);
+        this.gridCols = buffer.getInt(20);
+        this.minLatitude = buffer.getDouble(24);
+        this.minLongitude = buffer.getDouble(32);
+        this.cellSize = buffer.getDouble(40);
+        this.maxSpeed = buffer.getFloat(48);
+
+        // Se crean vistas de cada sección sobre el mismo buffer, no se copia nada
+        int position = HEADER_BYTES;
+        this.coordinates = section(buffer, position, 2 * nodeCount);
+        position += 2 * nodeCount * Integer.BYTES;
+        this.offsets = section(buffer, position, nodeCount + 1);
+        position += (nodeCount + 1) * Integer.BYTES;
+        this.edges = section(buffer, position, 3 * edgeCount);
+        position += 3 * edgeCount * Integer.BYTES;
+        this.cells = section(buffer, position, gridRows * gridCols + 1);
+    }
+
+    private static IntBuffer section(ByteBuffer buffer, int position, int length) {
+        return buffer.duplicate()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .position(position)
+                .limit(position + length * Integer.BYTES)
+                .slice()
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .asIntBuffer();
+    }
+
+    public static RoadGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("ROAD_GRAPH_FILE_TOO_LARGE");
+            }
+
+            // El mapeo sigue siendo válido aunque se cierre el canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RoadGraph(buffer);
+        }
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public float maxSpeed() {
+        return maxSpeed;
+    }
+
+    public double latitude(int node) {
+        return coordinates.get(2 * node) / COORDINATE_SCALE;
+    }
+
+    public double longitude(int node) {
+        return coordinates.get(2 * node + 1) / COORDINATE_SCALE;
+    }
+
+    public int firstEdge(int node) {
+        return offsets.get(node);
+    }
+
+    public int lastEdge(int node) {
+        return offsets.get(node + 1);
+    }
+
+    public int edgeTarget(int edge) {
+        return edges.get(3 * edge);
+    }
+
+    public int edgeDistance(int edge) {
+        return edges.get(3 * edge + 1);
+    }
+
+    public double edgeDuration(int edge) {
+        return edges.get(3 * edge + 2) / DURATION_SCALE;
+    }
+
+    /*
+     * Busca el nodo más cercano a las coordenadas recorriendo la rejilla en anillos alrededor de la celda,
+     * devuelve -1 si no hay ningún nodo a menos de la distancia máxima indicada.
+     */
+    public int nearestNode(double latitude, double longitude, double maxDistanceMeters) {
+        int row = clamp((int) Math.floor((latitude - minLatitude) / cellSize), gridRows);
+        int col = clamp((int) Math.floor((longitude - minLongitude) / cellSize), gridCols);
+
+        int maxRing = Math.max(gridRows, gridCols);
+        int best = -1;
+        double bestDistance = Double.MAX_VALUE;
+        int foundAtRing = -1;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            // Cuando se encuentra un nodo, se revisa un anillo más por si hay uno más cercano en la celda vecina
+            if (foundAtRing >= 0 && ring > foundAtRing + 1) {
+                break;
+            }
+
+            for (int r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= gridRows) {
+                    continue;
+                }
+
+                for (int c = col - ring; c <= col + ring; c++) {
+                    // Solo el borde del anillo, el interior ya se ha revisado
+                    if (c < 0 || c >= gridCols || (Math.abs(r - row) != ring && Math.abs(c - col) != ring)) {
+                        continue;
+                    }
+
+                    int cell = r * gridCols + c;
+                    for (int node = cells.get(cell); node < cells.get(cell + 1); node++) {
+                        double distance = distance(latitude, longitude, latitude(node), longitude(node));
+
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            best = node;
+                        }
+                    }
+                }
+            }
+
+            if (best >= 0 && foundAtRing < 0) {
+                foundAtRing = ring;
+            }
+        }
+
+        return bestDistance <= maxDistanceMeters ? best : -1;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    /*
+     * Distancia en línea recta (haversine) entre dos coordenadas, en metros.
+     */
+    public static double distance(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double deltaLatitude = Math.toRadians(toLatitude - fromLatitude);
+        double deltaLongitude = Math.toRadians(toLongitude - fromLongitude);
+
+        double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2)
+                + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+                * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
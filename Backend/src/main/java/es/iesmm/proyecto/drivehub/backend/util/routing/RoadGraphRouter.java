@@ -0,0 +1,422 @@
+package es.iesmm.proyecto.drivehub.backend.util.routing;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Calcula rutas sobre un RoadGraph minimizando la distancia.
+ *
+ * Las consultas punto a punto usan A* con la distancia en línea recta como heurística (es admisible porque ninguna
+ * carretera es más corta que la línea recta). Las consultas de uno a muchos usan un único Dijkstra desde el origen que
+ * se detiene en cuanto ha llegado a todos los destinos, y las de muchos a uno lo mismo desde el destino pero siguiendo
+ * las aristas al revés, así las calles de un solo sentido se recorren en el sentido en el que se circula.
+ *
+ * El estado de las búsquedas (unos 28 bytes por nodo) sale de un conjunto limitado que se reutiliza: como mucho hay
+ * "maxSearches" a la vez y el resto espera a que termine alguna, así la memoria no crece con el número de hilos.
+ */
+public class RoadGraphRouter {
+
+    // Margen para que el redondeo a metros de las aristas no haga la heurística inadmisible
+    private static final double HEURISTIC_FACTOR = 0.999;
+
+    private final RoadGraph graph;
+    private final BlockingQueue<SearchState> states;
+    private final AtomicInteger createdStates = new AtomicInteger();
+    private final int maxSearches;
+
+    // Aristas invertidas, se construyen la primera vez que hacen falta
+    private volatile ReverseEdges reverseEdges;
+
+    public RoadGraphRouter(RoadGraph graph, int maxSearches) {
+        if (maxSearches <= 0) {
+            throw new IllegalArgumentException("INVALID_MAX_SEARCHES");
+        }
+
+        this.graph = graph;
+        this.maxSearches = maxSearches;
+        this.states = new ArrayBlockingQueue<>(maxSearches);
+    }
+
+    public RoadGraph getGraph() {
+        return graph;
+    }
+
+    public RouteResult route(int source, int target) {
+        if (source < 0 || target < 0) {
+            return RouteResult.UNREACHABLE;
+        }
+
+        if (source == target) {
+            return new RouteResult(0, 0);
+        }
+
+        SearchState state = acquire();
+        try {
+            return route(state, source, target);
+        } finally {
+            release(state);
+        }
+    }
+
+    private RouteResult route(SearchState state, int source, int target) {
+        double targetLatitude = graph.latitude(target);
+        double targetLongitude = graph.longitude(target);
+
+        state.reach(source, 0, 0);
+        state.heap.push(source, heuristic(source, targetLatitude, targetLongitude));
+
+        while (!state.heap.isEmpty()) {
+            int node = state.heap.pop();
+
+            if (state.isSettled(node)) {
+                continue;
+            }
+
+            if (node == target) {
+                return new RouteResult(state.distance[node], state.duration[node]);
+            }
+
+            state.settle(node);
+            relax(state, node, targetLatitude, targetLongitude, true);
+        }
+
+        return RouteResult.UNREACHABLE;
+    }
+
+    /*
+     * Rutas desde un origen a varios destinos con un solo recorrido del grafo.
+     */
+    public RouteResult[] routeOneToMany(int source, int[] targets) {
+        return routeAll(source, targets, false);
+    }
+
+    /*
+     * Rutas desde varios orígenes a un mismo destino (p.e. de cada conductor a la recogida) con un solo recorrido del
+     * grafo desde el destino por las aristas invertidas.
+     */
+    public RouteResult[] routeManyToOne(int[] sources, int target) {
+        return routeAll(target, sources, true);
+    }
+
+    private RouteResult[] routeAll(int start, int[] nodes, boolean reverse) {
+        RouteResult[] results = new RouteResult[nodes.length];
+        Arrays.fill(results, RouteResult.UNREACHABLE);
+
+        if (start < 0) {
+            return results;
+        }
+
+        ReverseEdges reversed = reverse ? reverseEdges() : null;
+        SearchState state = acquire();
+        try {
+            // Se marcan los nodos buscados para saber cuándo se ha llegado a todos
+            int remaining = 0;
+            for (int node : nodes) {
+                if (node >= 0 && !state.isTarget(node)) {
+                    state.markTarget(node);
+                    remaining++;
+                }
+            }
+
+            state.reach(start, 0, 0);
+            state.heap.push(start, 0);
+
+            while (!state.heap.isEmpty() && remaining > 0) {
+                int node = state.heap.pop();
+
+                if (state.isSettled(node)) {
+                    continue;
+                }
+
+                state.settle(node);
+
+                if (state.isTarget(node)) {
+                    remaining--;
+                }
+
+                if (reversed != null) {
+                    relaxReverse(state, reversed, node);
+                } else {
+                    relax(state, node, 0, 0, false);
+                }
+            }
+
+            for (int i = 0; i < nodes.length; i++) {
+                int node = nodes[i];
+
+                if (node >= 0 && state.isSettled(node)) {
+                    results[i] = new RouteResult(state.distance[node], state.duration[node]);
+                }
+            }
+
+            return results;
+        } finally {
+            release(state);
+        }
+    }
+
+    private void relax(SearchState state, int node, double targetLatitude, double targetLongitude, boolean useHeuristic) {
+        double nodeDistance = state.distance[node];
+        double nodeDuration = state.duration[node];
+
+        for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+            int next = graph.edgeTarget(edge);
+
+            if (state.isSettled(next)) {
+                continue;
+            }
+
+            double distance = nodeDistance + graph.edgeDistance(edge);
+
+            if (!state.isReached(next) || distance < state.distance[next]) {
+                state.reach(next, distance, nodeDuration + graph.edgeDuration(edge));
+
+                double priority = useHeuristic ? distance + heuristic(next, targetLatitude, targetLongitude) : distance;
+                state.heap.push(next, priority);
+            }
+        }
+    }
+
+    // Igual que relax pero con las aristas que llegan al nodo, la distancia es la del nodo al inicio de la búsqueda
+    private void relaxReverse(SearchState state, ReverseEdges reversed, int node) {
+        double nodeDistance = state.distance[node];
+        double nodeDuration = state.duration[node];
+
+        for (int i = reversed.offsets[node]; i < reversed.offsets[node + 1]; i++) {
+            int edge = reversed.edges[i];
+            int previous = reversed.sources[i];
+
+            if (state.isSettled(previous)) {
+                continue;
+            }
+
+            double distance = nodeDistance + graph.edgeDistance(edge);
+
+            if (!state.isReached(previous) || distance < state.distance[previous]) {
+                state.reach(previous, distance, nodeDuration + graph.edgeDuration(edge));
+                state.heap.push(previous, distance);
+            }
+        }
+    }
+
+    private ReverseEdges reverseEdges() {
+        ReverseEdges result = reverseEdges;
+        if (result == null) {
+            synchronized (this) {
+                result = reverseEdges;
+                if (result == null) {
+                    result = ReverseEdges.build(graph);
+                    reverseEdges = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private SearchState acquire() {
+        SearchState state = states.poll();
+
+        if (state == null) {
+            if (createdStates.incrementAndGet() <= maxSearches) {
+                state = new SearchState(graph.nodeCount());
+            } else {
+                // Ya hay tantas búsquedas como el máximo, se espera a que termine una
+                createdStates.decrementAndGet();
+                try {
+                    state = states.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("ROUTING_INTERRUPTED", e);
+                }
+            }
+        }
+
+        state.reset();
+        return state;
+    }
+
+    private void release(SearchState state) {
+        states.offer(state);
+    }
+
+    private double heuristic(int node, double targetLatitude, double targetLongitude) {
+        return HEURISTIC_FACTOR * RoadGraph.distance(graph.latitude(node), graph.longitude(node), targetLatitude, targetLongitude);
+    }
+
+    /*
+     * Índice CSR de las aristas por nodo destino: las aristas que llegan al nodo n van de offsets[n] a offsets[n + 1],
+     * con el ID de la arista original (para su distancia y duración) y el nodo del que sale.
+     */
+    private static final class ReverseEdges {
+
+        private final int[] offsets;
+        private final int[] edges;
+        private final int[] sources;
+
+        private ReverseEdges(int[] offsets, int[] edges, int[] sources) {
+            this.offsets = offsets;
+            this.edges = edges;
+            this.sources = sources;
+        }
+
+        private static ReverseEdges build(RoadGraph graph) {
+            int nodeCount = graph.nodeCount();
+            int edgeCount = graph.edgeCount();
+
+            int[] offsets = new int[nodeCount + 1];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                offsets[graph.edgeTarget(edge) + 1]++;
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                offsets[node + 1] += offsets[node];
+            }
+
+            int[] edges = new int[edgeCount];
+            int[] sources = new int[edgeCount];
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                    int index = next[graph.edgeTarget(edge)]++;
+                    edges[index] = edge;
+                    sources[index] = node;
+                }
+            }
+
+            return new ReverseEdges(offsets, edges, sources);
+        }
+    }
+
+    /*
+     * Estado de una búsqueda. En lugar de limpiar los arrays en cada consulta se usa un contador de versión,
+     * un nodo solo tiene datos válidos si su marca coincide con la versión actual.
+     */
+    private static final class SearchState {
+
+        private final double[] distance;
+        private final double[] duration;
+        private final int[] reached;
+        private final int[] settled;
+        private final int[] targets;
+        private final NodeHeap heap = new NodeHeap();
+        private int version;
+
+        private SearchState(int nodeCount) {
+            this.distance = new double[nodeCount];
+            this.duration = new double[nodeCount];
+            this.reached = new int[nodeCount];
+            this.settled = new int[nodeCount];
+            this.targets = new int[nodeCount];
+        }
+
+        private void reset() {
+            heap.clear();
+            version++;
+
+            // Si el contador da la vuelta hay que limpiar las marcas para no confundir versiones antiguas
+            if (version == Integer.MAX_VALUE) {
+                Arrays.fill(reached, 0);
+                Arrays.fill(settled, 0);
+                Arrays.fill(targets, 0);
+                version = 1;
+            }
+        }
+
+        private void reach(int node, double nodeDistance, double nodeDuration) {
+            reached[node] = version;
+            distance[node] = nodeDistance;
+            duration[node] = nodeDuration;
+        }
+
+        private boolean isReached(int node) {
+            return reached[node] == version;
+        }
+
+        private void settle(int node) {
+            settled[node] = version;
+        }
+
+        private boolean isSettled(int node) {
+            return settled[node] == version;
+        }
+
+        private void markTarget(int node) {
+            targets[node] = version;
+        }
+
+        private boolean isTarget(int node) {
+            return targets[node] == version;
+        }
+    }
+
+    /*
+     * Montículo binario de nodos con prioridad, con arrays primitivos para no crear objetos por cada inserción.
+     * Un nodo puede estar varias veces, las entradas antiguas se descartan al sacarlas si ya está asentado.
+     */
+    private static final class NodeHeap {
+
+        private int[] nodes = new int[1024];
+        private double[] priorities = new double[1024];
+        private int size;
+
+        private void clear() {
+            size = 0;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void push(int node, double priority) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                priorities = Arrays.copyOf(priorities, size * 2);
+            }
+
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+
+                if (priorities[parent] <= priority) {
+                    break;
+                }
+
+                nodes[index] = nodes[parent];
+                priorities[index] = priorities[parent];
+                index = parent;
+            }
+
+            nodes[index] = node;
+            priorities[index] = priority;
+        }
+
+        private int pop() {
+            int result = nodes[0];
+            int lastNode = nodes[--size];
+            double lastPriority = priorities[size];
+
+            int index = 0;
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+
+                if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                    child++;
+                }
+
+                if (lastPriority <= priorities[child]) {
+                    break;
+                }
+
+                nodes[index] = nodes[child];
+                priorities[index] = priorities[child];
+                index = child;
+            }
+
+            nodes[index] = lastNode;
+            priorities[index] = lastPriority;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package es.iesmm.proyecto.drivehub.backend.util.routing;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Escribe un grafo de carreteras con el formato binario que lee RoadGraph.
+ *
+ * Está pensado para usarse desde la herramienta que preprocesa el extracto de OpenStreetMap: esta extrae los nodos
+ * y los tramos de carretera y se los pasa aquí, que se encarga de ordenar los nodos por celda de la rejilla y de
+ * construir el índice de aristas.
+ */
+public final class RoadGraphWriter {
+
+    private RoadGraphWriter() {
+    }
+
+    public static void write(Path file, double[] latitudes, double[] longitudes,
+                             int[] edgeSources, int[] edgeTargets, int[] edgeDistances, double[] edgeDurations,
+                             double cellSize) throws IOException {
+        int nodeCount = latitudes.length;
+        int edgeCount = edgeSources.length;
+
+        Preconditions.checkArgument(nodeCount > 0, "EMPTY_GRAPH");
+        Preconditions.checkArgument(longitudes.length == nodeCount, "INVALID_COORDINATES");
+        Preconditions.checkArgument(edgeTargets.length == edgeCount && edgeDistances.length == edgeCount
+                && edgeDurations.length == edgeCount, "INVALID_EDGES");
+        Preconditions.checkArgument(cellSize > 0, "INVALID_CELL_SIZE");
+
+        // Se calcula la caja que contiene todos los nodos para montar la rejilla
+        double minLatitude = Double.MAX_VALUE, maxLatitude = -Double.MAX_VALUE;
+        double minLongitude = Double.MAX_VALUE, maxLongitude = -Double.MAX_VALUE;
+        for (int node = 0; node < nodeCount; node++) {
+            minLatitude = Math.min(minLatitude, latitudes[node]);
+            maxLatitude = Math.max(maxLatitude, latitudes[node]);
+            minLongitude = Math.min(minLongitude, longitudes[node]);
+            maxLongitude = Math.max(maxLongitude, longitudes[node]);
+        }
+
+        int gridRows = (int) Math.floor((maxLatitude - minLatitude) / cellSize) + 1;
+        int gridCols = (int) Math.floor((maxLongitude - minLongitude) / cellSize) + 1;
+
+        // Ordenación por conteo de los nodos según su celda
+        int[] cellOf = new int[nodeCount];
+        int[] cells = new int[gridRows * gridCols + 1];
+        for (int node = 0; node < nodeCount; node++) {
+            int row = (int) Math.floor((latitudes[node] - minLatitude) / cellSize);
+            int col = (int) Math.floor((longitudes[node] - minLongitude) / cellSize);
+            cellOf[node] = row * gridCols + col;
+            cells[cellOf[node] + 1]++;
+        }
+
+        for (int cell = 0; cell < gridRows * gridCols; cell++) {
+            cells[cell + 1] += cells[cell];
+        }
+
+        int[] newId = new int[nodeCount];
+        int[] cursor = new int[gridRows * gridCols];
+        for (int node = 0; node < nodeCount; node++) {
+            int cell = cellOf[node];
+            newId[node] = cells[cell] + cursor[cell]++;
+        }
+
+        // Índice de aristas (CSR) con los identificadores nuevos
+        int[] offsets = new int[nodeCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            offsets[newId[edgeSources[edge]] + 1]++;
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        int[] edgeData = new int[3 * edgeCount];
+        int[] edgeCursor = new int[nodeCount];
+        float maxSpeed = 0;
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int source = newId[edgeSources[edge]];
+            int position = offsets[source] + edgeCursor[source]++;
+
+            edgeData[3 * position] = newId[edgeTargets[edge]];
+            edgeData[3 * position + 1] = edgeDistances[edge];
+            edgeData[3 * position + 2] = (int) Math.round(edgeDurations[edge] * RoadGraph.DURATION_SCALE);
+
+            if (edgeDurations[edge] > 0) {
+                maxSpeed = Math.max(maxSpeed, (float) (edgeDistances[edge] / edgeDurations[edge]));
+            }
+        }
+
+        long size = RoadGraph.HEADER_BYTES
+                + (long) Integer.BYTES * (2L * nodeCount + nodeCount + 1 + 3L * edgeCount + cells.length);
+        Preconditions.checkArgument(size <= Integer.MAX_VALUE, "ROAD_GRAPH_FILE_TOO_LARGE");
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(RoadGraph.MAGIC)
+                .putInt(RoadGraph.VERSION)
+                .putInt(nodeCount)
+                .putInt(edgeCount)
+                .putInt(gridRows)
+                .putInt(gridCols)
+                .putDouble(minLatitude)
+                .putDouble(minLongitude)
+                .putDouble(cellSize)
+                .putFloat(maxSpeed);
+
+        // Coordenadas en el orden nuevo
+        int[] coordinates = new int[2 * nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            coordinates[2 * newId[node]] = (int) Math.round(latitudes[node] * RoadGraph.COORDINATE_SCALE);
+            coordinates[2 * newId[node] + 1] = (int) Math.round(longitudes[node] * RoadGraph.COORDINATE_SCALE);
+        }
+
+        buffer.asIntBuffer().put(coordinates).put(offsets).put(edgeData).put(cells);
+        buffer.position(0);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package es.iesmm.proyecto.drivehub.backend.util.routing;
+
+/*
+ * Resultado de una ruta sobre el grafo de carreteras, la distancia está en metros y la duración en segundos.
+ */
+public record RouteResult(double distanceMeters, double durationSeconds) {
+
+    public static final RouteResult UNREACHABLE = new RouteResult(-1, -1);
+
+    public boolean isReachable() {
+        return distanceMeters >= 0;
+    }
+}
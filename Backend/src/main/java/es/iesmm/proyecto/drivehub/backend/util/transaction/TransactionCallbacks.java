@@ -0,0 +1,53 @@
+package es.iesmm.proyecto.drivehub.backend.util.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+ * Utilidades para ejecutar código cuando termina la transacción actual, se usa para actualizar los índices en memoria
+ * solo cuando el cambio ya está guardado en la base de datos (o para deshacerlos si no se llega a guardar).
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * Ejecuta la acción cuando se confirme la transacción actual, si se deshace no se ejecuta. Si no hay transacción
+     * se ejecuta directamente.
+     * @param action Acción a ejecutar
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Ejecuta la acción si se deshace la transacción actual (también si falla al confirmarla). Si no hay transacción
+     * no se ejecuta nunca.
+     * @param action Acción a ejecutar
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
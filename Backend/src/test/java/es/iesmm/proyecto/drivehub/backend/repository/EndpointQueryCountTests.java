@@ -0,0 +1,166 @@
+package es.iesmm.proyecto.drivehub.backend.repository;
+
+import es.iesmm.proyecto.drivehub.backend.config.HibernateCacheConfig;
+import es.iesmm.proyecto.drivehub.backend.model.http.response.trip.TripSummaryResponse;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.RentCar;
+import es.iesmm.proyecto.drivehub.backend.model.ship.Shipment;
+import es.iesmm.proyecto.drivehub.backend.model.ship.parcel.Parcel;
+import es.iesmm.proyecto.drivehub.backend.model.ship.status.ShipmentStatusUpdate;
+import es.iesmm.proyecto.drivehub.backend.model.trip.TripModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.UserModel;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+import es.iesmm.proyecto.drivehub.backend.service.user.UserService;
+import es.iesmm.proyecto.drivehub.backend.service.user.cache.AuthenticatedUserCache;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Número de consultas de los listados paginados, para que un cambio en las entidades o en las consultas no vuelva a
+ * cargar las relaciones fila a fila. Se cuentan las sentencias preparadas con las estadísticas de Hibernate.
+ */
+@DataJpaTest(properties = "spring.sql.init.mode=never")
+@Import(HibernateCacheConfig.class)
+class EndpointQueryCountTests {
+
+	private static final int ROWS = 6;
+	private static final PageRequest PAGE = PageRequest.of(0, ROWS + 1);
+
+	// Los necesitan BackendApplication y el listener de UserModel, fuera de las consultas no se usan
+	@MockBean
+	private UserService userService;
+
+	@MockBean
+	private AuthenticatedUserCache authenticatedUserCache;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TripRepository tripRepository;
+
+	@Autowired
+	private ShipmentRepository shipmentRepository;
+
+	@Autowired
+	private ShipmentStatusUpdateRepository statusUpdateRepository;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private Statistics statistics;
+	private UserModel passenger;
+	private UserModel driver;
+	private Shipment shipment;
+
+	@BeforeEach
+	void setUp() {
+		passenger = persist(new UserModel("passenger@drivehub.test", "password", "Pass", "Enger"));
+		driver = persist(new UserModel("driver@drivehub.test", "password", "Dri", "Ver"));
+
+		for (int i = 0; i < ROWS; i++) {
+			persist(TripModel.builder()
+					.date(new Date(1_000_000L * i))
+					.origin("0,0")
+					.destination("1,1")
+					.originAddress("Origin " + i)
+					.destinationAddress("Destination " + i)
+					.passenger(passenger)
+					.driver(i % 2 == 0 ? driver : null)
+					.build());
+
+			List<Parcel> parcels = new ArrayList<>(List.of(
+					Parcel.builder().content("Box").quantity(1).weight(2).build(),
+					Parcel.builder().content("Envelope").quantity(3).weight(0.1).build()
+			));
+			shipment = persist(Shipment.builder()
+					.sourceAddress("Origin " + i)
+					.destinationAddress("Destination " + i)
+					.shipmentDate(new java.sql.Date(1_000_000L * i))
+					.parcels(parcels)
+					.driver(driver)
+					.build());
+			persist(ShipmentStatusUpdate.initial(shipment));
+
+			persist(RentCar.builder()
+					.plate("000" + i + "ABC")
+					.numBastidor("VIN" + i)
+					.brand("Seat")
+					.model("Ibiza")
+					.color("Red")
+					.precioHora(10)
+					.requiredLicense(DriverLicenseType.B)
+					.build());
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	@Test
+	void tripHistory() {
+		assertQueries(1, ROWS, () -> tripRepository.findSummaries(null, passenger.getId(), null, null, null, null, null, PAGE));
+		assertQueries(1, ROWS / 2, () -> tripRepository.findSummaries(null, null, driver.getId(), null, null, null, null, PAGE));
+
+		// La siguiente página empieza justo después del cursor
+		TripSummaryResponse last = tripRepository.findSummaries(null, passenger.getId(), null, null, null, null, null, PageRequest.of(0, 2)).get(1);
+		assertQueries(1, ROWS - 2, () -> tripRepository.findSummaries(null, passenger.getId(), null, null, null, last.date(), last.id(), PAGE));
+	}
+
+	@Test
+	void shipmentList() {
+		assertQueries(1, ROWS, () -> shipmentRepository.findTracking(null, null, null, null, null, null, null, PAGE));
+		assertQueries(1, ROWS, () -> shipmentRepository.findTracking(null, driver.getId(), null, null, null, null, null, PAGE));
+	}
+
+	@Test
+	void shipmentHistory() {
+		assertQueries(1, 1, () -> statusUpdateRepository.findHistory(shipment.getId(), null, null, PAGE));
+	}
+
+	@Test
+	void vehicleList() {
+		assertQueries(1, ROWS, () -> vehicleRepository.findPage(null, null, PAGE));
+		assertQueries(1, ROWS, () -> vehicleRepository.findPage(true, null, PAGE));
+		assertQueries(1, 0, () -> vehicleRepository.findPage(false, null, PAGE));
+	}
+
+	@Test
+	void userList() {
+		// IDs de la página y después los usuarios con sus licencias
+		assertQueries(2, 2, () -> userRepository.findAllWithLicensesByIdIn(userRepository.findIdPage(null, null, PAGE)));
+	}
+
+	private void assertQueries(long expected, int rows, Supplier<List<?>> query) {
+		entityManager.clear();
+		statistics.clear();
+
+		assertEquals(rows, query.get().size());
+		assertEquals(expected, statistics.getPrepareStatementCount());
+	}
+
+	private <T> T persist(T entity) {
+		entityManager.persist(entity);
+		return entity;
+	}
+}
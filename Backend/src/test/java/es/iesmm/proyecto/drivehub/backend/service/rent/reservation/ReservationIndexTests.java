@@ -0,0 +1,87 @@
+package es.iesmm.proyecto.drivehub.backend.service.rent.reservation;
+
+import es.iesmm.proyecto.drivehub.backend.model.rent.reservation.ReservationInterval;
+import es.iesmm.proyecto.drivehub.backend.repository.ReservationRepository;
+import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ReservationIndexTests {
+
+	// Vehículo 1 reservado en [100, 200) y [300, 400), vehículo 2 en [150, 250) y vehículo 3 libre
+	private static final ReservationInterval FIRST = new ReservationInterval(10L, 1L, 5L, 100, 200);
+	private static final ReservationInterval SECOND = new ReservationInterval(11L, 1L, 5L, 300, 400);
+	private static final ReservationInterval OTHER = new ReservationInterval(12L, 2L, 6L, 150, 250);
+
+	private ReservationIndex index;
+
+	@BeforeEach
+	void setUp() {
+		ReservationRepository reservationRepository = mock(ReservationRepository.class);
+		when(reservationRepository.findPendingIntervals(any())).thenReturn(List.of(FIRST, SECOND, OTHER));
+
+		VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+		when(vehicleRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+
+		index = new ReservationIndex(reservationRepository, vehicleRepository,
+				mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class));
+		index.rebuild();
+	}
+
+	@Test
+	void findsReservationStartingBefore() {
+		assertEquals(List.of(FIRST), index.findOverlapping(1L, 150, 160));
+		assertEquals(List.of(FIRST), index.findOverlapping(1L, 50, 101));
+	}
+
+	@Test
+	void findsEveryReservationInside() {
+		assertEquals(List.of(FIRST, SECOND), index.findOverlapping(1L, 150, 350));
+		assertEquals(List.of(FIRST, SECOND), index.findOverlapping(1L, 0, 1000));
+	}
+
+	@Test
+	void intervalsAreHalfOpen() {
+		assertEquals(List.of(), index.findOverlapping(1L, 200, 300));
+		assertEquals(List.of(), index.findOverlapping(1L, 0, 100));
+		assertEquals(List.of(), index.findOverlapping(1L, 400, 500));
+	}
+
+	@Test
+	void unknownVehicleHasNoReservations() {
+		assertEquals(List.of(), index.findOverlapping(99L, 0, 1000));
+	}
+
+	@Test
+	void findsFreeVehicles() {
+		assertEquals(List.of(1L, 2L, 3L), index.findFreeVehicles(250, 300));
+		assertEquals(List.of(2L, 3L), index.findFreeVehicles(350, 360));
+		assertEquals(List.of(3L), index.findFreeVehicles(190, 210));
+	}
+
+	@Test
+	void addsAndRemovesReservations() {
+		ReservationInterval added = new ReservationInterval(13L, 3L, 7L, 500, 600);
+
+		index.add(added);
+		assertEquals(List.of(added), index.findOverlapping(3L, 550, 560));
+		assertEquals(List.of(1L, 2L), index.findFreeVehicles(500, 600));
+
+		// Volver a añadir la misma reserva con otro intervalo la reemplaza
+		ReservationInterval moved = new ReservationInterval(13L, 3L, 7L, 700, 800);
+		index.add(moved);
+		assertEquals(List.of(), index.findOverlapping(3L, 500, 600));
+		assertEquals(List.of(moved), index.findOverlapping(3L, 0, 1000));
+
+		index.remove(moved);
+		assertEquals(List.of(), index.findOverlapping(3L, 0, 1000));
+	}
+}
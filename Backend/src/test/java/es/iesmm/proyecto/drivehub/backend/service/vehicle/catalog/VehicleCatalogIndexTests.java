@@ -0,0 +1,140 @@
+package es.iesmm.proyecto.drivehub.backend.service.vehicle.catalog;
+
+import es.iesmm.proyecto.drivehub.backend.model.http.request.rent.CatalogSort;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogEntry;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.CatalogQuery;
+import es.iesmm.proyecto.drivehub.backend.model.rent.vehicle.catalog.PriceBand;
+import es.iesmm.proyecto.drivehub.backend.model.user.driver.license.type.DriverLicenseType;
+import es.iesmm.proyecto.drivehub.backend.repository.VehicleRepository;
+import es.iesmm.proyecto.drivehub.backend.service.vehicle.catalog.VehicleCatalogIndex.CatalogResult;
+import es.iesmm.proyecto.drivehub.backend.service.vehicle.index.VehicleAvailabilityIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VehicleCatalogIndexTests {
+
+	private VehicleRepository vehicleRepository;
+	private VehicleAvailabilityIndex availabilityIndex;
+	private VehicleCatalogIndex index;
+
+	@BeforeEach
+	void setUp() {
+		vehicleRepository = mock(VehicleRepository.class);
+		when(vehicleRepository.findCatalogEntries()).thenReturn(List.of(
+				new CatalogEntry(1L, "Seat", "Ibiza", "Red", 8, DriverLicenseType.B),
+				new CatalogEntry(2L, "SEAT", "Leon", "Blue", 15, null),
+				new CatalogEntry(3L, "Audi", "A4", "red", 45, DriverLicenseType.B),
+				new CatalogEntry(4L, "Audi", "Q7", "Black", 120, DriverLicenseType.C)
+		));
+
+		availabilityIndex = mock(VehicleAvailabilityIndex.class);
+		index = new VehicleCatalogIndex(vehicleRepository, availabilityIndex,
+				mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class), 100);
+		index.rebuild();
+	}
+
+	@AfterEach
+	void tearDown() {
+		index.shutdown();
+	}
+
+	@Test
+	void coalescesRefreshMessages() throws InterruptedException {
+		for (int i = 0; i < 20; i++) {
+			index.onMessage(null, null);
+		}
+
+		// Una sola recarga además de la inicial
+		verify(vehicleRepository, timeout(2000).times(2)).findCatalogEntries();
+		Thread.sleep(300);
+		verify(vehicleRepository, times(2)).findCatalogEntries();
+	}
+
+	@Test
+	void withoutFiltersReturnsEveryVehicleById() {
+		CatalogResult result = index.search(query(null, null, null, null, null, null, null, 0, 10));
+
+		assertEquals(List.of(1L, 2L, 3L, 4L), result.pageIds());
+		assertEquals(4, result.total());
+		assertEquals(Map.of("Seat", 2, "Audi", 2), result.brands());
+		assertEquals(Map.of(PriceBand.UNDER_10.name(), 1, PriceBand.FROM_10_TO_20.name(), 1,
+				PriceBand.FROM_20_TO_50.name(), 1, PriceBand.OVER_100.name(), 1), result.priceBands());
+		assertEquals(Map.of(DriverLicenseType.B.name(), 3, DriverLicenseType.C.name(), 1), result.licenses());
+	}
+
+	@Test
+	void comparesTextIgnoringCase() {
+		assertEquals(List.of(1L, 2L), index.search(query(" seat ", null, null, null, null, null, null, 0, 10)).pageIds());
+		assertEquals(List.of(1L, 3L), index.search(query(null, "RED", null, null, null, null, null, 0, 10)).pageIds());
+	}
+
+	@Test
+	void unknownValueMatchesNothing() {
+		CatalogResult result = index.search(query("Tesla", null, null, null, null, null, null, 0, 10));
+
+		assertEquals(List.of(), result.pageIds());
+		assertEquals(0, result.total());
+		assertTrue(result.brands().isEmpty());
+	}
+
+	@Test
+	void filtersByPriceBandAndLicense() {
+		assertEquals(List.of(2L, 3L), index.search(query(null, null, 10.0, 50.0, null, null, null, 0, 10)).pageIds());
+		assertEquals(List.of(4L), index.search(query(null, null, null, null, PriceBand.OVER_100, null, null, 0, 10)).pageIds());
+		assertEquals(List.of(4L), index.search(query(null, null, null, null, null, DriverLicenseType.C, null, 0, 10)).pageIds());
+	}
+
+	@Test
+	void facetsOnlyCountMatchingVehicles() {
+		CatalogResult result = index.search(query("audi", null, null, null, null, null, null, 0, 10));
+
+		assertEquals(Map.of("Audi", 2), result.brands());
+		assertEquals(Map.of(DriverLicenseType.B.name(), 1, DriverLicenseType.C.name(), 1), result.licenses());
+	}
+
+	@Test
+	void filtersByAvailability() {
+		when(availabilityIndex.isAvailable(anyLong())).thenAnswer(invocation -> (long) invocation.getArgument(0) % 2 == 1);
+
+		assertEquals(List.of(1L, 3L), index.search(query(null, null, null, null, null, null, true, 0, 10)).pageIds());
+		assertEquals(List.of(2L, 4L), index.search(query(null, null, null, null, null, null, false, 0, 10)).pageIds());
+	}
+
+	@Test
+	void sortsAndPages() {
+		assertEquals(List.of(4L, 3L, 2L, 1L), index.search(sorted(CatalogSort.PRICE_DESC, 0, 10)).pageIds());
+		assertEquals(List.of(3L, 4L, 1L, 2L), index.search(sorted(CatalogSort.BRAND, 0, 10)).pageIds());
+
+		CatalogResult secondPage = index.search(sorted(CatalogSort.PRICE_ASC, 1, 3));
+		assertEquals(List.of(4L), secondPage.pageIds());
+		assertEquals(4, secondPage.total());
+
+		assertEquals(List.of(), index.search(sorted(CatalogSort.ID, 5, 3)).pageIds());
+	}
+
+	@Test
+	void veryHighPageIsEmpty() {
+		CatalogResult result = index.search(sorted(CatalogSort.ID, Integer.MAX_VALUE, 100));
+
+		assertEquals(List.of(), result.pageIds());
+		assertEquals(4, result.total());
+	}
+
+	private static CatalogQuery query(String brand, String color, Double minPrice, Double maxPrice, PriceBand priceBand,
+									  DriverLicenseType license, Boolean available, int page, int size) {
+		return new CatalogQuery(brand, null, color, minPrice, maxPrice, priceBand, license, available, null, page, size);
+	}
+
+	private static CatalogQuery sorted(CatalogSort sort, int page, int size) {
+		return new CatalogQuery(null, null, null, null, null, null, null, null, sort, page, size);
+	}
+}
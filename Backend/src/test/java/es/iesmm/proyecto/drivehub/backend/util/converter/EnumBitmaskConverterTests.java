@@ -0,0 +1,53 @@
+package es.iesmm.proyecto.drivehub.backend.util.converter;
+
+import es.iesmm.proyecto.drivehub.backend.model.user.roles.UserRoles;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnumBitmaskConverterTests {
+
+	private final RoleBitmaskConverter converter = new RoleBitmaskConverter();
+
+	@Test
+	void eachValueIsTheBitOfItsOrdinal() {
+		for (UserRoles role : UserRoles.values()) {
+			assertEquals(1L << role.ordinal(), converter.convertToDatabaseColumn(EnumSet.of(role)));
+		}
+	}
+
+	@Test
+	void roundTripsEverySet() {
+		Set<UserRoles> roles = EnumSet.of(UserRoles.USER, UserRoles.DRIVER_CHAUFFEUR);
+
+		assertEquals(roles, converter.convertToEntityAttribute(converter.convertToDatabaseColumn(roles)));
+		assertEquals(EnumSet.allOf(UserRoles.class),
+				converter.convertToEntityAttribute(converter.convertToDatabaseColumn(EnumSet.allOf(UserRoles.class))));
+	}
+
+	@Test
+	void nullAndEmptyAreTheSame() {
+		assertEquals(0L, converter.convertToDatabaseColumn(null));
+		assertEquals(0L, converter.convertToDatabaseColumn(EnumSet.noneOf(UserRoles.class)));
+		assertTrue(converter.convertToEntityAttribute(null).isEmpty());
+		assertTrue(converter.convertToEntityAttribute(0L).isEmpty());
+	}
+
+	@Test
+	void ignoresNullValuesAndUnknownBits() {
+		assertEquals(1L << UserRoles.ADMIN.ordinal(), EnumBitmaskConverter.toMask(Arrays.asList(UserRoles.ADMIN, null)));
+		assertEquals(EnumSet.of(UserRoles.USER), converter.convertToEntityAttribute((1L << 63) | 1L << UserRoles.USER.ordinal()));
+	}
+
+	@Test
+	void readSetIsModifiable() {
+		Set<UserRoles> roles = converter.convertToEntityAttribute(0L);
+		roles.add(UserRoles.ADMIN);
+
+		assertEquals(EnumSet.of(UserRoles.ADMIN), roles);
+	}
+}
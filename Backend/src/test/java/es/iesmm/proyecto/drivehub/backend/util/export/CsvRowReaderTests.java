@@ -0,0 +1,76 @@
+package es.iesmm.proyecto.drivehub.backend.util.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRowReaderTests {
+
+	@Test
+	void readsPlainRows() throws IOException {
+		CsvRowReader reader = new CsvRowReader(new StringReader("a,b,c\n1,,3\n"));
+
+		assertEquals(List.of("a", "b", "c"), reader.next());
+		assertEquals(List.of("1", "", "3"), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void readsLastRowWithoutLineBreak() throws IOException {
+		CsvRowReader reader = new CsvRowReader(new StringReader("a,b\r\nc,d"));
+
+		assertEquals(List.of("a", "b"), reader.next());
+		assertEquals(List.of("c", "d"), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void readsQuotedValues() throws IOException {
+		CsvRowReader reader = new CsvRowReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"\"\n"));
+
+		assertEquals(List.of("a,b", "say \"hi\"", ""), reader.next());
+	}
+
+	@Test
+	void readsLineBreaksInsideQuotesAndTracksRowLine() throws IOException {
+		CsvRowReader reader = new CsvRowReader(new StringReader("header\n\"first\nsecond\",x\nlast\n"));
+
+		reader.next();
+		assertEquals(1, reader.getRowLine());
+
+		assertEquals(List.of("first\nsecond", "x"), reader.next());
+		assertEquals(2, reader.getRowLine());
+
+		assertEquals(List.of("last"), reader.next());
+		assertEquals(4, reader.getRowLine());
+	}
+
+	@Test
+	void readsWhatCsvExportWriterWrites() throws IOException {
+		String value = "comma, \"quote\"\r\nand line";
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try (CsvExportWriter<String> writer = new CsvExportWriter<>(out, List.of(
+				CsvExportWriter.Column.of("value", row -> row),
+				CsvExportWriter.Column.of("length", String::length)
+		))) {
+			writer.write(value);
+		}
+
+		CsvRowReader reader = new CsvRowReader(new StringReader(out.toString(StandardCharsets.UTF_8)));
+		assertEquals(List.of("value", "length"), reader.next());
+		assertEquals(List.of(value, String.valueOf(value.length())), reader.next());
+		assertNull(reader.next());
+	}
+
+	@Test
+	void emptyInputHasNoRows() throws IOException {
+		assertNull(new CsvRowReader(new StringReader("")).next());
+	}
+}
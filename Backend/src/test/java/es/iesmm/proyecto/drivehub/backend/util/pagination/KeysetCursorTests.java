@@ -0,0 +1,44 @@
+package es.iesmm.proyecto.drivehub.backend.util.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTests {
+
+	@Test
+	void encodesAndDecodesDateAndId() {
+		KeysetCursor cursor = KeysetCursor.of(new Date(1_700_000_000_123L), 42L);
+
+		assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void encodesAndDecodesOnlyId() {
+		KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.of(7L).encode());
+
+		assertNull(decoded.date());
+		assertEquals(7L, decoded.id());
+	}
+
+	@Test
+	void missingCursorIsFirstPage() {
+		assertEquals(new KeysetCursor(null, null), KeysetCursor.decode(null));
+		assertEquals(new KeysetCursor(null, null), KeysetCursor.decode(" "));
+	}
+
+	@Test
+	void encodedCursorIsUrlSafe() {
+		String encoded = KeysetCursor.of(new Date(Long.MAX_VALUE), Long.MAX_VALUE).encode();
+
+		assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+	}
+
+	@Test
+	void rejectsInvalidCursor() {
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not a cursor"));
+		assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm9faWQ"));
+	}
+}
@@ -0,0 +1,149 @@
+package es.iesmm.proyecto.drivehub.backend.util.routing;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoadGraphRouterTests {
+
+	/*
+	 * Cuatro cruces en un cuadrado y uno aislado. Las aristas 0 -> 1 -> 2 y 0 -> 3 -> 2 son de un solo sentido y la única
+	 * forma de volver es la diagonal 2 -> 0, también de un solo sentido. Las distancias son mayores que la línea recta
+	 * para que la heurística de A* sea admisible.
+	 */
+	private static final double[] LATITUDES = {40.0, 40.0, 40.01, 40.01, 40.05};
+	private static final double[] LONGITUDES = {-3.0, -2.99, -2.99, -3.0, -3.0};
+	private static final int[] SOURCES = {0, 1, 0, 3, 2};
+	private static final int[] TARGETS = {1, 2, 3, 2, 0};
+	private static final int[] DISTANCES = {1000, 1200, 1200, 1100, 1500};
+
+	@TempDir
+	static Path directory;
+
+	private static RoadGraph graph;
+
+	@BeforeAll
+	static void writeGraph() throws IOException {
+		double[] durations = IntStream.of(DISTANCES).mapToDouble(distance -> distance / 10d).toArray();
+		Path file = directory.resolve("fixture.graph");
+
+		RoadGraphWriter.write(file, LATITUDES, LONGITUDES, SOURCES, TARGETS, DISTANCES, durations, 0.005);
+		graph = RoadGraph.open(file);
+	}
+
+	@Test
+	void writerKeepsNodesAndEdges() {
+		assertEquals(5, graph.nodeCount());
+		assertEquals(5, graph.edgeCount());
+		assertEquals(10f, graph.maxSpeed(), 0.001);
+
+		int node = node(2);
+		assertEquals(40.01, graph.latitude(node), 1e-6);
+		assertEquals(-2.99, graph.longitude(node), 1e-6);
+	}
+
+	@Test
+	void findsNearestNodeWithinDistance() {
+		assertEquals(node(1), graph.nearestNode(40.0001, -2.9901, 50));
+		assertEquals(-1, graph.nearestNode(40.03, -3.0, 50));
+	}
+
+	@Test
+	void routesShortestPath() {
+		RoadGraphRouter router = new RoadGraphRouter(graph, 1);
+
+		RouteResult result = router.route(node(0), node(2));
+		assertEquals(2200, result.distanceMeters(), 1e-9);
+		assertEquals(220, result.durationSeconds(), 1e-9);
+
+		assertEquals(new RouteResult(0, 0), router.route(node(3), node(3)));
+	}
+
+	@Test
+	void followsOneWayEdges() {
+		RoadGraphRouter router = new RoadGraphRouter(graph, 1);
+
+		assertEquals(1500, router.route(node(2), node(0)).distanceMeters(), 1e-9);
+		assertEquals(2700, router.route(node(1), node(0)).distanceMeters(), 1e-9);
+	}
+
+	@Test
+	void unreachableNodes() {
+		RoadGraphRouter router = new RoadGraphRouter(graph, 1);
+
+		assertFalse(router.route(node(0), node(4)).isReachable());
+		assertFalse(router.route(node(4), node(0)).isReachable());
+		assertFalse(router.route(-1, node(0)).isReachable());
+	}
+
+	@Test
+	void routesOneToMany() {
+		RouteResult[] results = new RoadGraphRouter(graph, 1).routeOneToMany(node(0), new int[]{node(1), node(2), node(3), node(4), -1});
+
+		assertEquals(List.of(1000.0, 2200.0, 1200.0, -1.0, -1.0), distances(results));
+	}
+
+	@Test
+	void routesManyToOneAlongTheEdgeDirection() {
+		RouteResult[] results = new RoadGraphRouter(graph, 1).routeManyToOne(new int[]{node(1), node(3), node(2), node(4)}, node(0));
+
+		assertEquals(List.of(2700.0, 2600.0, 1500.0, -1.0), distances(results));
+	}
+
+	@Test
+	void batchRoutesMatchPointToPoint() {
+		RoadGraphRouter router = new RoadGraphRouter(graph, 1);
+		int[] nodes = IntStream.range(0, LATITUDES.length).map(RoadGraphRouterTests::node).toArray();
+
+		for (int from : nodes) {
+			RouteResult[] oneToMany = router.routeOneToMany(from, nodes);
+			for (int i = 0; i < nodes.length; i++) {
+				assertEquals(router.route(from, nodes[i]).distanceMeters(), oneToMany[i].distanceMeters(), 1e-9);
+				assertEquals(router.route(nodes[i], from).distanceMeters(), router.routeManyToOne(nodes, from)[i].distanceMeters(), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	void concurrentSearchesShareLimitedStates() throws Exception {
+		RoadGraphRouter router = new RoadGraphRouter(graph, 2);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		try {
+			List<Future<RouteResult>> results = IntStream.range(0, 200)
+					.mapToObj(i -> executor.submit(() -> router.route(node(1), node(0))))
+					.toList();
+
+			for (Future<RouteResult> result : results) {
+				assertEquals(2700, result.get().distanceMeters(), 1e-9);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void rejectsInvalidMaxSearches() {
+		assertThrows(IllegalArgumentException.class, () -> new RoadGraphRouter(graph, 0));
+	}
+
+	// El escritor reordena los nodos por celda, se buscan por sus coordenadas
+	private static int node(int original) {
+		return graph.nearestNode(LATITUDES[original], LONGITUDES[original], 1);
+	}
+
+	private static List<Double> distances(RouteResult[] results) {
+		return Arrays.stream(results).map(RouteResult::distanceMeters).toList();
+	}
+}